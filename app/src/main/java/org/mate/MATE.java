@@ -82,6 +82,9 @@ public class MATE {
         }
         Registry.registerEnvironmentManager(environmentManager);
         Registry.registerProperties(new Properties(environmentManager.getProperties()));
+        if (Properties.BINARY_MESSAGE_PROTOCOL()) {
+            environmentManager.requestBinaryProtocol();
+        }
         Random rnd;
         if (Properties.RANDOM_SEED() != null) {
             rnd = new MersenneTwister(Properties.RANDOM_SEED());
@@ -166,6 +169,7 @@ public class MATE {
 
             Registry.getEnvironmentManager().releaseEmulator();
             //EnvironmentManager.deleteAllScreenShots(packageName);
+            MATE.log_acc(Registry.getEnvironmentManager().getEndpointMetrics().toString());
             try {
                 Registry.unregisterEnvironmentManager();
                 Registry.unregisterProperties();
@@ -4,6 +4,7 @@ import org.mate.graph.GraphType;
 import org.mate.utils.Coverage;
 import org.mate.utils.GenericParser;
 import org.mate.utils.Objective;
+import org.mate.utils.VectorEncoding;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -215,6 +216,30 @@ public class Properties {
      */
     public static int BIG_POPULATION_SIZE() { return propertyOr(100); }
 
+    // whether to request the length-prefixed binary message protocol (v2) from the server
+    public static boolean BINARY_MESSAGE_PROTOCOL() { return propertyOr(false); }
+
+    // the encoding of numeric vectors, e.g. branch distance vectors, sent by the server
+    public static VectorEncoding VECTOR_ENCODING() { return propertyOr(VectorEncoding.FLOAT64); }
+
+    // the maximal number of fitness vectors cached by multi-objective fitness functions
+    public static int FITNESS_CACHE_SIZE() { return propertyOr(500); }
+
+    // whether fitness values are retrieved in the background while the next test case is executed
+    public static boolean PIPELINED_FITNESS_EVALUATION() { return propertyOr(false); }
+
+    // whether offspring test cases are ranked by a surrogate fitness model before being executed
+    public static boolean SURROGATE_MODEL() { return propertyOr(false); }
+
+    // the fraction of the ranked offspring that is executed
+    public static float SURROGATE_EXECUTION_RATE() { return propertyOr(0.5f); }
+
+    // the fraction of the executed offspring chosen by rank, the remaining ones are chosen randomly
+    public static float SURROGATE_EXPLOITATION_RATIO() { return propertyOr(0.8f); }
+
+    // whether MOSA only targets branches whose control dependencies are covered (DynaMOSA)
+    public static boolean MOSA_DYNAMIC_TARGETS() { return propertyOr(false); }
+
     /**
      * Looks up the value of the property in the Properties object stored in the Registry using the
      * name of the caller method as the key of the property. If no property with that key is stored
@@ -226,7 +251,12 @@ public class Properties {
     @SuppressWarnings("unchecked")
     private static <T> T propertyOr(T defaultValue) {
         StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-        String callerName = stackTrace[3].getMethodName().toLowerCase();
+        // the depth of the caller differs between the Android runtime and a plain JVM
+        int propertyOrIndex = 0;
+        while (!stackTrace[propertyOrIndex].getMethodName().equals("propertyOr")) {
+            propertyOrIndex++;
+        }
+        String callerName = stackTrace[propertyOrIndex + 1].getMethodName().toLowerCase();
         Properties propertiesInstance = Registry.getProperties();
         if (propertiesInstance.store.containsKey(callerName)) {
             return ((T) propertiesInstance.store.get(callerName));
@@ -783,12 +783,9 @@ public class NoveltyBased {
         * Return the square root of this sum. This method should work for points of any length.
         */
 
-        double totalDistance = 0;
-        for(String feature : p1.getFeatureVector().keySet()){
-            totalDistance = totalDistance + Math.abs(p1.getFeatureVector().get(feature) - p2.getFeatureVector().get(feature));
-            //distance in R2
-            //totalDistance = totalDistance + Math.pow(p1.getFeatureVector().get(feature) - p2.getFeatureVector().get(feature),2);
-        }
+        double totalDistance = p1.getFeatureDistance(p2);
+        //distance in R2
+        //totalDistance = totalDistance + Math.pow(p1.getFeatureVector().get(feature) - p2.getFeatureVector().get(feature),2);
         return totalDistance;
 
         //Set<String> A = new HashSet<>();
@@ -1,11 +1,17 @@
 package org.mate.exploration.genetic.algorithm;
 
+import org.mate.MATE;
+import org.mate.Properties;
+import org.mate.Registry;
 import org.mate.exploration.genetic.chromosome.IChromosome;
 import org.mate.exploration.genetic.chromosome_factory.IChromosomeFactory;
+import org.mate.exploration.genetic.core.CoverageArchive;
+import org.mate.exploration.genetic.core.DynamicTargets;
+import org.mate.exploration.genetic.core.FitnessMatrix;
 import org.mate.exploration.genetic.core.GeneticAlgorithm;
+import org.mate.exploration.genetic.core.NonDominatedSorting;
 import org.mate.exploration.genetic.crossover.ICrossOverFunction;
 import org.mate.exploration.genetic.fitness.IFitnessFunction;
-import org.mate.exploration.genetic.fitness.LineCoveredPercentageFitnessFunction;
 import org.mate.exploration.genetic.mutation.IMutationFunction;
 import org.mate.exploration.genetic.selection.ISelectionFunction;
 import org.mate.exploration.genetic.termination.ITerminationCondition;
@@ -14,13 +20,8 @@ import org.mate.utils.FitnessUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
-import static org.mate.exploration.genetic.core.GAUtils.getParetoFront;
 import static org.mate.exploration.genetic.core.GAUtils.updateCrowdingDistance;
 
 /**
@@ -36,6 +37,9 @@ import static org.mate.exploration.genetic.core.GAUtils.updateCrowdingDistance;
  * <p>
  * The result of MOSA are all test cases which are stored in the {@link #archive}, i.e. the shortest test cases
  * which fulfill provided test targets (here fitness functions).
+ * <p>
+ * If {@link Properties#MOSA_DYNAMIC_TARGETS()} is enabled, the branches are targeted as in DynaMOSA, i.e. a
+ * branch only becomes a target once a branch it is control dependent on is covered, see {@link DynamicTargets}.
  *
  * @param <T> Type wrapped by the chromosome implementation. Has to be a {@link TestCase} or sub class.
  */
@@ -46,148 +50,208 @@ public class MOSA<T extends TestCase> extends GeneticAlgorithm<T> {
      * <em>"MOSA uses a second population, called archive, to keep track of the best test cases that cover branches
      * (here: fulfills a fitness function best) of the program under test."</em>
      * <p>
-     * Stores a mapping from fitness functions to the chromosome, which fulfills the fitness functions best.
+     * Stores for each objective, i.e. the index of a fitness function, the shortest chromosome fulfilling it.
+     */
+    private final CoverageArchive<T> archive;
+    /**
+     * Stores the objectives, i.e. the indices of the fitness functions, which have <emp>not yet</emp> been
+     * fulfilled and which criteria has not been met, i.e. result of the fitness function is smaller than 1
+     * for all chromosomes. With dynamic targets, only the objectives that have been activated are stored.
      */
-    private Map<IFitnessFunction<T>, IChromosome<T>> archive = new HashMap<>();
+    private List<Integer> uncoveredObjectives = new ArrayList<>();
     /**
-     * Stores all fitness functions which have <emp>not yet</emp> been fulfilled and which criteria has not been met,
-     * i.e. result of the fitness function is smaller than 1 for all chromosomes.
+     * Activates the objectives whose control dependencies are covered or {@code null} if all objectives
+     * are targets from the start.
      */
-    private List<IFitnessFunction<T>> uncoveredFitnessFunctions = new ArrayList<>();
+    private DynamicTargets dynamicTargets;
 
     public MOSA(IChromosomeFactory<T> chromosomeFactory, ISelectionFunction<T> selectionFunction, ICrossOverFunction<T> crossOverFunction, IMutationFunction<T> mutationFunction, List<IFitnessFunction<T>> fitnessFunctions, ITerminationCondition terminationCondition, int populationSize, int bigPopulationSize, double pCrossover, double pMutate) {
         super(chromosomeFactory, selectionFunction, crossOverFunction, mutationFunction, fitnessFunctions, terminationCondition, populationSize, bigPopulationSize, pCrossover, pMutate);
+        archive = new CoverageArchive<>(fitnessFunctions.size());
 
-        uncoveredFitnessFunctions.addAll(fitnessFunctions);
+        if (Properties.MOSA_DYNAMIC_TARGETS()) {
+            dynamicTargets = initialiseDynamicTargets();
+        }
+
+        if (dynamicTargets != null) {
+            uncoveredObjectives.addAll(dynamicTargets.getInitialTargets());
+        } else {
+            for (int objective = 0; objective < fitnessFunctions.size(); objective++) {
+                uncoveredObjectives.add(objective);
+            }
+        }
     }
 
-    @Override
-    public void createInitialPopulation() {
-        super.createInitialPopulation();
-        updateArchive(population);
+    /**
+     * Retrieves the control dependencies between the branches targeted by the fitness functions.
+     *
+     * @return Returns the dynamic targets or {@code null} if the MATE server doesn't provide the
+     *          control dependencies.
+     */
+    private DynamicTargets initialiseDynamicTargets() {
+        List<List<Integer>> branchDependencies = Registry.getEnvironmentManager().getBranchDependencies();
+        if (branchDependencies == null) {
+            MATE.log_acc("MOSA: no branch dependencies available, targeting all objectives");
+            return null;
+        }
+        return DynamicTargets.forBranches(fitnessFunctions, Registry.getEnvironmentManager().getBranches(),
+                branchDependencies);
     }
 
     @Override
     public void evolve() {
         super.evolve();
-        updateArchive(population);
 
-        // Todo: remove. Memory issue dirty quick fix
-        List<IChromosome<T>> activeChromosomes = new ArrayList<>();
-        activeChromosomes.addAll(population);
-        activeChromosomes.addAll(archive.values());
-        FitnessUtils.cleanCache(activeChromosomes);
+        // fitness vectors of discarded chromosomes are dropped by the cache automatically
+        MATE.log_acc("Live fitness cache entries: " + FitnessUtils.getLiveFitnessCacheEntries());
+        MATE.log_acc("Targeted objectives: " + uncoveredObjectives.size() + " of " + fitnessFunctions.size());
     }
 
     @Override
     public List<IChromosome<T>> getGenerationSurvivors() {
-        List<IChromosome<T>> population = new ArrayList<>(this.population);
-
-        final Map<IChromosome<T>, Integer> rankMap = new HashMap<>();
-        final Map<IChromosome<T>, Double> crowdingDistanceMap = new HashMap<>();
+        int[] ranks = new int[fitnessMatrix.size()];
+        double[] crowdingDistances = new double[fitnessMatrix.size()];
 
         // List of chromosomes that fulfill a certain testing target best.
-        final List<IChromosome<T>> preferredChromosomes = extractPreferred(population);
-        for (IChromosome<T> chromosome : preferredChromosomes) {
+        final List<Integer> preferredChromosomes = extractPreferred();
+        final int[] objectives = toArray(uncoveredObjectives);
+        for (int row : preferredChromosomes) {
             // MOSA best possible rank
-            rankMap.put(chromosome, 0);
+            ranks[row] = 0;
         }
-        updateCrowdingDistance(preferredChromosomes, uncoveredFitnessFunctions, crowdingDistanceMap);
+        updateCrowdingDistance(fitnessMatrix, preferredChromosomes, objectives, crowdingDistances);
 
         // The following represents Algorithm 2 (lines 7-12) and algorithm 1 (lines 10-17):
         // Apply rank and crowding distance values for all non-preference sorted chromosomes
-        final List<IChromosome<T>> remaining = new ArrayList<>(population);
-        remaining.removeAll(preferredChromosomes);
+        List<Integer> remaining = NonDominatedSorting.removeRows(fitnessMatrix.getRows(), preferredChromosomes, fitnessMatrix.size());
 
         // Start at best possible rank in NSGA-II
-        int rank = 1;
-
-        while (!remaining.isEmpty()) {
-            List<IChromosome<T>> paretoFront = getParetoFront(remaining, uncoveredFitnessFunctions);
+        int[] remainingRanks = NonDominatedSorting.sort(fitnessMatrix, remaining, objectives);
+        for (int row : remaining) {
+            ranks[row] = remainingRanks[row] + 1;
+        }
+        for (List<Integer> paretoFront : NonDominatedSorting.getFronts(remainingRanks, remaining)) {
+            updateCrowdingDistance(fitnessMatrix, paretoFront, objectives, crowdingDistances);
+        }
 
-            for (IChromosome<T> chromosome : paretoFront) {
-                remaining.remove(chromosome);
-                rankMap.put(chromosome, rank);
-            }
+        // Sort all by rank and if rank is equal by crowding distance
+        List<Integer> rows = fitnessMatrix.getRows();
+        Collections.sort(rows, new NSGAII.RankComparator(ranks, crowdingDistances));
 
-            updateCrowdingDistance(paretoFront, uncoveredFitnessFunctions, crowdingDistanceMap);
-            rank++;
+        List<IChromosome<T>> survivors = new ArrayList<>(populationSize);
+        for (int row : rows.subList(0, populationSize)) {
+            survivors.add(fitnessMatrix.getChromosome(row));
         }
+        return survivors;
+    }
 
-        // Sort all by rank and if rank is equal by crowding distance
-        Collections.sort(population, new NSGAII.RankComparator<>(rankMap, crowdingDistanceMap));
+    /**
+     * Evaluates the population and updates the archive with the chromosomes that haven't been
+     * evaluated before, i.e. the offspring including those that don't survive.
+     */
+    @Override
+    protected void evaluatePopulation() {
+        FitnessMatrix<T> previous = fitnessMatrix;
+        super.evaluatePopulation();
 
-        return population.subList(0, populationSize);
+        List<Integer> evaluated = new ArrayList<>();
+        for (int row = 0; row < fitnessMatrix.size(); row++) {
+            if (previous == null || previous.indexOf(fitnessMatrix.getChromosome(row)) < 0) {
+                evaluated.add(row);
+            }
+        }
+        updateArchive(evaluated);
     }
 
     /**
-     * Extract the best chromosomes for uncovered fitness functions for given population
+     * Extract the best chromosomes for uncovered fitness functions for the evaluated population
      * based on <a href="https://ieeexplore.ieee.org/abstract/document/7102604">MOSA Algorithm 2 lines 1 - 6</a>.
      * <p>
      * If one chromosome fulfills one fitness function, the fitness function is removed from the
-     * {@link #uncoveredFitnessFunctions uncovered fitness functions}.
+     * {@link #uncoveredObjectives uncovered objectives}. With dynamic targets, the objectives control
+     * dependent on it are added and handled within the same pass.
      *
-     * @return a list of current chromosomes that fit a uncovered fitness functions best.
+     * @return the rows of current chromosomes that fit a uncovered fitness functions best.
      */
-    private List<IChromosome<T>> extractPreferred(List<IChromosome<T>> population) {
-        if (population.isEmpty()) {
+    private List<Integer> extractPreferred() {
+        if (fitnessMatrix.size() == 0) {
             return new ArrayList<>();
         }
-        final Set<IChromosome<T>> firstNonDominatedFront = new HashSet<>();
-
-        // only look at fitness functions which have not been covered yet
-        List<IFitnessFunction<T>> toRemove = new ArrayList<>();
-        for (IFitnessFunction<T> fitnessFunction : uncoveredFitnessFunctions) {
-            IChromosome<T> best = population.get(0);
-            double bestFitness = fitnessFunction.getFitness(best);
-            for (IChromosome<T> chrom : population) {
-                final double chromFitness = fitnessFunction.getFitness(chrom);
+        final boolean[] preferred = new boolean[fitnessMatrix.size()];
+        final List<Integer> firstNonDominatedFront = new ArrayList<>();
+        final List<Integer> targets = uncoveredObjectives;
+        uncoveredObjectives = new ArrayList<>(targets.size());
+
+        // only look at fitness functions which have not been covered yet, the targets grow while
+        // covered objectives activate their dependent objectives
+        for (int i = 0; i < targets.size(); i++) {
+            int objective = targets.get(i);
+            int best = 0;
+            double bestFitness = fitnessMatrix.get(best, objective);
+            for (int row = 1; row < fitnessMatrix.size(); row++) {
+                final double chromFitness = fitnessMatrix.get(row, objective);
                 if (chromFitness > bestFitness) {
-                    best = chrom;
+                    best = row;
                     bestFitness = chromFitness;
                 }
             }
 
             // fitness function is now covered
             if (bestFitness == 1) {
-                toRemove.add(fitnessFunction);
+                if (dynamicTargets != null) {
+                    targets.addAll(dynamicTargets.cover(objective));
+                }
+            } else {
+                uncoveredObjectives.add(objective);
             }
 
-            firstNonDominatedFront.add(best);
+            if (!preferred[best]) {
+                preferred[best] = true;
+                firstNonDominatedFront.add(best);
+            }
         }
 
-        uncoveredFitnessFunctions.removeAll(toRemove);
-
-        return new ArrayList<>(firstNonDominatedFront);
+        return firstNonDominatedFront;
     }
 
     /**
-     * Updates the archive based on <a href="https://ieeexplore.ieee.org/abstract/document/7102604">MOSA Algorithm 3</a>.
+     * Updates the archive with the given rows of the evaluated population based on
+     * <a href="https://ieeexplore.ieee.org/abstract/document/7102604">MOSA Algorithm 3</a>.
+     * All fitness functions are considered, even covered ones, since a shorter chromosome may
+     * replace the archived one.
      *
-     * @param possibleAdditions a list of possible additions to the archive.
+     * @param rows the rows of the newly evaluated chromosomes
      */
-    private void updateArchive(List<IChromosome<T>> possibleAdditions) {
-        final List<IChromosome<T>> allChromosomes = new ArrayList<>();
-        allChromosomes.addAll(archive.values());
-        allChromosomes.addAll(possibleAdditions);
-
-        // Look at all fitness functions, even covered ones.
-        for (IFitnessFunction<T> fitnessFunction : fitnessFunctions) {
-            double bestLength = Double.POSITIVE_INFINITY;
-            IChromosome<T> best = null;
-
-            for (IChromosome<T> survivor : allChromosomes) {
-                final double score = fitnessFunction.getFitness(survivor);
-                final double length = survivor.getValue().getEventSequence().size();
-
-                if (score == 1 && length <= bestLength) {
-                    best = survivor;
-                    bestLength = length;
-                }
-            }
-            if (best != null) {
-                archive.put(fitnessFunction, best);
+    private void updateArchive(List<Integer> rows) {
+        long start = System.nanoTime();
+        List<Integer> newlyCovered = archive.update(fitnessMatrix, rows);
+
+        if (dynamicTargets != null) {
+            for (int objective : newlyCovered) {
+                // objectives covered by chance, e.g. before being targeted, activate their dependents
+                uncoveredObjectives.addAll(dynamicTargets.cover(objective));
             }
         }
+
+        MATE.log_acc("Archive: " + archive.size() + " chromosomes covering " + archive.getCoveredObjectives()
+                + " of " + fitnessFunctions.size() + " objectives, updated with " + rows.size()
+                + " chromosomes in " + (System.nanoTime() - start) / 1000 + " us");
+    }
+
+    /**
+     * Returns the archive, i.e. the shortest chromosome fulfilling each fitness function.
+     *
+     * @return Returns the archive indexed by the fitness functions.
+     */
+    public CoverageArchive<T> getArchive() {
+        return archive;
+    }
+
+    private static int[] toArray(List<Integer> indices) {
+        int[] array = new int[indices.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = indices.get(i);
+        }
+        return array;
     }
 }
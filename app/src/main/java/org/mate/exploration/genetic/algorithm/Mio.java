@@ -3,7 +3,9 @@ package org.mate.exploration.genetic.algorithm;
 import org.mate.MATE;
 import org.mate.exploration.genetic.chromosome.IChromosome;
 import org.mate.exploration.genetic.chromosome_factory.IChromosomeFactory;
+import org.mate.exploration.genetic.core.FitnessMatrix;
 import org.mate.exploration.genetic.core.GeneticAlgorithm;
+import org.mate.exploration.genetic.core.TargetQueue;
 import org.mate.exploration.genetic.crossover.ICrossOverFunction;
 import org.mate.exploration.genetic.fitness.IFitnessFunction;
 import org.mate.exploration.genetic.fitness.LineCoveredPercentageFitnessFunction;
@@ -14,8 +16,9 @@ import org.mate.utils.FitnessUtils;
 import org.mate.utils.Randomness;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -24,12 +27,22 @@ public class Mio<T> extends GeneticAlgorithm<T> {
 
     private final int populationSizeStart;
     private final long startTime;
-    private HashMap<IFitnessFunction<T>, List<IndividualFitnessTuple>> populations;
+    // the population of each target, indexed like the fitness functions
+    private final List<TargetPopulation> populations;
+    // the uncovered targets ordered by how often they have been sampled
+    private final TargetQueue uncoveredTargets;
+    // the uncovered targets handled by the current iteration
+    private final int[] targetBuffer;
     private double pSampleRandom;
     private final double pSampleRandomStart;
     private final double focusedSearchStart;
-    private HashMap<IFitnessFunction<T>, Integer> samplingCounters;
-    private List<IChromosome<T>> archive;
+    private final List<IChromosome<T>> archive;
+
+    /**
+     * Tracks the chromosomes of the merged {@link #population} of all targets: the position of
+     * each chromosome in the population and the number of target populations containing it.
+     */
+    private final Map<IChromosome<T>, int[]> populationEntries = new IdentityHashMap<>();
 
     /**
      * Initializing the genetic algorithm with all necessary attributes
@@ -65,15 +78,16 @@ public class Mio<T> extends GeneticAlgorithm<T> {
 
         this.focusedSearchStart = focusedSearchStart;
         this.pSampleRandom = pSampleRandom;
-        this.populations = new HashMap<>();
-        this.samplingCounters = new HashMap<>();
-        this.archive = new LinkedList<>();
+        this.populations = new ArrayList<>(fitnessFunctions.size());
+        this.uncoveredTargets = new TargetQueue(fitnessFunctions.size());
+        this.targetBuffer = new int[fitnessFunctions.size()];
+        this.archive = new ArrayList<>();
         this.startTime = System.currentTimeMillis();
         this.pSampleRandomStart = pSampleRandom;
         this.populationSizeStart = populationSize;
 
-        for (IFitnessFunction<T> fitnessFunction : fitnessFunctions) {
-            samplingCounters.put(fitnessFunction, 0);
+        for (int objective = 0; objective < fitnessFunctions.size(); objective++) {
+            populations.add(new TargetPopulation(populationSize));
         }
     }
 
@@ -81,103 +95,81 @@ public class Mio<T> extends GeneticAlgorithm<T> {
     @Override
     public void evolve() {
         IChromosome<T> individual;
-        if (Randomness.getRnd().nextDouble() < pSampleRandom) {
+        if (uncoveredTargets.isEmpty() || Randomness.getRnd().nextDouble() < pSampleRandom) {
             // Sample Random
             individual = chromosomeFactory.createChromosome();
         } else {
-            // Sample individual from populations
-            IFitnessFunction<T> key = getBestTarget();
-
-            IndividualFitnessTuple tuple = Randomness.randomElement(populations.get(key));
-            individual = tuple.getIndividual();
+            // Sample individual from the population of the least sampled target
+            int target = uncoveredTargets.peek();
+            individual = populations.get(target).getRandomIndividual();
 
             //Increase Counter
-            Integer value = samplingCounters.get(key);
-            samplingCounters.put(key, value + 1);
+            uncoveredTargets.increment(target);
 
             List<IChromosome<T>> mutated = mutationFunction.mutate(individual);
             individual = mutated.get(0);
         }
 
-        for (IFitnessFunction<T> fitnessFunction : this.fitnessFunctions) {
-            double fitness = fitnessFunction.getFitness(individual);
-            IndividualFitnessTuple tuple = new IndividualFitnessTuple(individual, fitness);
+        // evaluate the new individual once for all targets
+        double[] fitnessVector = FitnessMatrix.evaluate(Collections.singletonList(individual), fitnessFunctions).getRow(0);
 
-            if (isTargetCovered(fitnessFunction)) {
-                // Todo: We should actually check whether the new test could still be better by being
-                // shorter.
-                continue;
-            }
+        // covered targets are skipped, the snapshot is needed since updating the counters reorders the queue
+        int targets = uncoveredTargets.size();
+        for (int i = 0; i < targets; i++) {
+            targetBuffer[i] = uncoveredTargets.get(i);
+        }
+
+        int capacity = Math.max(1, populationSize);
+        for (int i = 0; i < targets; i++) {
+            int target = targetBuffer[i];
+            double fitness = fitnessVector[target];
+            TargetPopulation targetPopulation = populations.get(target);
 
             if (fitness == 1) {
                 // TODO: Can we check if one of them is better?
-                populations.get(fitnessFunction).clear();
-                populations.get(fitnessFunction).add(tuple);
-                archive.add(tuple.individual);
+                targetPopulation.clear();
+                targetPopulation.add(individual, fitness);
+                archive.add(individual);
+                uncoveredTargets.remove(target);
             } else if (fitness > 0) {
 
-                IndividualFitnessTuple worstTest = getWorstTest(populations.get(fitnessFunction));
-                populations.get(fitnessFunction).add(tuple);
-
-                if (worstTest.fitness < tuple.getFitness()) {
+                if (targetPopulation.size() == 0 || targetPopulation.getWorstFitness() < fitness) {
                     //Reset counter
-                    samplingCounters.put(fitnessFunction, 0);
-                } else {
-                    worstTest = tuple;
+                    uncoveredTargets.reset(target);
+                } else if (targetPopulation.size() >= capacity) {
+                    // the individual would be the worst one
+                    continue;
                 }
 
-                if (populations.get(fitnessFunction).size() > populationSize) {
+                targetPopulation.add(individual, fitness);
+                while (targetPopulation.size() > capacity) {
                     // Remove worst if we reached limit population limit
-                    populations.get(fitnessFunction).remove(worstTest);
+                    targetPopulation.removeWorst();
                 }
             }
         }
 
         updateParameters();
 
-        population.clear();
-        for (List<IndividualFitnessTuple> individualFitnessTuples : populations.values()) {
-            for (IndividualFitnessTuple individualFitnessTuple : individualFitnessTuples) {
-                population.add(individualFitnessTuple.getIndividual());
-            }
-        }
         currentGenerationNumber++;
         logCurrentFitness();
 
-        // Todo: remove. Memory issue dirty quick fix
-        List<IChromosome<T>> activeChromosomes = new ArrayList<>();
-        activeChromosomes.addAll(population);
-        activeChromosomes.addAll(archive);
-        FitnessUtils.cleanCache(activeChromosomes);
+        // fitness vectors of discarded chromosomes are dropped by the cache automatically
+        MATE.log_acc("Live fitness cache entries: " + FitnessUtils.getLiveFitnessCacheEntries());
+        MATE.log_acc("Uncovered targets: " + uncoveredTargets.size() + " of " + fitnessFunctions.size());
 
     }
 
-    private boolean isTargetCovered(IFitnessFunction<T> target) {
-        if (populations.get(target) == null) {
-            throw new IllegalArgumentException("Cannot find population for Target");
-        }
-
-        if (populations.get(target).size() != 1) {
-            //If we have more or less than one individual we cannot have this covered yet.
-            //Covered targets only retain one individual
-            return false;
-        }
-
-        return populations.get(target).get(0).fitness == 1;
-    }
-
     @Override
     public void createInitialPopulation() {
         super.createInitialPopulation();
-        for (IFitnessFunction<T> fitnessFunction : this.fitnessFunctions) {
-            if (populations.get(fitnessFunction) == null) {
-                populations.put(fitnessFunction, new LinkedList<IndividualFitnessTuple>());
-            }
-
-            for (IChromosome<T> individual : this.population) {
-                IndividualFitnessTuple tuple = new IndividualFitnessTuple(individual, fitnessFunction.getFitness(individual));
-                populations.get(fitnessFunction).add(tuple);
 
+        // the merged population is rebuilt from the target populations
+        population.clear();
+        for (int objective = 0; objective < fitnessFunctions.size(); objective++) {
+            TargetPopulation targetPopulation = populations.get(objective);
+            for (int row = 0; row < fitnessMatrix.size(); row++) {
+                targetPopulation.add(fitnessMatrix.getChromosome(row), fitnessMatrix.get(row, objective));
             }
         }
     }
@@ -200,48 +192,103 @@ public class Mio<T> extends GeneticAlgorithm<T> {
         }
     }
 
-    private IndividualFitnessTuple getWorstTest(List<IndividualFitnessTuple> tuples) {
-        if (tuples == null || tuples.isEmpty()) {
-            throw new IllegalArgumentException("Cannot find worst test if list is empty");
+    /**
+     * Adds the given chromosome to the merged population unless another target population
+     * contains it already.
+     */
+    private void retain(IChromosome<T> individual) {
+        int[] entry = populationEntries.get(individual);
+        if (entry == null) {
+            populationEntries.put(individual, new int[]{population.size(), 1});
+            population.add(individual);
+        } else {
+            entry[1]++;
         }
+    }
 
-        IndividualFitnessTuple worstTuple = tuples.get(0);
-        for (IndividualFitnessTuple tuple : tuples) {
-            if (worstTuple.getFitness() > tuple.getFitness()) {
-                worstTuple = tuple;
-            }
+    /**
+     * Removes the given chromosome from the merged population once no target population
+     * contains it anymore. The last chromosome of the population takes its position.
+     */
+    private void release(IChromosome<T> individual) {
+        int[] entry = populationEntries.get(individual);
+        if (--entry[1] > 0) {
+            return;
+        }
+        populationEntries.remove(individual);
+        IChromosome<T> last = population.remove(population.size() - 1);
+        if (last != individual) {
+            population.set(entry[0], last);
+            populationEntries.get(last)[0] = entry[0];
         }
-
-        return worstTuple;
     }
 
-    private IFitnessFunction<T> getBestTarget() {
-        Map.Entry<IFitnessFunction<T>, Integer> bestEntry = null;
-        for (Map.Entry<IFitnessFunction<T>, Integer> entry : samplingCounters.entrySet()) {
-            if (bestEntry == null || (bestEntry.getValue() > entry.getValue() && !isTargetCovered(entry.getKey()))) {
-                bestEntry = entry;
-            }
+    /**
+     * The population of a single target, stored as parallel lists of individuals and their
+     * fitness for the target. The position of the worst individual is kept up to date, such
+     * that it can be looked up in constant time. Removing an individual moves the last one
+     * into its position.
+     */
+    private class TargetPopulation {
+
+        private final List<IChromosome<T>> individuals;
+        private double[] fitness;
+        private int worst = -1;
+
+        TargetPopulation(int capacity) {
+            individuals = new ArrayList<>(capacity);
+            fitness = new double[Math.max(1, capacity)];
         }
 
-        return bestEntry.getKey();
-    }
+        int size() {
+            return individuals.size();
+        }
 
-    private class IndividualFitnessTuple {
+        IChromosome<T> getRandomIndividual() {
+            return Randomness.randomElement(individuals);
+        }
 
-        private IChromosome<T> individual;
-        private double fitness;
+        double getWorstFitness() {
+            if (worst < 0) {
+                throw new IllegalStateException("Cannot find worst test if population is empty");
+            }
+            return fitness[worst];
+        }
 
-        IndividualFitnessTuple(IChromosome<T> individual, double fitness) {
-            this.individual = individual;
-            this.fitness = fitness;
+        void add(IChromosome<T> individual, double individualFitness) {
+            int position = individuals.size();
+            if (position == fitness.length) {
+                fitness = Arrays.copyOf(fitness, 2 * fitness.length);
+            }
+            individuals.add(individual);
+            fitness[position] = individualFitness;
+            if (worst < 0 || individualFitness < fitness[worst]) {
+                worst = position;
+            }
+            retain(individual);
         }
 
-        IChromosome<T> getIndividual() {
-            return individual;
+        void removeWorst() {
+            int last = individuals.size() - 1;
+            release(individuals.get(worst));
+            individuals.set(worst, individuals.get(last));
+            fitness[worst] = fitness[last];
+            individuals.remove(last);
+
+            worst = individuals.isEmpty() ? -1 : 0;
+            for (int position = 1; position < individuals.size(); position++) {
+                if (fitness[position] < fitness[worst]) {
+                    worst = position;
+                }
+            }
         }
 
-        double getFitness() {
-            return fitness;
+        void clear() {
+            for (IChromosome<T> individual : individuals) {
+                release(individual);
+            }
+            individuals.clear();
+            worst = -1;
         }
     }
 }
@@ -3,6 +3,7 @@ package org.mate.exploration.genetic.algorithm;
 import org.mate.exploration.genetic.chromosome.IChromosome;
 import org.mate.exploration.genetic.chromosome_factory.IChromosomeFactory;
 import org.mate.exploration.genetic.core.GeneticAlgorithm;
+import org.mate.exploration.genetic.core.NonDominatedSorting;
 import org.mate.exploration.genetic.crossover.ICrossOverFunction;
 import org.mate.exploration.genetic.fitness.IFitnessFunction;
 import org.mate.exploration.genetic.mutation.IMutationFunction;
@@ -12,11 +13,8 @@ import org.mate.exploration.genetic.termination.ITerminationCondition;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
-import static org.mate.exploration.genetic.core.GAUtils.getParetoFront;
 import static org.mate.exploration.genetic.core.GAUtils.updateCrowdingDistance;
 import static org.mate.utils.MathUtils.isEpsEq;
 
@@ -29,64 +27,48 @@ public class NSGAII<T> extends GeneticAlgorithm<T> {
 
     @Override
     public List<IChromosome<T>> getGenerationSurvivors() {
-        List<IChromosome<T>> survivors = new ArrayList<>(population);
-        final Map<IChromosome<T>, Integer> rankMap = new HashMap<>();
-        final Map<IChromosome<T>, Double> crowdingDistanceMap = new HashMap<>();
+        int[] objectives = fitnessMatrix.getObjectives();
+        double[] crowdingDistances = new double[fitnessMatrix.size()];
 
-        List<IChromosome<T>> remaining = new ArrayList<>(population);
+        List<Integer> rows = fitnessMatrix.getRows();
+        int[] ranks = NonDominatedSorting.sort(fitnessMatrix, rows, objectives);
 
-        int rank = 0;
-
-        while (!remaining.isEmpty()) {
-            List<IChromosome<T>> paretoFront = getParetoFront(remaining, fitnessFunctions);
-
-            for (IChromosome<T> chromosome : paretoFront) {
-                remaining.remove(chromosome);
-                rankMap.put(chromosome, rank);
-            }
+        for (List<Integer> paretoFront : NonDominatedSorting.getFronts(ranks, rows)) {
+            updateCrowdingDistance(fitnessMatrix, paretoFront, objectives, crowdingDistances);
+        }
+        Collections.sort(rows, new RankComparator(ranks, crowdingDistances));
 
-            updateCrowdingDistance(paretoFront, fitnessFunctions, crowdingDistanceMap);
-            rank++;
+        List<IChromosome<T>> survivors = new ArrayList<>(populationSize);
+        for (int row : rows.subList(0, populationSize)) {
+            survivors.add(fitnessMatrix.getChromosome(row));
         }
-        Collections.sort(survivors, new RankComparator<>(rankMap, crowdingDistanceMap));
-        return survivors.subList(0, populationSize);
+        return survivors;
     }
 
-    static class RankComparator<T> implements Comparator<IChromosome<T>> {
-        private final Map<IChromosome<T>, Integer> rankMap;
-        private final Map<IChromosome<T>, Double> crowdingDistanceMap;
-
-        RankComparator(Map<IChromosome<T>, Integer> rankMap, Map<IChromosome<T>, Double> crowdingDistanceMap) {
-            this.rankMap = rankMap;
-            this.crowdingDistanceMap = crowdingDistanceMap;
+    /**
+     * Orders the rows of a fitness matrix by their rank and, if the rank is equal, by
+     * descending crowding distance.
+     */
+    static class RankComparator implements Comparator<Integer> {
+        private final int[] ranks;
+        private final double[] crowdingDistances;
+
+        RankComparator(int[] ranks, double[] crowdingDistances) {
+            this.ranks = ranks;
+            this.crowdingDistances = crowdingDistances;
         }
 
         @Override
-        public int compare(IChromosome<T> o1, IChromosome<T> o2) {
-            final Integer o1Rank = rankMap.get(o1);
-            if (o1Rank == null) {
-                throw new IllegalStateException("Rank value not in rank map");
-            }
-            final Integer o2Rank = rankMap.get(o2);
-            if (o2Rank == null) {
-                throw new IllegalStateException("Rank value not in rank map");
-            }
-
-            int c = o1Rank.compareTo(o2Rank);
+        public int compare(Integer o1, Integer o2) {
+            int c = Integer.compare(ranks[o1], ranks[o2]);
             if (c == 0) {
-                final Double o1CrowdDistance = crowdingDistanceMap.get(o1);
-                if (o1CrowdDistance == null) {
-                    throw new IllegalStateException("Crowding distance not in crowding distance map");
-                }
-                final Double o2CrowdDistance = crowdingDistanceMap.get(o2);
-                if (o2CrowdDistance == null) {
-                    throw new IllegalStateException("Crowding distance not in crowding distance map");
-                }
+                double o1CrowdDistance = crowdingDistances[o1];
+                double o2CrowdDistance = crowdingDistances[o2];
 
                 if (isEpsEq(o1CrowdDistance, o2CrowdDistance)) {
                     return 0;
                 }
-                return 0 - o1CrowdDistance.compareTo(o2CrowdDistance);
+                return 0 - Double.compare(o1CrowdDistance, o2CrowdDistance);
             }
             return c;
         }
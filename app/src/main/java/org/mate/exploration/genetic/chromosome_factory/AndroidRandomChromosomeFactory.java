@@ -3,6 +3,7 @@ package org.mate.exploration.genetic.chromosome_factory;
 import org.mate.MATE;
 import org.mate.exploration.genetic.chromosome.Chromosome;
 import org.mate.exploration.genetic.chromosome.IChromosome;
+import org.mate.message.MessageBatch;
 import org.mate.model.TestCase;
 import org.mate.ui.Action;
 import org.mate.interaction.UIAbstractionLayer;
@@ -55,9 +56,11 @@ public class AndroidRandomChromosomeFactory implements IChromosomeFactory<TestCa
                 * If we deal with a test suite execution, the storing of coverage
                 * and fitness data is handled by the AndroidSuiteRandomChromosomeFactory itself.
                  */
-                FitnessUtils.storeTestCaseChromosomeFitness(chromosome);
-                CoverageUtils.storeTestCaseChromosomeCoverage(chromosome);
-                CoverageUtils.logChromosomeCoverage(chromosome);
+                MessageBatch batch = new MessageBatch();
+                FitnessUtils.storeTestCaseChromosomeFitness(chromosome, batch);
+                CoverageUtils.storeTestCaseChromosomeCoverage(chromosome, batch);
+                CoverageUtils.logChromosomeCoverage(chromosome, batch);
+                FitnessUtils.prefetchFitness(chromosome);
             }
             testCase.finish();
         }
@@ -1,8 +1,10 @@
 package org.mate.exploration.genetic.chromosome_factory;
 
 import org.mate.MATE;
+import org.mate.Registry;
 import org.mate.exploration.genetic.chromosome.Chromosome;
 import org.mate.exploration.genetic.chromosome.IChromosome;
+import org.mate.message.MessageBatch;
 import org.mate.model.TestCase;
 import org.mate.model.TestSuite;
 import org.mate.utils.CoverageUtils;
@@ -26,14 +28,18 @@ public class AndroidSuiteRandomChromosomeFactory implements IChromosomeFactory<T
         TestSuite ts = new TestSuite();
         IChromosome<TestSuite> chromosome = new Chromosome<>(ts);
         MATE.log_acc("Android Suite Random Chromosome Factory: creating chromosome: " + chromosome);
+        MessageBatch batch = new MessageBatch();
         for (int i = 0; i < numTestCases; i++) {
+            // the traces of the previous test case need to be stored before the app is reset
+            Registry.getEnvironmentManager().sendBatch(batch);
             TestCase tc = androidRandomChromosomeFactory.createChromosome().getValue();
             MATE.log_acc("With test case: " + tc);
             ts.getTestCases().add(tc);
-            FitnessUtils.storeTestSuiteChromosomeFitness(chromosome, tc.toString());
-            CoverageUtils.storeTestSuiteChromosomeCoverage(chromosome, tc.toString());
+            FitnessUtils.storeTestSuiteChromosomeFitness(chromosome, tc.toString(), batch);
+            CoverageUtils.storeTestSuiteChromosomeCoverage(chromosome, tc.toString(), batch);
         }
-        CoverageUtils.logChromosomeCoverage(chromosome);
+        CoverageUtils.logChromosomeCoverage(chromosome, batch);
+        FitnessUtils.prefetchFitness(chromosome);
         return chromosome;
     }
 }
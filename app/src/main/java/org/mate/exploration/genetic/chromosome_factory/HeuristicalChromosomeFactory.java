@@ -12,6 +12,7 @@ import org.mate.utils.Randomness;
 import org.xmlpull.v1.XmlPullParser;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -31,12 +32,12 @@ public class HeuristicalChromosomeFactory extends AndroidRandomChromosomeFactory
 
     //stores the number of executions of an actions
     private Map<Action, Integer> executionCounter = new HashMap<>();
-    //list of already visited widgets
-    private List<String> visitedWidgetIds = new ArrayList<>();
+    //already visited widgets (interned ids, see SymbolTable.WIDGETS)
+    private BitSet visitedWidgetIds = new BitSet();
     //stores the number of unvisited widgets followed by an action
     private Map<Action, Integer> unvisitedChildWidgetCounter = new HashMap<>();
     //stores a List of actions leading to the widget (contains the id of the widget)
-    private Map<String, Set<Action>> actionsPrecedingWidget = new HashMap<>();
+    private Map<Integer, Set<Action>> actionsPrecedingWidget = new HashMap<>();
 
     private double alpha, beta, gamma;
 
@@ -93,7 +94,7 @@ public class HeuristicalChromosomeFactory extends AndroidRandomChromosomeFactory
 
             if (previousAction != null) {
                 //add previously executed action to list of actions preceding an available widget
-                String widgetId = action.getWidget().getIdByActivity();
+                int widgetId = action.getWidget().getIdByActivitySymbol();
                 if (actionsPrecedingWidget.containsKey(widgetId)) {
                     actionsPrecedingWidget.get(widgetId).add(previousAction);
                 } else {
@@ -115,13 +116,14 @@ public class HeuristicalChromosomeFactory extends AndroidRandomChromosomeFactory
 
         if (previousAction != null) {
             //decrease the number of unvisited widgets, because this widget will be visited next
-            if (!visitedWidgetIds.contains(selectedAction.getWidget().getIdByActivity())) {
-                for (Action action : actionsPrecedingWidget.get(selectedAction.getWidget().getIdByActivity())) {
+            int widgetId = selectedAction.getWidget().getIdByActivitySymbol();
+            if (!visitedWidgetIds.get(widgetId)) {
+                for (Action action : actionsPrecedingWidget.get(widgetId)) {
                     if (unvisitedChildWidgetCounter.get(action) > 0) {
                         unvisitedChildWidgetCounter.put(action, unvisitedChildWidgetCounter.get(action) - 1);
                     }
                 }
-                visitedWidgetIds.add(selectedAction.getWidget().getIdByActivity());
+                visitedWidgetIds.set(widgetId);
             }
         }
 
@@ -183,7 +185,7 @@ public class HeuristicalChromosomeFactory extends AndroidRandomChromosomeFactory
         if (previousAction != null) {
             int count = 0;
             for (WidgetAction action : executableActions) {
-                if (!visitedWidgetIds.contains(action.getWidget().getIdByActivity())) {
+                if (!visitedWidgetIds.get(action.getWidget().getIdByActivitySymbol())) {
                    count++;
                 }
             }
@@ -0,0 +1,131 @@
+package org.mate.exploration.genetic.core;
+
+import org.mate.exploration.genetic.chromosome.IChromosome;
+import org.mate.model.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the shortest chromosome fulfilling each objective, i.e. each fitness function yielding
+ * {@code 1}, together with its length. The archive is updated with newly evaluated chromosomes
+ * only: a chromosome is compared with the archived one of an objective only if it isn't longer,
+ * thus covered objectives cost a single comparison per new chromosome and the archive is never
+ * rebuilt from the whole population.
+ *
+ * @param <T> Type wrapped by the chromosome implementation. Has to be a {@link TestCase} or sub class.
+ */
+public class CoverageArchive<T extends TestCase> {
+
+    private final List<IChromosome<T>> chromosomes;
+    private final int[] lengths;
+
+    // the number of objectives each archived chromosome is kept for
+    private final Map<IChromosome<T>, Integer> references = new IdentityHashMap<>();
+    private int coveredObjectives = 0;
+
+    /**
+     * Initialises an empty archive.
+     *
+     * @param objectives The number of objectives.
+     */
+    public CoverageArchive(int objectives) {
+        chromosomes = new ArrayList<>(Collections.<IChromosome<T>>nCopies(objectives, null));
+        lengths = new int[objectives];
+        Arrays.fill(lengths, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Archives the given rows of a fitness matrix for the objectives they fulfill if they are
+     * not longer than the archived chromosomes. Among chromosomes of equal length, the last
+     * one is kept.
+     *
+     * @param fitnessMatrix The fitness matrix over the objectives of this archive.
+     * @param rows The rows of the newly evaluated chromosomes.
+     * @return Returns the objectives that have been fulfilled for the first time.
+     */
+    public List<Integer> update(FitnessMatrix<T> fitnessMatrix, List<Integer> rows) {
+
+        if (fitnessMatrix.getObjectiveCount() != lengths.length) {
+            throw new IllegalArgumentException("The fitness matrix covers " + fitnessMatrix.getObjectiveCount()
+                    + " instead of " + lengths.length + " objectives!");
+        }
+
+        List<Integer> newlyCovered = new ArrayList<>();
+
+        for (int row : rows) {
+            IChromosome<T> chromosome = fitnessMatrix.getChromosome(row);
+            int length = chromosome.getValue().getEventSequence().size();
+            double[] vector = fitnessMatrix.getRow(row);
+
+            for (int objective = 0; objective < lengths.length; objective++) {
+                if (length <= lengths[objective] && vector[objective] == 1) {
+                    IChromosome<T> archived = chromosomes.get(objective);
+                    if (archived == null) {
+                        coveredObjectives++;
+                        newlyCovered.add(objective);
+                    } else if (archived != chromosome) {
+                        release(archived);
+                    }
+                    if (archived != chromosome) {
+                        Integer count = references.get(chromosome);
+                        references.put(chromosome, count == null ? 1 : count + 1);
+                    }
+                    chromosomes.set(objective, chromosome);
+                    lengths[objective] = length;
+                }
+            }
+        }
+        return newlyCovered;
+    }
+
+    private void release(IChromosome<T> chromosome) {
+        int count = references.get(chromosome);
+        if (count == 1) {
+            references.remove(chromosome);
+        } else {
+            references.put(chromosome, count - 1);
+        }
+    }
+
+    /**
+     * Returns the archived chromosome of the given objective.
+     *
+     * @param objective The objective.
+     * @return Returns the shortest chromosome fulfilling the objective or {@code null}.
+     */
+    public IChromosome<T> get(int objective) {
+        return chromosomes.get(objective);
+    }
+
+    /**
+     * Returns the number of objectives fulfilled by an archived chromosome.
+     *
+     * @return Returns the number of covered objectives.
+     */
+    public int getCoveredObjectives() {
+        return coveredObjectives;
+    }
+
+    /**
+     * Returns the distinct archived chromosomes, i.e. the result of the search.
+     *
+     * @return Returns the archived chromosomes.
+     */
+    public List<IChromosome<T>> getChromosomes() {
+        return new ArrayList<>(references.keySet());
+    }
+
+    /**
+     * Returns the number of distinct archived chromosomes.
+     *
+     * @return Returns the size of the archive.
+     */
+    public int size() {
+        return references.size();
+    }
+}
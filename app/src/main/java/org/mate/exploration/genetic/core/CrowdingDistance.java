@@ -0,0 +1,234 @@
+package org.mate.exploration.genetic.core;
+
+import org.mate.utils.MathUtils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mate.utils.MathUtils.isEpsEq;
+
+/**
+ * Computes the crowding distance of the fitness vectors of a front as introduced by NSGA-II.
+ * Fitness vectors whose euclidean distance is equal up to {@link MathUtils#EPS} are
+ * duplicates: only the first of them takes part in the computation, the others get a crowding
+ * distance of {@code 0}. If less than three unique vectors remain, all of them get an infinite
+ * crowding distance.
+ * <p>
+ * Duplicates are found by hashing the vectors quantised to a grid much coarser than
+ * {@link MathUtils#EPS}, such that only vectors in the same grid cell are compared. A duplicate
+ * lies in a neighbouring cell only if the vector is that close to the border of its cell, in
+ * which case the neighbouring cells across those borders are probed as well. Each objective is
+ * then handled as a column: its values are copied into a primitive array and the unique vectors
+ * are sorted by an index array instead of re-reading the fitness values inside a comparator.
+ */
+public final class CrowdingDistance {
+
+    private CrowdingDistance() {
+        throw new UnsupportedOperationException("Utility class!");
+    }
+
+    // the width of the grid cells used for finding duplicates
+    private static final double CELL_WIDTH = 1e-6;
+
+    // how close to the border of its cell, relative to the cell width, a duplicate may lie in
+    // the neighbouring cell, with some slack for rounding errors
+    private static final double BORDER_MARGIN = 2 * MathUtils.EPS / CELL_WIDTH;
+
+    // vectors close to more cell borders than this are compared with all unique vectors instead
+    private static final int MAX_PROBED_BORDERS = 8;
+
+    /**
+     * A fitness vector quantised to the grid used for finding duplicates.
+     */
+    private static final class QuantisedVector {
+        private final long[] cells;
+        private final int hashCode;
+
+        private QuantisedVector(long[] cells) {
+            this.cells = cells;
+            hashCode = Arrays.hashCode(cells);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof QuantisedVector && Arrays.equals(cells, ((QuantisedVector) o).cells);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Computes the crowding distance of the given fitness vectors, which form a front.
+     *
+     * @param vectors The fitness vectors of the front.
+     * @param objectives The objectives, i.e. the vector entries, to be considered.
+     * @return Returns the crowding distance of each vector in the order of the given vectors.
+     */
+    public static double[] compute(double[][] vectors, int[] objectives) {
+
+        double[] crowdingDistances = new double[vectors.length];
+        int[] unique = getUniqueVectors(vectors, objectives);
+        int n = unique.length;
+
+        if (n < 3) {
+            for (int vector : unique) {
+                crowdingDistances[vector] = Double.POSITIVE_INFINITY;
+            }
+            return crowdingDistances;
+        }
+
+        double[] column = new double[n];
+        int[] order = new int[n];
+        int[] buffer = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+
+        for (int objective : objectives) {
+
+            // ties keep the order of the previous objective
+            for (int i = 0; i < n; i++) {
+                column[i] = vectors[unique[i]][objective];
+            }
+            sortDescending(order, buffer, column, 0, n);
+
+            double minObjective = column[order[0]];
+            double maxObjective = column[order[n - 1]];
+
+            if (!isEpsEq(minObjective, maxObjective)) {
+                crowdingDistances[unique[order[0]]] = Double.POSITIVE_INFINITY;
+                crowdingDistances[unique[order[n - 1]]] = Double.POSITIVE_INFINITY;
+
+                double range = maxObjective - minObjective;
+                for (int i = 1; i < n - 1; i++) {
+                    crowdingDistances[unique[order[i]]] += (column[order[i + 1]] - column[order[i - 1]]) / range;
+                }
+            }
+        }
+        return crowdingDistances;
+    }
+
+    /**
+     * Determines the vectors that are not a duplicate of a preceding vector.
+     *
+     * @return Returns the indices of the unique vectors in ascending order.
+     */
+    private static int[] getUniqueVectors(double[][] vectors, int[] objectives) {
+
+        int[] unique = new int[vectors.length];
+        int count = 0;
+
+        // the unique vectors per grid cell, chained via next
+        Map<QuantisedVector, Integer> cells = new HashMap<>(2 * vectors.length);
+        int[] next = new int[vectors.length];
+
+        long[] cell = new long[objectives.length];
+        // the objectives whose value is close to the border of its cell and the direction of the border
+        int[] borders = new int[objectives.length];
+        int[] directions = new int[objectives.length];
+
+        for (int vector = 0; vector < vectors.length; vector++) {
+
+            int borderCount = 0;
+            for (int i = 0; i < objectives.length; i++) {
+                double position = vectors[vector][objectives[i]] / CELL_WIDTH;
+                cell[i] = Math.round(position);
+                if (Math.abs(position - cell[i]) > 0.5 - BORDER_MARGIN) {
+                    borders[borderCount] = i;
+                    directions[borderCount++] = position > cell[i] ? 1 : -1;
+                }
+            }
+
+            boolean isDuplicate = false;
+
+            if (borderCount > MAX_PROBED_BORDERS) {
+                for (int i = 0; i < count && !isDuplicate; i++) {
+                    isDuplicate = isEpsEq(distance(vectors[vector], vectors[unique[i]], objectives));
+                }
+            } else {
+                // probes the own cell and each combination of the neighbouring cells across the close borders
+                for (int mask = 0; mask < 1 << borderCount && !isDuplicate; mask++) {
+                    long[] probe = cell.clone();
+                    for (int j = 0; j < borderCount; j++) {
+                        if ((mask & 1 << j) != 0) {
+                            probe[borders[j]] += directions[j];
+                        }
+                    }
+                    // vectors in the same cell are close to each other, but not necessarily within the epsilon
+                    Integer first = cells.get(new QuantisedVector(probe));
+                    for (int other = first != null ? first : -1; other >= 0 && !isDuplicate; other = next[other]) {
+                        isDuplicate = isEpsEq(distance(vectors[vector], vectors[other], objectives));
+                    }
+                }
+            }
+
+            if (!isDuplicate) {
+                unique[count++] = vector;
+                Integer first = cells.put(new QuantisedVector(cell.clone()), vector);
+                next[vector] = first != null ? first : -1;
+            }
+        }
+        return Arrays.copyOf(unique, count);
+    }
+
+    private static double distance(double[] first, double[] second, int[] objectives) {
+        double distance = 0.0;
+        for (int objective : objectives) {
+            double difference = first[objective] - second[objective];
+            distance += difference * difference;
+        }
+        return Math.sqrt(distance);
+    }
+
+    /**
+     * Sorts the given range of indices by descending value of the given column. The sort is
+     * stable and values that are equal up to {@link MathUtils#EPS} keep their order.
+     */
+    private static void sortDescending(int[] order, int[] buffer, double[] column, int from, int to) {
+
+        if (to - from < 8) {
+            // insertion sort for short ranges
+            for (int i = from + 1; i < to; i++) {
+                int index = order[i];
+                int j = i - 1;
+                while (j >= from && precedes(column[index], column[order[j]])) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = index;
+            }
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        sortDescending(order, buffer, column, from, middle);
+        sortDescending(order, buffer, column, middle, to);
+
+        if (!precedes(column[order[middle]], column[order[middle - 1]])) {
+            // the ranges are in order already
+            return;
+        }
+
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && !precedes(column[buffer[right]], column[buffer[left]]))) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
+        }
+    }
+
+    /**
+     * Checks whether the first value comes strictly before the second one in descending order.
+     */
+    private static boolean precedes(double first, double second) {
+        return first > second && !isEpsEq(first - second);
+    }
+}
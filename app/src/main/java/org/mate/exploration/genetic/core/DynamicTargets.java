@@ -0,0 +1,151 @@
+package org.mate.exploration.genetic.core;
+
+import org.mate.exploration.genetic.fitness.BranchDistanceFitnessFunctionMultiObjective;
+import org.mate.exploration.genetic.fitness.IFitnessFunction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects the objectives a many-objective search currently targets based on the control
+ * dependencies between branches as proposed by DynaMOSA in
+ * <a href="https://ieeexplore.ieee.org/document/7840029">Automated Test Case Generation as a
+ * Many-Objective Optimisation Problem with Dynamic Selection of the Targets</a>.
+ * <p>
+ * Initially, only the objectives without control dependency are targets. Once an objective is
+ * covered, the uncovered objectives that are control dependent on it become targets, since
+ * they can't be reached before. Objectives that are no branch, or whose branch is unknown,
+ * are targets from the start.
+ */
+public class DynamicTargets {
+
+    // the objectives control dependent on each objective
+    private final List<List<Integer>> dependentObjectives;
+    private final List<Integer> initialTargets = new ArrayList<>();
+
+    private final boolean[] covered;
+    private final boolean[] activated;
+
+    /**
+     * Initialises the targets with the given control dependencies.
+     *
+     * @param parentObjectives The objectives each objective is control dependent on.
+     */
+    public DynamicTargets(List<List<Integer>> parentObjectives) {
+
+        int objectives = parentObjectives.size();
+        dependentObjectives = new ArrayList<>(objectives);
+        for (int objective = 0; objective < objectives; objective++) {
+            dependentObjectives.add(new ArrayList<Integer>());
+        }
+        covered = new boolean[objectives];
+        activated = new boolean[objectives];
+
+        for (int objective = 0; objective < objectives; objective++) {
+            List<Integer> parents = parentObjectives.get(objective);
+            for (int parent : parents) {
+                dependentObjectives.get(parent).add(objective);
+            }
+            if (parents.isEmpty()) {
+                activated[objective] = true;
+                initialTargets.add(objective);
+            }
+        }
+    }
+
+    /**
+     * Maps the control dependencies between branches to the given fitness functions, where
+     * each {@link BranchDistanceFitnessFunctionMultiObjective} is an objective for its branch.
+     *
+     * @param fitnessFunctions The fitness functions, i.e. the objectives.
+     * @param branches The branches of the AUT.
+     * @param branchDependencies The branches each branch is control dependent on, indexed like
+     *          the branches.
+     * @param <T> Type wrapped by the chromosome implementation
+     * @return Returns the targets of the given fitness functions.
+     */
+    public static <T> DynamicTargets forBranches(List<IFitnessFunction<T>> fitnessFunctions,
+                                                 List<String> branches,
+                                                 List<List<Integer>> branchDependencies) {
+
+        Map<String, Integer> objectivesByBranch = new HashMap<>();
+        int[] branchIndices = new int[fitnessFunctions.size()];
+        for (int objective = 0; objective < fitnessFunctions.size(); objective++) {
+            IFitnessFunction<T> fitnessFunction = fitnessFunctions.get(objective);
+            if (fitnessFunction instanceof BranchDistanceFitnessFunctionMultiObjective) {
+                objectivesByBranch.put(((BranchDistanceFitnessFunctionMultiObjective<T>) fitnessFunction)
+                        .getBranch(), objective);
+            }
+            branchIndices[objective] = -1;
+        }
+
+        for (int branch = 0; branch < branches.size(); branch++) {
+            Integer objective = objectivesByBranch.get(branches.get(branch));
+            if (objective != null) {
+                branchIndices[objective] = branch;
+            }
+        }
+
+        List<List<Integer>> parentObjectives = new ArrayList<>(fitnessFunctions.size());
+        for (int objective = 0; objective < fitnessFunctions.size(); objective++) {
+            List<Integer> parents = new ArrayList<>();
+            if (branchIndices[objective] >= 0) {
+                for (int parentBranch : branchDependencies.get(branchIndices[objective])) {
+                    // dependencies on branches without objective can't be resolved
+                    Integer parent = objectivesByBranch.get(branches.get(parentBranch));
+                    if (parent != null && parent != objective) {
+                        parents.add(parent);
+                    }
+                }
+            }
+            parentObjectives.add(parents);
+        }
+        return new DynamicTargets(parentObjectives);
+    }
+
+    /**
+     * Returns the objectives that are targets from the start.
+     *
+     * @return Returns the objectives without control dependency.
+     */
+    public List<Integer> getInitialTargets() {
+        return new ArrayList<>(initialTargets);
+    }
+
+    /**
+     * Marks the given objective as covered. Covering an objective that isn't a target yet
+     * still activates the objectives control dependent on it.
+     *
+     * @param objective The covered objective.
+     * @return Returns the uncovered objectives that became targets.
+     */
+    public List<Integer> cover(int objective) {
+
+        List<Integer> newTargets = new ArrayList<>();
+        if (covered[objective]) {
+            return newTargets;
+        }
+        covered[objective] = true;
+        activated[objective] = true;
+
+        for (int dependent : dependentObjectives.get(objective)) {
+            if (!activated[dependent]) {
+                activated[dependent] = true;
+                newTargets.add(dependent);
+            }
+        }
+        return newTargets;
+    }
+
+    /**
+     * Checks whether the given objective is or has been a target.
+     *
+     * @param objective The objective.
+     * @return Returns {@code true} if the objective has been activated, otherwise {@code false}.
+     */
+    public boolean isActivated(int objective) {
+        return activated[objective];
+    }
+}
@@ -0,0 +1,226 @@
+package org.mate.exploration.genetic.core;
+
+import org.mate.exploration.genetic.chromosome.IChromosome;
+import org.mate.exploration.genetic.fitness.IFitnessFunction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The fitness values of a population as a dense {@code double[chromosome][objective]} matrix,
+ * where the objectives are the fitness functions of the genetic algorithm in their given order.
+ * <p>
+ * Each fitness function is evaluated exactly once per chromosome when the matrix is built.
+ * Ranking, crowding distance, selection and archiving can then work over row and column
+ * indices instead of calling {@link IFitnessFunction#getFitness(IChromosome)} repeatedly
+ * inside nested loops and comparators.
+ *
+ * @param <T> Type wrapped by the chromosome implementation
+ */
+public class FitnessMatrix<T> {
+
+    private final List<IChromosome<T>> chromosomes;
+    private final List<IFitnessFunction<T>> fitnessFunctions;
+    private final double[][] values;
+
+    // rows are looked up by the identity of the chromosome
+    private final Map<IChromosome<T>, Integer> rows;
+
+    private FitnessMatrix(List<IChromosome<T>> chromosomes, List<IFitnessFunction<T>> fitnessFunctions,
+                          double[][] values) {
+        this.chromosomes = Collections.unmodifiableList(new ArrayList<>(chromosomes));
+        this.fitnessFunctions = fitnessFunctions;
+        this.values = values;
+        rows = new IdentityHashMap<>(chromosomes.size());
+        for (int row = 0; row < chromosomes.size(); row++) {
+            rows.put(chromosomes.get(row), row);
+        }
+    }
+
+    /**
+     * Evaluates every fitness function for every chromosome.
+     *
+     * @param chromosomes The chromosomes, i.e. the rows of the matrix.
+     * @param fitnessFunctions The fitness functions, i.e. the columns of the matrix.
+     * @param <T> Type wrapped by the chromosome implementation
+     * @return Returns the fitness matrix.
+     */
+    public static <T> FitnessMatrix<T> evaluate(List<IChromosome<T>> chromosomes,
+                                                List<IFitnessFunction<T>> fitnessFunctions) {
+        return evaluate(chromosomes, fitnessFunctions, null);
+    }
+
+    /**
+     * Evaluates every fitness function for every chromosome. The rows of chromosomes that are
+     * already contained in the given matrix, e.g. the survivors of the previous generation,
+     * are shared instead of being evaluated again.
+     *
+     * @param chromosomes The chromosomes, i.e. the rows of the matrix.
+     * @param fitnessFunctions The fitness functions, i.e. the columns of the matrix.
+     * @param previous A matrix over the same fitness functions or {@code null}.
+     * @param <T> Type wrapped by the chromosome implementation
+     * @return Returns the fitness matrix.
+     */
+    public static <T> FitnessMatrix<T> evaluate(List<IChromosome<T>> chromosomes,
+                                                List<IFitnessFunction<T>> fitnessFunctions,
+                                                FitnessMatrix<T> previous) {
+        if (previous != null && previous.fitnessFunctions != fitnessFunctions
+                && !previous.fitnessFunctions.equals(fitnessFunctions)) {
+            throw new IllegalArgumentException("The previous fitness matrix covers other fitness functions!");
+        }
+
+        double[][] values = new double[chromosomes.size()][];
+        for (int row = 0; row < chromosomes.size(); row++) {
+            IChromosome<T> chromosome = chromosomes.get(row);
+            int previousRow = previous != null ? previous.indexOf(chromosome) : -1;
+
+            if (previousRow >= 0) {
+                values[row] = previous.values[previousRow];
+            } else {
+                double[] vector = new double[fitnessFunctions.size()];
+                for (int objective = 0; objective < vector.length; objective++) {
+                    vector[objective] = fitnessFunctions.get(objective).getFitness(chromosome);
+                }
+                values[row] = vector;
+            }
+        }
+        return new FitnessMatrix<>(chromosomes, fitnessFunctions, values);
+    }
+
+    /**
+     * Restricts the matrix to the given chromosomes, e.g. the survivors of a generation.
+     * The rows are shared with this matrix.
+     *
+     * @param chromosomes The chromosomes, which must be contained in this matrix.
+     * @return Returns the restricted matrix.
+     */
+    public FitnessMatrix<T> select(List<IChromosome<T>> chromosomes) {
+        double[][] selected = new double[chromosomes.size()][];
+        for (int row = 0; row < chromosomes.size(); row++) {
+            int index = indexOf(chromosomes.get(row));
+            if (index < 0) {
+                throw new IllegalArgumentException("Chromosome " + chromosomes.get(row)
+                        + " is not contained in the fitness matrix!");
+            }
+            selected[row] = values[index];
+        }
+        return new FitnessMatrix<>(chromosomes, fitnessFunctions, selected);
+    }
+
+    /**
+     * Returns the number of chromosomes, i.e. rows.
+     *
+     * @return Returns the number of rows.
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns the number of objectives, i.e. columns.
+     *
+     * @return Returns the number of columns.
+     */
+    public int getObjectiveCount() {
+        return fitnessFunctions.size();
+    }
+
+    /**
+     * Returns the column indices of all objectives.
+     *
+     * @return Returns {@code 0, ..., getObjectiveCount() - 1}.
+     */
+    public int[] getObjectives() {
+        int[] objectives = new int[fitnessFunctions.size()];
+        for (int objective = 0; objective < objectives.length; objective++) {
+            objectives[objective] = objective;
+        }
+        return objectives;
+    }
+
+    /**
+     * Returns the row indices of all chromosomes.
+     *
+     * @return Returns a modifiable list {@code 0, ..., size() - 1}.
+     */
+    public List<Integer> getRows() {
+        List<Integer> indices = new ArrayList<>(values.length);
+        for (int row = 0; row < values.length; row++) {
+            indices.add(row);
+        }
+        return indices;
+    }
+
+    public List<IChromosome<T>> getChromosomes() {
+        return chromosomes;
+    }
+
+    public IChromosome<T> getChromosome(int row) {
+        return chromosomes.get(row);
+    }
+
+    public List<IFitnessFunction<T>> getFitnessFunctions() {
+        return fitnessFunctions;
+    }
+
+    /**
+     * Returns the row of the given chromosome.
+     *
+     * @param chromosome The chromosome.
+     * @return Returns the row index or {@code -1} if the chromosome is not contained.
+     */
+    public int indexOf(IChromosome<T> chromosome) {
+        Integer row = rows.get(chromosome);
+        return row != null ? row : -1;
+    }
+
+    /**
+     * Returns the fitness value of the given chromosome for the given objective.
+     *
+     * @param row The row index of the chromosome.
+     * @param objective The column index of the objective.
+     * @return Returns the fitness value.
+     */
+    public double get(int row, int objective) {
+        return values[row][objective];
+    }
+
+    /**
+     * Returns the fitness vector of the given chromosome.
+     *
+     * @param row The row index of the chromosome.
+     * @return Returns the fitness vector indexed by objective, which must not be modified.
+     */
+    public double[] getRow(int row) {
+        return values[row];
+    }
+
+    /**
+     * Returns a fitness function per objective that looks up the fitness values in this matrix,
+     * e.g. for the selection functions. Chromosomes not contained in the matrix are evaluated
+     * by the underlying fitness function.
+     *
+     * @return Returns the fitness functions backed by this matrix.
+     */
+    public List<IFitnessFunction<T>> asFitnessFunctions() {
+        List<IFitnessFunction<T>> lookups = new ArrayList<>(fitnessFunctions.size());
+        for (int objective = 0; objective < fitnessFunctions.size(); objective++) {
+            lookups.add(asFitnessFunction(objective));
+        }
+        return lookups;
+    }
+
+    private IFitnessFunction<T> asFitnessFunction(final int objective) {
+        return new IFitnessFunction<T>() {
+            @Override
+            public double getFitness(IChromosome<T> chromosome) {
+                int row = indexOf(chromosome);
+                return row >= 0 ? values[row][objective]
+                        : fitnessFunctions.get(objective).getFitness(chromosome);
+            }
+        };
+    }
+}
@@ -4,8 +4,7 @@ import org.mate.exploration.genetic.chromosome.IChromosome;
 import org.mate.exploration.genetic.fitness.IFitnessFunction;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -14,94 +13,91 @@ import static org.mate.utils.MathUtils.isEpsEq;
 
 public class GAUtils {
     public static <T> void updateCrowdingDistance(List<IChromosome<T>> paretoFront, List<IFitnessFunction<T>> fitnessFunctions, Map<IChromosome<T>, Double> crowdingDistanceMap) {
-        for (IChromosome<T> chromosome : paretoFront) {
-            crowdingDistanceMap.put(chromosome, 0.0);
+        FitnessMatrix<T> fitnessMatrix = FitnessMatrix.evaluate(paretoFront, fitnessFunctions);
+        double[] crowdingDistances = new double[fitnessMatrix.size()];
+        updateCrowdingDistance(fitnessMatrix, fitnessMatrix.getRows(), fitnessMatrix.getObjectives(), crowdingDistances);
+        for (int row = 0; row < fitnessMatrix.size(); row++) {
+            crowdingDistanceMap.put(fitnessMatrix.getChromosome(row), crowdingDistances[row]);
         }
+    }
 
-        List<IChromosome<T>> uniqueFront = new ArrayList<>();
-
-        for (IChromosome<T> c1 : paretoFront) {
-            boolean isDuplicate = false;
-
-            for (IChromosome<T> c2 : uniqueFront) {
-                if (isEpsEq(calculateDistance(c1, c2, fitnessFunctions))) {
-                    isDuplicate = true;
-                    break;
-                }
-            }
-
-            if (!isDuplicate) {
-                uniqueFront.add(c1);
-            }
+    /**
+     * Computes the crowding distance of the chromosomes of a pareto front.
+     *
+     * @param fitnessMatrix the fitness values of the population
+     * @param paretoFront the row indices of the pareto front
+     * @param objectives the column indices of the objectives to consider
+     * @param crowdingDistances the crowding distances indexed by row, which are updated for the pareto front
+     * @see CrowdingDistance#compute(double[][], int[])
+     */
+    public static <T> void updateCrowdingDistance(FitnessMatrix<T> fitnessMatrix, List<Integer> paretoFront, int[] objectives, double[] crowdingDistances) {
+        double[][] vectors = new double[paretoFront.size()][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = fitnessMatrix.getRow(paretoFront.get(i));
         }
 
-        paretoFront = uniqueFront;
-
-        // then compute the crowding distance for the unique solutions
-        int n = paretoFront.size();
-
-        if (n < 3) {
-            for (IChromosome<T> chromosome : paretoFront) {
-                crowdingDistanceMap.put(chromosome, Double.POSITIVE_INFINITY);
-            }
-        } else {
-            for (final IFitnessFunction<T> fitnessFunction : fitnessFunctions) {
-                Collections.sort(paretoFront, new Comparator<IChromosome<T>>() {
-                    @Override
-                    public int compare(IChromosome<T> o1, IChromosome<T> o2) {
-                        double compared = fitnessFunction.getFitness(o2) - fitnessFunction.getFitness(o1);
-                        if (isEpsEq(compared)) {
-                            return 0;
-                        } else if (compared < 0) {
-                            return -1;
-                        } else {
-                            return 1;
-                        }
-                    }
-                });
-
-                double minObjective = fitnessFunction.getFitness(paretoFront.get(0));
-                double maxObjective = fitnessFunction.getFitness(paretoFront.get(n -1));
-
-                if (!isEpsEq(minObjective, maxObjective)) {
-                    crowdingDistanceMap.put(paretoFront.get(0), Double.POSITIVE_INFINITY);
-                    crowdingDistanceMap.put(paretoFront.get(n - 1), Double.POSITIVE_INFINITY);
-
-                    for (int i = 1; i < n - 1; i++) {
-                        IChromosome<T> paretoElement = paretoFront.get(i);
-                        double distance = crowdingDistanceMap.get(paretoElement);
-                        distance += (fitnessFunction.getFitness(paretoFront.get(i + 1)) -
-                                fitnessFunction.getFitness(paretoFront.get(i - 1)))
-                                / (maxObjective - minObjective);
-                        crowdingDistanceMap.put(paretoElement, distance);
-                    }
-                }
-
-            }
+        double[] frontDistances = CrowdingDistance.compute(vectors, objectives);
+        for (int i = 0; i < vectors.length; i++) {
+            crowdingDistances[paretoFront.get(i)] = frontDistances[i];
         }
     }
 
     public static <T> double calculateDistance(IChromosome<T> c1, IChromosome<T> c2, List<IFitnessFunction<T>> fitnessFunctions) {
+        FitnessMatrix<T> fitnessMatrix = FitnessMatrix.evaluate(Arrays.asList(c1, c2), fitnessFunctions);
+        return calculateDistance(fitnessMatrix, 0, 1, fitnessMatrix.getObjectives());
+    }
+
+    /**
+     * Computes the euclidean distance of two chromosomes in the objective space.
+     *
+     * @param fitnessMatrix the fitness values of the population
+     * @param r1 the row index of the first chromosome
+     * @param r2 the row index of the second chromosome
+     * @param objectives the column indices of the objectives to consider
+     * @return the distance between both chromosomes
+     */
+    public static <T> double calculateDistance(FitnessMatrix<T> fitnessMatrix, int r1, int r2, int[] objectives) {
+        double[] v1 = fitnessMatrix.getRow(r1);
+        double[] v2 = fitnessMatrix.getRow(r2);
         double distance = 0.0;
 
-        for (IFitnessFunction<T> fitnessFunction : fitnessFunctions) {
-            distance += Math.pow(fitnessFunction.getFitness(c1) - fitnessFunction.getFitness(c2), 2.0);
+        for (int objective : objectives) {
+            double difference = v1[objective] - v2[objective];
+            distance += difference * difference;
         }
         return Math.sqrt(distance);
     }
 
     public static <T> List<IChromosome<T>> getParetoFront(List<IChromosome<T>> chromosomes, List<IFitnessFunction<T>> fitnessFunctions) {
+        FitnessMatrix<T> fitnessMatrix = FitnessMatrix.evaluate(chromosomes, fitnessFunctions);
         List<IChromosome<T>> paretoFront = new ArrayList<>();
+        for (int row : getParetoFront(fitnessMatrix, fitnessMatrix.getRows(), fitnessMatrix.getObjectives())) {
+            paretoFront.add(fitnessMatrix.getChromosome(row));
+        }
+        return paretoFront;
+    }
 
-        for (IChromosome<T> chromosome : chromosomes) {
+    /**
+     * Computes the chromosomes that are not dominated by any other of the given chromosomes.
+     *
+     * @param fitnessMatrix the fitness values of the population
+     * @param rows the row indices of the chromosomes to consider
+     * @param objectives the column indices of the objectives to consider
+     * @return the row indices of the pareto front
+     */
+    public static <T> List<Integer> getParetoFront(FitnessMatrix<T> fitnessMatrix, List<Integer> rows, int[] objectives) {
+        List<Integer> paretoFront = new ArrayList<>();
+
+        for (int row : rows) {
+            double[] vector = fitnessMatrix.getRow(row);
             boolean isDominated = false;
-            Iterator<IChromosome<T>> iterator = paretoFront.iterator();
+            Iterator<Integer> iterator = paretoFront.iterator();
             while (iterator.hasNext()) {
-                IChromosome<T> frontElement = iterator.next();
+                double[] frontVector = fitnessMatrix.getRow(iterator.next());
                 boolean worseInOne = false;
                 boolean betterInOne = false;
-                for (IFitnessFunction<T> fitnessFunction : fitnessFunctions) {
-                    double compared = fitnessFunction.getFitness(chromosome) - fitnessFunction.getFitness(frontElement);
+                for (int objective : objectives) {
+                    double compared = vector[objective] - frontVector[objective];
                     if (isEpsEq(compared)) {
                         continue;
                     }
@@ -128,7 +124,7 @@ public class GAUtils {
             }
 
             if (!isDominated) {
-                paretoFront.add(chromosome);
+                paretoFront.add(row);
             }
         }
         return paretoFront;
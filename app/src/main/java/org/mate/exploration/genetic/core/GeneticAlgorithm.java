@@ -5,12 +5,15 @@ import org.mate.Properties;
 import org.mate.exploration.genetic.chromosome.IChromosome;
 import org.mate.exploration.genetic.chromosome_factory.IChromosomeFactory;
 import org.mate.exploration.genetic.crossover.ICrossOverFunction;
+import org.mate.exploration.genetic.crossover.TestCaseMergeCrossOverFunction;
 import org.mate.exploration.genetic.fitness.IFitnessFunction;
 import org.mate.exploration.genetic.mutation.IMutationFunction;
 import org.mate.exploration.genetic.selection.ISelectionFunction;
 import org.mate.exploration.genetic.termination.ITerminationCondition;
+import org.mate.model.TestCase;
 import org.mate.utils.Coverage;
 import org.mate.utils.CoverageUtils;
+import org.mate.utils.FitnessUtils;
 import org.mate.utils.Randomness;
 
 import java.util.ArrayList;
@@ -32,6 +35,18 @@ public abstract class GeneticAlgorithm<T> implements IGeneticAlgorithm<T> {
     protected int populationSize;
     protected int bigPopulationSize;
     protected List<IChromosome<T>> population;
+    /**
+     * The fitness values of the {@link #population}, filled by the evaluation stage
+     * {@link #evaluatePopulation()}.
+     */
+    protected FitnessMatrix<T> fitnessMatrix;
+    /**
+     * Ranks the offspring before they are executed, see {@link Properties#SURROGATE_MODEL()}.
+     * Only available for test cases created by the {@link TestCaseMergeCrossOverFunction},
+     * otherwise {@code null}.
+     */
+    protected SurrogateModel surrogateModel;
+    private boolean surrogateModelInitialised = false;
     protected int currentGenerationNumber;
     protected double pCrossover;
     protected double pMutate;
@@ -89,6 +104,7 @@ public abstract class GeneticAlgorithm<T> implements IGeneticAlgorithm<T> {
             population.add(chromosomeFactory.createChromosome());
         }
 
+        evaluatePopulation();
         logCurrentFitness();
         currentGenerationNumber++;
     }
@@ -98,8 +114,12 @@ public abstract class GeneticAlgorithm<T> implements IGeneticAlgorithm<T> {
         MATE.log_acc("Creating population #" + (currentGenerationNumber + 1));
         List<IChromosome<T>> newGeneration = new ArrayList<>(population);
 
+        // the selection looks up the fitness values of the current population in the matrix
+        List<IFitnessFunction<T>> evaluatedFitnessFunctions = fitnessMatrix != null
+                ? fitnessMatrix.asFitnessFunctions() : fitnessFunctions;
+
         while (newGeneration.size() < bigPopulationSize) {
-            List<IChromosome<T>> parents = selectionFunction.select(population, fitnessFunctions);
+            List<IChromosome<T>> parents = selectionFunction.select(population, evaluatedFitnessFunctions);
 
             IChromosome<T> parent;
 
@@ -126,12 +146,18 @@ public abstract class GeneticAlgorithm<T> implements IGeneticAlgorithm<T> {
             }
         }
 
+        if (surrogateModel != null) {
+            newGeneration = screenOffspring(newGeneration);
+        }
+
         //todo: beautify later when more time
         population.clear();
         population.addAll(newGeneration);
+        evaluatePopulation();
         List<IChromosome<T>> tmp = getGenerationSurvivors();
         population.clear();
         population.addAll(tmp);
+        fitnessMatrix = fitnessMatrix.select(population);
         logCurrentFitness();
         currentGenerationNumber++;
     }
@@ -141,6 +167,80 @@ public abstract class GeneticAlgorithm<T> implements IGeneticAlgorithm<T> {
         return new ArrayList<>(population.subList(population.size() - populationSize, population.size()));
     }
 
+    /**
+     * The evaluation stage: evaluates every fitness function for every chromosome of the
+     * current population once and stores the values in the {@link #fitnessMatrix}. The
+     * fitness values of chromosomes that have already been evaluated in the previous
+     * generation are reused.
+     */
+    protected void evaluatePopulation() {
+        initialiseSurrogateModel();
+        List<IChromosome<T>> unevaluated = new ArrayList<>();
+        for (IChromosome<T> chromosome : population) {
+            if (fitnessMatrix == null || fitnessMatrix.indexOf(chromosome) < 0) {
+                unevaluated.add(chromosome);
+            }
+        }
+        // retrieves the fitness vectors of the new chromosomes in a single request
+        FitnessUtils.prefetchFitness(unevaluated);
+        fitnessMatrix = FitnessMatrix.evaluate(population, fitnessFunctions, fitnessMatrix);
+
+        if (surrogateModel != null) {
+            FitnessMatrix<TestCase> testCaseMatrix = forceCast(fitnessMatrix);
+            List<IChromosome<TestCase>> testCases = forceCast(unevaluated);
+            surrogateModel.observe(testCaseMatrix, testCases);
+            MATE.log_acc("Surrogate model: mean absolute error " + surrogateModel.getMeanAbsoluteError()
+                    + " over " + surrogateModel.getEvaluatedPredictions() + " predictions");
+        }
+    }
+
+    /**
+     * Sets up the surrogate model if requested. The crossover function then creates offspring
+     * without executing them, such that the surrogate model can rank them first.
+     */
+    private void initialiseSurrogateModel() {
+
+        if (surrogateModelInitialised) {
+            return;
+        }
+        surrogateModelInitialised = true;
+
+        if (Properties.SURROGATE_MODEL()) {
+            if (crossOverFunction instanceof TestCaseMergeCrossOverFunction) {
+                ((TestCaseMergeCrossOverFunction) crossOverFunction).setExecuteActions(false);
+                surrogateModel = new SurrogateModel(Properties.SURROGATE_EXECUTION_RATE(),
+                        Properties.SURROGATE_EXPLOITATION_RATIO());
+            } else {
+                MATE.log_acc("The surrogate model requires the test case merge crossover function!");
+            }
+        }
+    }
+
+    /**
+     * Executes only the offspring ranked high by the surrogate model.
+     *
+     * @param newGeneration The current population and the offspring.
+     * @return Returns the new generation without the offspring that haven't been executed.
+     */
+    private List<IChromosome<T>> screenOffspring(List<IChromosome<T>> newGeneration) {
+        List<IChromosome<TestCase>> offspring = forceCast(newGeneration);
+        List<IChromosome<T>> screened = forceCast(surrogateModel.screen(offspring));
+        return new ArrayList<>(screened);
+    }
+
+    /**
+     * Force casts between chromosomes of type T and test case chromosomes. The surrogate model
+     * is only set up if T is TestCase, thus the cast is safe wherever the model is used.
+     *
+     * @param value The chromosomes or fitness matrix to be cast.
+     * @param <R> The type the value is cast to.
+     * @return Returns the given value.
+     */
+    @SuppressWarnings("unchecked")
+    private static <R> R forceCast(Object value) {
+        return (R) value;
+    }
+
     protected void logCurrentFitness() {
         if (population.size() <= 10) {
             MATE.log_acc("Fitness of generation #" + (currentGenerationNumber + 1) + " :");
@@ -149,8 +249,9 @@ public abstract class GeneticAlgorithm<T> implements IGeneticAlgorithm<T> {
                 IFitnessFunction<T> fitnessFunction = fitnessFunctions.get(i);
                 for (int j = 0; j < population.size(); j++) {
                     IChromosome<T> chromosome = population.get(j);
+                    int row = fitnessMatrix != null ? fitnessMatrix.indexOf(chromosome) : -1;
                     MATE.log_acc("Chromosome " + (j + 1) + ": "
-                            + fitnessFunction.getFitness(chromosome));
+                            + (row >= 0 ? fitnessMatrix.get(row, i) : fitnessFunction.getFitness(chromosome)));
                 }
             }
             if (fitnessFunctions.size() > 5) {
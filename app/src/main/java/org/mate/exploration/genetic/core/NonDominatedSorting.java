@@ -0,0 +1,288 @@
+package org.mate.exploration.genetic.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.mate.utils.MathUtils.isEpsEq;
+
+/**
+ * Sorts fitness vectors into non-dominated fronts in one pass, i.e. assigns each vector the
+ * index of its front, where front 0 is the Pareto front. Fitness values are maximised and
+ * values that are equal up to {@link org.mate.utils.MathUtils#EPS} are considered equal,
+ * like in {@link GAUtils#getParetoFront(FitnessMatrix, List, int[])}.
+ * <p>
+ * The sorting follows the efficient non-dominated sort with binary search (ENS-BS) by
+ * Zhang et al.: the vectors are sorted by the sum of their values, such that a vector can
+ * only be dominated by its predecessors, and then added one by one to the first front none
+ * of whose members dominates it. The front is found by a binary search over the fronts, since a
+ * vector dominated by a member of some front is dominated by a member of every better front.
+ * Vectors are compared with their primitive values only, in contrast to peeling off one
+ * Pareto front after the other.
+ */
+public final class NonDominatedSorting {
+
+    private NonDominatedSorting() {
+        throw new UnsupportedOperationException("Utility class!");
+    }
+
+    /**
+     * Sorts the given rows of a fitness matrix into non-dominated fronts.
+     *
+     * @param fitnessMatrix The fitness matrix.
+     * @param rows The rows to be sorted.
+     * @param objectives The objectives to be considered.
+     * @param <T> Type wrapped by the chromosome implementation
+     * @return Returns the front of each row of the fitness matrix, indexed by row, or
+     *          {@code -1} for rows not contained in the given rows.
+     */
+    public static <T> int[] sort(FitnessMatrix<T> fitnessMatrix, List<Integer> rows, int[] objectives) {
+
+        double[][] vectors = new double[rows.size()][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = fitnessMatrix.getRow(rows.get(i));
+        }
+
+        int[] vectorRanks = sort(vectors, objectives);
+        int[] ranks = new int[fitnessMatrix.size()];
+        Arrays.fill(ranks, -1);
+        for (int i = 0; i < vectors.length; i++) {
+            ranks[rows.get(i)] = vectorRanks[i];
+        }
+        return ranks;
+    }
+
+    /**
+     * Sorts the given fitness vectors into non-dominated fronts.
+     *
+     * @param vectors The fitness vectors.
+     * @param objectives The objectives, i.e. the vector entries, to be considered.
+     * @return Returns the front of each vector in the order of the given vectors.
+     */
+    public static int[] sort(double[][] vectors, int[] objectives) {
+
+        // objectives with the same value in all vectors, e.g. branches covered by all or no
+        // chromosome, don't affect the dominance relation
+        objectives = getVaryingObjectives(vectors, objectives);
+
+        final double[] sums = new double[vectors.length];
+        List<Integer> order = new ArrayList<>(vectors.length);
+        for (int i = 0; i < vectors.length; i++) {
+            for (int objective : objectives) {
+                sums[i] += vectors[i][objective];
+            }
+            order.add(i);
+        }
+        // a vector dominating another one has a larger sum, thus it comes first
+        Collections.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Double.compare(sums[o2], sums[o1]);
+            }
+        });
+
+        int[] ranks = new int[vectors.length];
+        int[][] fronts = new int[0][];
+        int[] frontSizes = new int[0];
+        int frontCount = 0;
+
+        for (int vector : order) {
+
+            // the first front none of whose members dominates the vector
+            int low = 0;
+            int high = frontCount;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int dominance = dominanceByFront(vectors, objectives, fronts[middle], frontSizes[middle], vector);
+                if (dominance < 0) {
+                    // the vector dominates a predecessor, which the order rules out unless
+                    // the vectors differ by less than the epsilon in some values
+                    return sortPairwise(vectors, objectives);
+                }
+                if (dominance > 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            if (low == frontCount) {
+                if (frontCount == fronts.length) {
+                    int capacity = Math.max(4, 2 * frontCount);
+                    fronts = Arrays.copyOf(fronts, capacity);
+                    frontSizes = Arrays.copyOf(frontSizes, capacity);
+                }
+                fronts[frontCount] = new int[4];
+                frontCount++;
+            }
+            if (frontSizes[low] == fronts[low].length) {
+                fronts[low] = Arrays.copyOf(fronts[low], 2 * fronts[low].length);
+            }
+            fronts[low][frontSizes[low]++] = vector;
+            ranks[vector] = low;
+        }
+        return ranks;
+    }
+
+    /**
+     * Sorts the given fitness vectors into non-dominated fronts by comparing all pairs of
+     * vectors, i.e. the fast non-dominated sort by Deb et al. The result doesn't depend on
+     * the order of the vectors.
+     *
+     * @param vectors The fitness vectors.
+     * @param objectives The objectives, i.e. the vector entries, to be considered.
+     * @return Returns the front of each vector in the order of the given vectors.
+     */
+    static int[] sortPairwise(double[][] vectors, int[] objectives) {
+
+        int[] dominationCounts = new int[vectors.length];
+        List<List<Integer>> dominatedVectors = new ArrayList<>(vectors.length);
+        for (int i = 0; i < vectors.length; i++) {
+            dominatedVectors.add(new ArrayList<Integer>());
+        }
+
+        for (int i = 0; i < vectors.length; i++) {
+            for (int j = i + 1; j < vectors.length; j++) {
+                int dominance = compare(vectors[i], vectors[j], objectives);
+                if (dominance > 0) {
+                    dominatedVectors.get(i).add(j);
+                    dominationCounts[j]++;
+                } else if (dominance < 0) {
+                    dominatedVectors.get(j).add(i);
+                    dominationCounts[i]++;
+                }
+            }
+        }
+
+        int[] ranks = new int[vectors.length];
+        List<Integer> front = new ArrayList<>();
+        for (int i = 0; i < vectors.length; i++) {
+            if (dominationCounts[i] == 0) {
+                front.add(i);
+            }
+        }
+
+        int rank = 0;
+        while (!front.isEmpty()) {
+            List<Integer> nextFront = new ArrayList<>();
+            for (int vector : front) {
+                ranks[vector] = rank;
+                for (int dominated : dominatedVectors.get(vector)) {
+                    if (--dominationCounts[dominated] == 0) {
+                        nextFront.add(dominated);
+                    }
+                }
+            }
+            front = nextFront;
+            rank++;
+        }
+        return ranks;
+    }
+
+    /**
+     * Groups the given rows by their front.
+     *
+     * @param ranks The front of each row, see {@link #sort(FitnessMatrix, List, int[])}.
+     * @param rows The sorted rows.
+     * @return Returns the rows of each front in the order of the given rows, starting with
+     *          the Pareto front.
+     */
+    public static List<List<Integer>> getFronts(int[] ranks, List<Integer> rows) {
+        List<List<Integer>> fronts = new ArrayList<>();
+        for (int row : rows) {
+            while (fronts.size() <= ranks[row]) {
+                fronts.add(new ArrayList<Integer>());
+            }
+            fronts.get(ranks[row]).add(row);
+        }
+        return fronts;
+    }
+
+    /**
+     * Removes the given rows from the remaining rows while preserving their order, e.g. the
+     * rows that have already been assigned to a front.
+     *
+     * @param remaining The remaining rows.
+     * @param toRemove The rows to be removed.
+     * @param size The number of rows of the fitness matrix.
+     * @return Returns the remaining rows without the removed ones.
+     */
+    public static List<Integer> removeRows(List<Integer> remaining, List<Integer> toRemove, int size) {
+        boolean[] removed = new boolean[size];
+        for (int row : toRemove) {
+            removed[row] = true;
+        }
+        List<Integer> result = new ArrayList<>(remaining.size() - toRemove.size());
+        for (int row : remaining) {
+            if (!removed[row]) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Filters the objectives whose value differs between the given vectors.
+     */
+    private static int[] getVaryingObjectives(double[][] vectors, int[] objectives) {
+        int[] varying = new int[objectives.length];
+        int count = 0;
+        for (int objective : objectives) {
+            for (int i = 1; i < vectors.length; i++) {
+                if (vectors[i][objective] != vectors[0][objective]) {
+                    varying[count++] = objective;
+                    break;
+                }
+            }
+        }
+        return count == objectives.length ? objectives : Arrays.copyOf(varying, count);
+    }
+
+    /**
+     * Checks whether a member of the given front dominates the given vector. The most
+     * recently added members are compared first, since they are the most similar ones.
+     *
+     * @return Returns {@code 1} if the vector is dominated, {@code -1} if the vector dominates
+     *          a member and {@code 0} otherwise.
+     */
+    private static int dominanceByFront(double[][] vectors, int[] objectives, int[] front, int size, int vector) {
+        for (int i = size - 1; i >= 0; i--) {
+            int dominance = compare(vectors[front[i]], vectors[vector], objectives);
+            if (dominance != 0) {
+                return dominance;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Compares the given fitness vectors with respect to Pareto dominance.
+     *
+     * @return Returns {@code 1} if the first vector dominates the second one, {@code -1} if
+     *          the second vector dominates the first one and {@code 0} otherwise.
+     */
+    private static int compare(double[] first, double[] second, int[] objectives) {
+        boolean betterInOne = false;
+        boolean worseInOne = false;
+        for (int objective : objectives) {
+            double compared = first[objective] - second[objective];
+            if (isEpsEq(compared)) {
+                continue;
+            }
+            if (compared > 0) {
+                betterInOne = true;
+            } else {
+                worseInOne = true;
+            }
+            if (betterInOne && worseInOne) {
+                return 0;
+            }
+        }
+        if (betterInOne) {
+            return 1;
+        }
+        return worseInOne ? -1 : 0;
+    }
+}
@@ -0,0 +1,319 @@
+package org.mate.exploration.genetic.core;
+
+import org.mate.MATE;
+import org.mate.exploration.genetic.chromosome.IChromosome;
+import org.mate.exploration.genetic.crossover.TestCaseMergeCrossOverFunction;
+import org.mate.interaction.UIAbstractionLayer;
+import org.mate.model.SymbolTable;
+import org.mate.model.TestCase;
+import org.mate.ui.Action;
+import org.mate.utils.Randomness;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Predicts the fitness of offspring test cases before they are executed, such that only the
+ * promising offspring of a generation are executed on the device, see
+ * {@link org.mate.Properties#SURROGATE_MODEL()}.
+ * <p>
+ * A test case is described by the transitions between screen states its actions lead to
+ * according to the edges of the {@link UIAbstractionLayer}. The predicted fitness is the mean
+ * fitness of the most similar test cases executed so far, weighted by the Jaccard similarity
+ * of their transitions. The fitness of a test case is the mean of its fitness values over all
+ * fitness functions. Offspring are ranked by their predicted fitness plus the fraction of
+ * their actions leading to transitions not seen so far, such that near-duplicates of executed
+ * test cases are ranked after offspring exploring new transitions.
+ */
+public class SurrogateModel {
+
+    // the number of executed test cases the prediction is based on
+    private static final int MAX_OBSERVATIONS = 200;
+    private static final int NEIGHBOURS = 5;
+
+    private static class Observation {
+        private final BitSet transitions;
+        private final double fitness;
+
+        private Observation(BitSet transitions, double fitness) {
+            this.transitions = transitions;
+            this.fitness = fitness;
+        }
+    }
+
+    private static class Candidate {
+        private final IChromosome<TestCase> chromosome;
+        private final double prediction;
+        private final double score;
+
+        private Candidate(IChromosome<TestCase> chromosome, double prediction, double score) {
+            this.chromosome = chromosome;
+            this.prediction = prediction;
+            this.score = score;
+        }
+    }
+
+    private final SymbolTable transitions = new SymbolTable();
+    private final Deque<Observation> observations = new ArrayDeque<>();
+
+    // the transitions of any executed test case
+    private final BitSet observedTransitions = new BitSet();
+
+    // the predicted fitness of executed offspring that haven't been evaluated yet
+    private final Map<IChromosome<TestCase>, Double> predictions = new IdentityHashMap<>();
+
+    private final float executionRate;
+    private final float exploitationRatio;
+
+    private int evaluatedPredictions = 0;
+    private double absoluteError = 0;
+
+    /**
+     * Initialises the surrogate model.
+     *
+     * @param executionRate The fraction of the unexecuted offspring that is executed.
+     * @param exploitationRatio The fraction of the executed offspring that is chosen by its
+     *          rank, the remaining offspring are chosen randomly.
+     */
+    public SurrogateModel(float executionRate, float exploitationRatio) {
+        if (executionRate <= 0 || executionRate > 1 || exploitationRatio < 0 || exploitationRatio > 1) {
+            throw new IllegalArgumentException("The execution rate needs to be in (0,1] and the "
+                    + "exploitation ratio in [0,1]!");
+        }
+        this.executionRate = executionRate;
+        this.exploitationRatio = exploitationRatio;
+    }
+
+    /**
+     * Selects the offspring to be executed. Offspring that haven't been executed yet, i.e.
+     * dummy test cases, are ranked by their predicted fitness and only the top fraction is
+     * executed. Offspring that have been executed already are kept.
+     *
+     * @param offspring The offspring of a generation.
+     * @return Returns the executed offspring in their original order.
+     */
+    public List<IChromosome<TestCase>> screen(List<IChromosome<TestCase>> offspring) {
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (IChromosome<TestCase> chromosome : offspring) {
+            if (isDummy(chromosome)) {
+                BitSet candidateTransitions = new BitSet();
+                double novelty = describe(chromosome.getValue(), candidateTransitions);
+                double prediction = predict(candidateTransitions);
+                candidates.add(new Candidate(chromosome, prediction, prediction + novelty));
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            return offspring;
+        }
+
+        int executions = Math.max(1, (int) Math.ceil(executionRate * candidates.size()));
+        int exploitations = Math.round(exploitationRatio * executions);
+
+        List<Candidate> ranked = new ArrayList<>(candidates);
+        Collections.sort(ranked, new Comparator<Candidate>() {
+            @Override
+            public int compare(Candidate o1, Candidate o2) {
+                return Double.compare(o2.score, o1.score);
+            }
+        });
+
+        Map<IChromosome<TestCase>, Candidate> selected = new IdentityHashMap<>();
+        for (Candidate candidate : ranked.subList(0, exploitations)) {
+            selected.put(candidate.chromosome, candidate);
+        }
+
+        // the remaining executions explore offspring the model doesn't rank high
+        List<Candidate> remaining = new ArrayList<>(ranked.subList(exploitations, ranked.size()));
+        for (int i = exploitations; i < executions; i++) {
+            Candidate candidate = remaining.remove(Randomness.randomIndex(remaining));
+            selected.put(candidate.chromosome, candidate);
+        }
+
+        MATE.log_acc("Surrogate model: executing " + executions + " of " + candidates.size()
+                + " offspring");
+
+        List<IChromosome<TestCase>> executed = new ArrayList<>();
+        for (IChromosome<TestCase> chromosome : offspring) {
+            if (!isDummy(chromosome)) {
+                executed.add(chromosome);
+            } else if (selected.containsKey(chromosome)) {
+                IChromosome<TestCase> executedChromosome = execute(chromosome.getValue());
+                predictions.put(executedChromosome, selected.get(chromosome).prediction);
+                executed.add(executedChromosome);
+            }
+        }
+        return executed;
+    }
+
+    /**
+     * Trains the model with the fitness values of the given evaluated chromosomes and tracks
+     * the accuracy of the predictions made for them.
+     *
+     * @param fitnessMatrix The fitness values of the chromosomes.
+     * @param chromosomes The newly evaluated chromosomes.
+     */
+    public void observe(FitnessMatrix<TestCase> fitnessMatrix, List<IChromosome<TestCase>> chromosomes) {
+
+        for (IChromosome<TestCase> chromosome : chromosomes) {
+
+            int row = fitnessMatrix.indexOf(chromosome);
+            if (row < 0) {
+                continue;
+            }
+
+            double fitness = 0;
+            double[] fitnessValues = fitnessMatrix.getRow(row);
+            for (double fitnessValue : fitnessValues) {
+                fitness += fitnessValue;
+            }
+            fitness = fitnessValues.length > 0 ? fitness / fitnessValues.length : 0;
+
+            Double prediction = predictions.remove(chromosome);
+            if (prediction != null) {
+                evaluatedPredictions++;
+                absoluteError += Math.abs(prediction - fitness);
+            }
+
+            BitSet chromosomeTransitions = new BitSet();
+            describe(chromosome.getValue(), chromosomeTransitions);
+            observedTransitions.or(chromosomeTransitions);
+            observations.addLast(new Observation(chromosomeTransitions, fitness));
+            if (observations.size() > MAX_OBSERVATIONS) {
+                observations.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Returns the mean absolute error of the predictions made so far.
+     *
+     * @return Returns the mean absolute error or {@link Double#NaN} if no prediction has been
+     *          evaluated yet.
+     */
+    public double getMeanAbsoluteError() {
+        return evaluatedPredictions > 0 ? absoluteError / evaluatedPredictions : Double.NaN;
+    }
+
+    /**
+     * Returns the number of predictions whose accuracy has been tracked.
+     *
+     * @return Returns the number of evaluated predictions.
+     */
+    public int getEvaluatedPredictions() {
+        return evaluatedPredictions;
+    }
+
+    /**
+     * Predicts the fitness of a test case with the given transitions.
+     *
+     * @param candidateTransitions The transitions of the test case.
+     * @return Returns the similarity weighted mean fitness of the nearest observations.
+     */
+    private double predict(final BitSet candidateTransitions) {
+
+        List<double[]> neighbours = new ArrayList<>(observations.size());
+        for (Observation observation : observations) {
+            neighbours.add(new double[]{similarity(candidateTransitions, observation.transitions),
+                    observation.fitness});
+        }
+        Collections.sort(neighbours, new Comparator<double[]>() {
+            @Override
+            public int compare(double[] o1, double[] o2) {
+                return Double.compare(o2[0], o1[0]);
+            }
+        });
+
+        double weightedFitness = 0;
+        double weights = 0;
+        double fitness = 0;
+        int count = Math.min(NEIGHBOURS, neighbours.size());
+        for (double[] neighbour : neighbours.subList(0, count)) {
+            weightedFitness += neighbour[0] * neighbour[1];
+            weights += neighbour[0];
+            fitness += neighbour[1];
+        }
+
+        if (weights > 0) {
+            return weightedFitness / weights;
+        }
+        // no observation shares a transition with the test case
+        return count > 0 ? fitness / count : 0;
+    }
+
+    private static double similarity(BitSet first, BitSet second) {
+        BitSet union = (BitSet) first.clone();
+        union.or(second);
+        if (union.isEmpty()) {
+            return 0;
+        }
+        BitSet intersection = (BitSet) first.clone();
+        intersection.and(second);
+        return (double) intersection.cardinality() / union.cardinality();
+    }
+
+    /**
+     * Collects the transitions of the given test case.
+     *
+     * @param testCase The test case.
+     * @param testCaseTransitions Collects the ids of the transitions.
+     * @return Returns the fraction of the actions whose transition hasn't been observed yet.
+     */
+    private double describe(TestCase testCase, BitSet testCaseTransitions) {
+
+        List<Action> actions = testCase.getEventSequence();
+        int novel = 0;
+
+        for (Action action : actions) {
+            String transition = getTransition(action);
+            if (transition == null) {
+                // the action hasn't been executed yet
+                novel++;
+            } else {
+                int id = transitions.intern(transition);
+                if (!observedTransitions.get(id)) {
+                    novel++;
+                }
+                testCaseTransitions.set(id);
+            }
+        }
+        return actions.isEmpty() ? 0 : (double) novel / actions.size();
+    }
+
+    /**
+     * Looks up the transition the given action leads to in the UI model.
+     *
+     * @param action The action.
+     * @return Returns the source and target state of the transition or {@code null} if the
+     *          action hasn't been executed yet.
+     */
+    protected String getTransition(Action action) {
+        UIAbstractionLayer.Edge edge = MATE.uiAbstractionLayer.getEdge(action);
+        if (edge == null) {
+            return null;
+        }
+        return edge.getSource().getId() + "->" + edge.getTarget().getId();
+    }
+
+    /**
+     * Executes the given dummy test case and stores its fitness and coverage data.
+     *
+     * @param testCase The dummy test case.
+     * @return Returns the chromosome of the executed test case.
+     */
+    protected IChromosome<TestCase> execute(TestCase testCase) {
+        return TestCaseMergeCrossOverFunction.executeDummy(testCase);
+    }
+
+    private static boolean isDummy(IChromosome<TestCase> chromosome) {
+        return chromosome.getValue().getId().equals("dummy");
+    }
+}
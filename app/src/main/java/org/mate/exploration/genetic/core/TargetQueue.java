@@ -0,0 +1,188 @@
+package org.mate.exploration.genetic.core;
+
+/**
+ * An indexed min-heap of targets, i.e. objective indices, keyed by how often each target has
+ * been sampled. Ties are broken by the smaller objective index. Looking up the least sampled
+ * target takes constant time, changing a counter or removing a target logarithmic time in the
+ * number of targets in the queue.
+ */
+public class TargetQueue {
+
+    private final int[] heap;
+    // the position of each target in the heap or -1 if the target is not contained
+    private final int[] positions;
+    private final int[] counters;
+    private int size;
+
+    /**
+     * Initialises a queue containing all targets with a counter of {@code 0}.
+     *
+     * @param targets The number of targets.
+     */
+    public TargetQueue(int targets) {
+        heap = new int[targets];
+        positions = new int[targets];
+        counters = new int[targets];
+        for (int target = 0; target < targets; target++) {
+            // the identity is a valid heap, since all counters are equal
+            heap[target] = target;
+            positions[target] = target;
+        }
+        size = targets;
+    }
+
+    /**
+     * Checks whether any target is left.
+     *
+     * @return Returns {@code true} if the queue is empty, otherwise {@code false}.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of targets left.
+     *
+     * @return Returns the size of the queue.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the target at the given position of the heap, e.g. to iterate over the targets
+     * left in no particular order.
+     *
+     * @param index The position in {@code [0, size())}.
+     * @return Returns the target at the given position.
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size + "!");
+        }
+        return heap[index];
+    }
+
+    /**
+     * Returns the least sampled target without removing it.
+     *
+     * @return Returns the target with the smallest counter.
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new IllegalStateException("No target left!");
+        }
+        return heap[0];
+    }
+
+    /**
+     * Checks whether the given target is contained in the queue.
+     *
+     * @param target The target.
+     * @return Returns {@code true} if the target hasn't been removed, otherwise {@code false}.
+     */
+    public boolean contains(int target) {
+        return positions[target] >= 0;
+    }
+
+    /**
+     * Returns how often the given target has been sampled since its counter was last reset.
+     *
+     * @param target The target.
+     * @return Returns the counter of the target.
+     */
+    public int getCounter(int target) {
+        return counters[target];
+    }
+
+    /**
+     * Increments the counter of the given target.
+     *
+     * @param target The contained target.
+     */
+    public void increment(int target) {
+        requireContained(target);
+        counters[target]++;
+        siftDown(positions[target]);
+    }
+
+    /**
+     * Resets the counter of the given target to {@code 0}.
+     *
+     * @param target The contained target.
+     */
+    public void reset(int target) {
+        requireContained(target);
+        counters[target] = 0;
+        siftUp(positions[target]);
+    }
+
+    /**
+     * Removes the given target, e.g. once it is covered. Removing a target that isn't
+     * contained has no effect.
+     *
+     * @param target The target.
+     */
+    public void remove(int target) {
+        int position = positions[target];
+        if (position < 0) {
+            return;
+        }
+        positions[target] = -1;
+        size--;
+        if (position < size) {
+            // the last target fills the gap and moves either down or up
+            int moved = heap[size];
+            heap[position] = moved;
+            positions[moved] = position;
+            siftDown(position);
+            siftUp(positions[moved]);
+        }
+    }
+
+    private void requireContained(int target) {
+        if (positions[target] < 0) {
+            throw new IllegalArgumentException("Target " + target + " is not contained!");
+        }
+    }
+
+    private boolean less(int first, int second) {
+        return counters[first] < counters[second] || (counters[first] == counters[second] && first < second);
+    }
+
+    private void siftUp(int position) {
+        int target = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!less(target, heap[parent])) {
+                break;
+            }
+            heap[position] = heap[parent];
+            positions[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = target;
+        positions[target] = position;
+    }
+
+    private void siftDown(int position) {
+        int target = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && less(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!less(heap[child], target)) {
+                break;
+            }
+            heap[position] = heap[child];
+            positions[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = target;
+        positions[target] = position;
+    }
+}
@@ -2,6 +2,7 @@ package org.mate.exploration.genetic.crossover;
 
 import org.mate.exploration.genetic.chromosome.Chromosome;
 import org.mate.exploration.genetic.chromosome.IChromosome;
+import org.mate.message.MessageBatch;
 import org.mate.model.TestCase;
 import org.mate.utils.CoverageUtils;
 import org.mate.utils.FitnessUtils;
@@ -38,9 +39,11 @@ public class PrimitiveTestCaseMergeCrossOverFunction implements ICrossOverFuncti
             TestCase executedTestCase = TestCase.fromDummy(offspring);
             Chromosome<TestCase> chromosome = new Chromosome<>(executedTestCase);
 
-            FitnessUtils.storeTestCaseChromosomeFitness(chromosome);
-            CoverageUtils.storeTestCaseChromosomeCoverage(chromosome);
-            CoverageUtils.logChromosomeCoverage(chromosome);
+            MessageBatch batch = new MessageBatch();
+            FitnessUtils.storeTestCaseChromosomeFitness(chromosome, batch);
+            CoverageUtils.storeTestCaseChromosomeCoverage(chromosome, batch);
+            CoverageUtils.logChromosomeCoverage(chromosome, batch);
+            FitnessUtils.prefetchFitness(chromosome);
 
             return chromosome;
         }
@@ -4,6 +4,7 @@ import org.mate.MATE;
 import org.mate.exploration.genetic.chromosome.Chromosome;
 import org.mate.exploration.genetic.chromosome.IChromosome;
 import org.mate.interaction.UIAbstractionLayer;
+import org.mate.message.MessageBatch;
 import org.mate.model.TestCase;
 import org.mate.ui.Action;
 import org.mate.utils.CoverageUtils;
@@ -141,16 +142,29 @@ public class TestCaseMergeCrossOverFunction implements ICrossOverFunction<TestCa
         testCase.getEventSequence().addAll(all);
 
         if (executeActions) {
-            TestCase executedTestCase = TestCase.fromDummy(testCase);
-            Chromosome<TestCase> chromosome = new Chromosome<>(executedTestCase);
-
-            FitnessUtils.storeTestCaseChromosomeFitness(chromosome);
-            CoverageUtils.storeTestCaseChromosomeCoverage(chromosome);
-            CoverageUtils.logChromosomeCoverage(chromosome);
-
-            return chromosome;
+            return executeDummy(testCase);
         }
 
         return new Chromosome<>(testCase);
     }
+
+    /**
+     * Executes the given dummy test case, e.g. an offspring created without executing its
+     * actions, and stores its fitness and coverage data.
+     *
+     * @param testCase The dummy test case.
+     * @return Returns the chromosome of the executed test case.
+     */
+    public static IChromosome<TestCase> executeDummy(TestCase testCase) {
+
+        TestCase executedTestCase = TestCase.fromDummy(testCase);
+        IChromosome<TestCase> chromosome = new Chromosome<>(executedTestCase);
+
+        MessageBatch batch = new MessageBatch();
+        FitnessUtils.storeTestCaseChromosomeFitness(chromosome, batch);
+        CoverageUtils.storeTestCaseChromosomeCoverage(chromosome, batch);
+        CoverageUtils.logChromosomeCoverage(chromosome, batch);
+        FitnessUtils.prefetchFitness(chromosome);
+        return chromosome;
+    }
 }
@@ -5,6 +5,7 @@ import org.mate.Properties;
 import org.mate.Registry;
 import org.mate.exploration.genetic.chromosome.Chromosome;
 import org.mate.exploration.genetic.chromosome.IChromosome;
+import org.mate.message.MessageBatch;
 import org.mate.model.TestCase;
 import org.mate.model.TestSuite;
 import org.mate.utils.Coverage;
@@ -41,7 +42,7 @@ public class UniformSuiteCrossoverFunction implements ICrossOverFunction<TestSui
         for (int i = 0; i < finalLength; i++) {
             int choice = Randomness.randomIndex(testCasePool);
             TestCase tcChoice = testCasePool.get(choice);
-            if (parents.get(0).getValue().getTestCases().contains(tcChoice)) {
+            if (t1.getTestCase(tcChoice.getId()) == tcChoice) {
                 copyTestCasesFromParent1.add(tcChoice);
             } else {
                 copyTestCasesFromParent2.add(tcChoice);
@@ -50,18 +51,23 @@ public class UniformSuiteCrossoverFunction implements ICrossOverFunction<TestSui
             testCasePool.remove(choice);
         }
 
+        MessageBatch batch = new MessageBatch();
+
         if (!copyTestCasesFromParent1.isEmpty()) {
             MATE.log_acc("With " + copyTestCasesFromParent1.size() + " test cases from first parent");
-            CoverageUtils.copyCoverageData(parents.get(0), offspring, copyTestCasesFromParent1);
-            FitnessUtils.copyFitnessData(parents.get(0), offspring, copyTestCasesFromParent1);
+            CoverageUtils.copyCoverageData(parents.get(0), offspring, copyTestCasesFromParent1, batch);
+            FitnessUtils.copyFitnessData(parents.get(0), offspring, copyTestCasesFromParent1, batch);
         }
 
         if (!copyTestCasesFromParent2.isEmpty()) {
             MATE.log_acc("and " + copyTestCasesFromParent2.size() + " test cases from second parent");
-            CoverageUtils.copyCoverageData(parents.get(1), offspring, copyTestCasesFromParent2);
-            FitnessUtils.copyFitnessData(parents.get(1), offspring, copyTestCasesFromParent2);
+            CoverageUtils.copyCoverageData(parents.get(1), offspring, copyTestCasesFromParent2, batch);
+            FitnessUtils.copyFitnessData(parents.get(1), offspring, copyTestCasesFromParent2, batch);
         }
 
+        Registry.getEnvironmentManager().sendBatch(batch);
+        FitnessUtils.prefetchFitness(offspring);
+
         return offspring;
     }
 }
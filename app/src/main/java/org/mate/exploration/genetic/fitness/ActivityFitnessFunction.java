@@ -8,6 +8,6 @@ public class ActivityFitnessFunction implements IFitnessFunction<TestCase> {
 
     @Override
     public double getFitness(IChromosome<TestCase> chromosome) {
-        return chromosome.getValue().getVisitedActivities().size();
+        return chromosome.getValue().getVisitedActivityIds().cardinality();
     }
 }
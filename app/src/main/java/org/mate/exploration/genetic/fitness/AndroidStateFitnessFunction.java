@@ -8,6 +8,6 @@ public class AndroidStateFitnessFunction implements IFitnessFunction<TestCase> {
 
     @Override
     public double getFitness(IChromosome<TestCase> chromosome) {
-        return chromosome.getValue().getVisitedStates().size();
+        return chromosome.getValue().getVisitedStateIds().cardinality();
     }
 }
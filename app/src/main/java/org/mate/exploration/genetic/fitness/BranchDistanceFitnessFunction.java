@@ -1,22 +1,17 @@
 package org.mate.exploration.genetic.fitness;
 
-import org.mate.MATE;
 import org.mate.exploration.genetic.chromosome.IChromosome;
 import org.mate.exploration.genetic.termination.ConditionalTerminationCondition;
 import org.mate.utils.FitnessUtils;
 
-import java.util.HashMap;
-import java.util.Map;
-
 public class BranchDistanceFitnessFunction<T> implements IFitnessFunction<T> {
 
     public static final String FITNESS_FUNCTION_ID = "branch_distance_fitness_function";
 
-    private Map<IChromosome<T>, Double> cache = new HashMap<>();
-
     /**
      * Retrieves the branch distance value for the given chromosome.
      * As a side effect terminates execution if target vertex is reached.
+     * The value is memoised by {@link FitnessUtils#getFitness(IChromosome)}.
      *
      * @param chromosome The chromosome for which the fitness value should be retrieved.
      * @return Returns the fitness value (branch distance) for the given chromosome.
@@ -24,15 +19,8 @@ public class BranchDistanceFitnessFunction<T> implements IFitnessFunction<T> {
     @Override
     public double getFitness(IChromosome<T> chromosome) {
 
-        double branchDistance;
+        double branchDistance = FitnessUtils.getFitness(chromosome);
 
-        if (cache.containsKey(chromosome)) {
-            MATE.log_acc("Accessing cache for retrieving fitness value!");
-            branchDistance = cache.get(chromosome);
-        } else {
-            branchDistance = FitnessUtils.getFitness(chromosome);
-        }
-        
         /*
         * TODO: This is a side effect, which is triggered multiple times, e.g. by logFitness().
         *  Additionally, the decision when a 'target' is satisfied might depend on the
@@ -44,9 +32,6 @@ public class BranchDistanceFitnessFunction<T> implements IFitnessFunction<T> {
             ConditionalTerminationCondition.satisfiedCondition();
         }
 
-        // cache fitness value for subsequent requests
-        cache.put(chromosome, branchDistance);
-
         return branchDistance;
     }
 }
@@ -1,13 +1,9 @@
 package org.mate.exploration.genetic.fitness;
 
+import org.mate.Properties;
 import org.mate.exploration.genetic.chromosome.IChromosome;
 import org.mate.utils.FitnessUtils;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
 /**
  * Evaluates the fitness value for a given test case as defined in:
  * "It Does Matter How You Normalise the Branch Distance in Search Based Software Testing"
@@ -18,15 +14,15 @@ public class BranchDistanceFitnessFunctionMultiObjective<T> implements IFitnessF
 
     public static final String FITNESS_FUNCTION_ID = "branch_distance_fitness_function_multi_objective";
 
-    // a cache that stores for each branch the set of test cases and its fitness value
-    private static final Map<String, Map<IChromosome, Double>> cache = new HashMap<>();
-
-    // all branches (shared by instances)
-    private static List<String> branches = new ArrayList<>();
+    // the branch distance vectors of the evaluated chromosomes (shared by instances)
+    private static FitnessCache cache;
 
     // the current branch we want to evaluate this fitness function against
     private final String branch;
 
+    // the index of the branch in the branch distance vector
+    private final int objectiveId;
+
     /**
      * Initialises the fitness function with the given branch as target.
      *
@@ -34,8 +30,7 @@ public class BranchDistanceFitnessFunctionMultiObjective<T> implements IFitnessF
      */
     public BranchDistanceFitnessFunctionMultiObjective(String branch) {
         this.branch = branch;
-        branches.add(branch);
-        cache.put(branch, new HashMap<IChromosome, Double>());
+        objectiveId = getCache().registerObjective(branch);
     }
 
     /**
@@ -48,22 +43,42 @@ public class BranchDistanceFitnessFunctionMultiObjective<T> implements IFitnessF
     @Override
     public double getFitness(IChromosome<T> chromosome) {
 
-        double branchDistance;
+        FitnessCache cache = getCache();
+        double[] branchDistanceVector = cache.getVector(chromosome);
+        if (branchDistanceVector == null) {
+            // the vector might be retrieved in the background right now
+            FitnessUtils.awaitFitness(chromosome);
+            branchDistanceVector = cache.getVector(chromosome);
+        }
 
-        if (cache.get(branch).containsKey(chromosome)) {
-            branchDistance = cache.get(branch).get(chromosome);
-        } else {
+        if (branchDistanceVector == null) {
             // retrieves the fitness value for every single branch
-            List<Double> branchDistanceVector = FitnessUtils.getFitness(chromosome, null);
+            branchDistanceVector = FitnessUtils.getFitness(chromosome, null);
+            cache.putVector(chromosome, branchDistanceVector);
+        }
 
-            // insert them into the cache
-            for (int i = 0; i < branchDistanceVector.size(); i++) {
-                cache.get(branches.get(i)).put(chromosome, branchDistanceVector.get(i));
-            }
+        return branchDistanceVector[objectiveId];
+    }
 
-            branchDistance = cache.get(branch).get(chromosome);
-        }
+    /**
+     * Returns the branch this fitness function targets.
+     *
+     * @return Returns the target branch.
+     */
+    public String getBranch() {
+        return branch;
+    }
 
-        return branchDistance;
+    /**
+     * Returns the cache of branch distance vectors, e.g. to monitor its live entries.
+     *
+     * @return Returns the shared fitness cache.
+     */
+    public static synchronized FitnessCache getCache() {
+        if (cache == null) {
+            // created on first use, since the properties aren't registered at class init
+            cache = new FitnessCache(Properties.FITNESS_CACHE_SIZE());
+        }
+        return cache;
     }
 }
@@ -0,0 +1,169 @@
+package org.mate.exploration.genetic.fitness;
+
+import org.mate.exploration.genetic.chromosome.IChromosome;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches the fitness vectors of chromosomes for multi-objective fitness functions, i.e. one
+ * fitness function instance per objective, e.g. branch or line, sharing a single cache.
+ * <p>
+ * Each objective is assigned a dense id in the order of registration, which is also the
+ * order of the fitness vectors retrieved from the MATE server. A fitness value is thus
+ * resolved by a single lookup of the chromosome's vector followed by an array access.
+ * The number of cached vectors is bounded, the least recently used vector is evicted first.
+ * <p>
+ * Chromosomes are referenced weakly and compared by identity, thus the vector of a chromosome
+ * that is no longer used by the algorithm, e.g. it didn't survive a generation, is dropped
+ * automatically once the chromosome has been garbage collected.
+ */
+public class FitnessCache {
+
+    private final Map<String, Integer> objectiveIds = new HashMap<>();
+    private final List<String> objectives = new ArrayList<>();
+    private final List<String> objectivesView = Collections.unmodifiableList(objectives);
+
+    private final int capacity;
+    private final LinkedHashMap<ChromosomeKey, double[]> vectors;
+
+    // receives the keys of garbage collected chromosomes
+    private final ReferenceQueue<IChromosome<?>> collectedChromosomes = new ReferenceQueue<>();
+
+    /**
+     * Initialises an empty cache.
+     *
+     * @param capacity The maximal number of cached fitness vectors.
+     */
+    public FitnessCache(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity of the fitness cache must be positive!");
+        }
+        this.capacity = capacity;
+        vectors = new LinkedHashMap<ChromosomeKey, double[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ChromosomeKey, double[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Registers an objective, e.g. a branch, if not yet registered.
+     *
+     * @param objective The objective.
+     * @return Returns the dense id of the objective, i.e. its index in the fitness vectors.
+     */
+    public synchronized int registerObjective(String objective) {
+        Integer id = objectiveIds.get(objective);
+        if (id == null) {
+            id = objectives.size();
+            objectives.add(objective);
+            objectiveIds.put(objective, id);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the registered objectives ordered by their id. The same view is returned on
+     * every call, such that the environment manager can recognise an already registered
+     * line set.
+     *
+     * @return Returns an unmodifiable view of the objectives.
+     */
+    public List<String> getObjectives() {
+        return objectivesView;
+    }
+
+    /**
+     * Looks up the fitness vector of the given chromosome.
+     *
+     * @param chromosome The chromosome.
+     * @return Returns the fitness vector indexed by objective id or {@code null} if the vector
+     *          is not cached. The vector must not be modified.
+     */
+    public synchronized double[] getVector(IChromosome<?> chromosome) {
+        expungeCollectedChromosomes();
+        return vectors.get(new ChromosomeKey(chromosome, null));
+    }
+
+    /**
+     * Caches the fitness vector of the given chromosome.
+     *
+     * @param chromosome The chromosome.
+     * @param vector The fitness vector indexed by objective id.
+     */
+    public synchronized void putVector(IChromosome<?> chromosome, double[] vector) {
+        if (vector.length != objectives.size()) {
+            throw new IllegalArgumentException("Expected fitness vector of length "
+                    + objectives.size() + " but got " + vector.length);
+        }
+        expungeCollectedChromosomes();
+        vectors.put(new ChromosomeKey(chromosome, collectedChromosomes), vector);
+    }
+
+    /**
+     * Removes the fitness vector of the given chromosome, e.g. because it is outdated.
+     *
+     * @param chromosome The chromosome.
+     */
+    public synchronized void invalidate(IChromosome<?> chromosome) {
+        vectors.remove(new ChromosomeKey(chromosome, null));
+    }
+
+    /**
+     * Returns the number of cached fitness vectors of chromosomes that are still alive.
+     *
+     * @return Returns the number of live entries.
+     */
+    public synchronized int getLiveEntries() {
+        expungeCollectedChromosomes();
+        return vectors.size();
+    }
+
+    private void expungeCollectedChromosomes() {
+        Reference<? extends IChromosome<?>> collected;
+        while ((collected = collectedChromosomes.poll()) != null) {
+            vectors.remove(collected);
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * A weak reference to a chromosome that compares by the identity of the chromosome.
+     * The hash code is retained, such that the key can be removed after the chromosome
+     * has been collected.
+     */
+    private static final class ChromosomeKey extends WeakReference<IChromosome<?>> {
+
+        private final int hashCode;
+
+        private ChromosomeKey(IChromosome<?> chromosome, ReferenceQueue<IChromosome<?>> queue) {
+            super(chromosome, queue);
+            hashCode = System.identityHashCode(chromosome);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ChromosomeKey)) return false;
+            IChromosome<?> chromosome = get();
+            return chromosome != null && chromosome == ((ChromosomeKey) o).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -1,78 +1,67 @@
 package org.mate.exploration.genetic.fitness;
 
 import org.mate.MATE;
+import org.mate.Properties;
 import org.mate.exploration.genetic.chromosome.IChromosome;
 import org.mate.model.TestCase;
 import org.mate.utils.FitnessUtils;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class LineCoveredPercentageFitnessFunction implements IFitnessFunction<TestCase> {
     public static final String FITNESS_FUNCTION_ID = "line_covered_percentage_fitness_function";
 
-    //todo: find better solution than static map... (i know its ugly)
-    private static final Map<String, Map<IChromosome<TestCase>, Double>> cache = new HashMap<>();
-    private static List<String> lines = new ArrayList<>();
+    // the covered percentages of the evaluated chromosomes (shared by instances)
+    private static FitnessCache cache;
     private final String line;
 
+    // the index of the line in the covered percentage vector
+    private final int objectiveId;
+
     public LineCoveredPercentageFitnessFunction(String line) {
         this.line = line;
-        lines.add(line);
+        objectiveId = getCache().registerObjective(line);
     }
 
     @Override
     public double getFitness(IChromosome<TestCase> chromosome) {
-        if (!cache.get(line).containsKey(chromosome)) {
-            throw new IllegalStateException("Fitness for chromosome " + chromosome + " not in cache. Must fetch fitness previously or performance reasons");
+        FitnessCache cache = getCache();
+        double[] coveredPercentage = cache.getVector(chromosome);
+        if (coveredPercentage == null) {
+            // the vector might be retrieved in the background right now
+            FitnessUtils.awaitFitness(chromosome);
+            coveredPercentage = cache.getVector(chromosome);
         }
-        return cache.get(line).get(chromosome);
-
+        if (coveredPercentage == null) {
+            // evicted or not yet retrieved
+            coveredPercentage = retrieveFitnessValues(chromosome);
+        }
+        return coveredPercentage[objectiveId];
     }
 
-    public static void retrieveFitnessValues(IChromosome<TestCase> chromosome) {
+    public static double[] retrieveFitnessValues(IChromosome<TestCase> chromosome) {
+        FitnessCache cache = getCache();
+        List<String> lines = cache.getObjectives();
         if (lines.size() == 0) {
-            return;
-        }
-
-        if (cache.size() == 0) {
-            for (String line : lines) {
-                cache.put(line, new HashMap<IChromosome<TestCase>, Double>());
-            }
+            return new double[0];
         }
 
         MATE.log_acc("retrieving fitness values for chromosome " + chromosome);
-        List<Double> coveredPercentage = FitnessUtils.getFitness(chromosome, lines);
-        for (int i = 0; i < coveredPercentage.size(); i++) {
-            cache.get(lines.get(i)).put(chromosome, coveredPercentage.get(i));
-        }
+        double[] coveredPercentage = FitnessUtils.getFitness(chromosome, lines);
+        cache.putVector(chromosome, coveredPercentage);
+        return coveredPercentage;
     }
 
     /**
-     * remove chromosome from cache that are no longer in use. (to avoid memory issues)
+     * Returns the cache of covered percentage vectors, e.g. to monitor its live entries.
+     *
+     * @return Returns the shared fitness cache.
      */
-    public static <T> void cleanCache(List<IChromosome<T>> activeChromosomesAnon) {
-        if (lines.size() == 0 || cache.size() == 0) {
-            return;
-        }
-
-        List<IChromosome<TestCase>> activeChromosomes = new ArrayList<>();
-        for (IChromosome<T> chromosome: activeChromosomesAnon) {
-            activeChromosomes.add((IChromosome<TestCase>) chromosome);
-        }
-
-        int count = 0;
-        for (String line : lines) {
-            Map<IChromosome<TestCase>, Double> lineCache =  cache.get(line);
-            for (IChromosome<TestCase> chromosome: new ArrayList<>(lineCache.keySet())) {
-                if (!activeChromosomes.contains(chromosome)) {
-                    lineCache.remove(chromosome);
-                    count++;
-                }
-            }
+    public static synchronized FitnessCache getCache() {
+        if (cache == null) {
+            // created on first use, since the properties aren't registered at class init
+            cache = new FitnessCache(Properties.FITNESS_CACHE_SIZE());
         }
-        MATE.log_acc("Cleaning cache: " + count + " inactive chromosome removed");
+        return cache;
     }
 }
@@ -1,6 +1,7 @@
 package org.mate.exploration.genetic.fitness;
 
 import org.mate.exploration.genetic.chromosome.IChromosome;
+import org.mate.model.SymbolTable;
 import org.mate.model.TestCase;
 
 public class SpecificActivityCoveredFitnessFunction implements IFitnessFunction<TestCase> {
@@ -13,7 +14,8 @@ public class SpecificActivityCoveredFitnessFunction implements IFitnessFunction<
 
     @Override
     public double getFitness(IChromosome<TestCase> chromosome) {
-        if (chromosome.getValue().getVisitedActivities().contains(activityName)) {
+        int activity = SymbolTable.ACTIVITIES.idOf(activityName);
+        if (activity >= 0 && chromosome.getValue().getVisitedActivityIds().get(activity)) {
             return 1;
         } else {
             return 0;
@@ -1,21 +1,14 @@
 package org.mate.exploration.genetic.fitness;
 
 import org.mate.exploration.genetic.chromosome.IChromosome;
-import org.mate.model.TestCase;
 import org.mate.model.TestSuite;
 
-import java.util.HashSet;
-import java.util.Set;
-
 public class SuiteActivityFitnessFunction implements IFitnessFunction<TestSuite> {
     public static final String FITNESS_FUNCTION_ID = "suite_fitness_function";
 
     @Override
     public double getFitness(IChromosome<TestSuite> chromosome) {
-        Set<String> activitiesCovered = new HashSet<>();
-        for (TestCase testCase : chromosome.getValue().getTestCases()) {
-            activitiesCovered.addAll(testCase.getVisitedActivities());
-        }
-        return activitiesCovered.size();
+        // the test suite maintains the union of the activities visited by its test cases
+        return chromosome.getValue().getVisitedActivityIds().cardinality();
     }
 }
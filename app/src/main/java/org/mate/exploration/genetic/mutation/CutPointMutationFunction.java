@@ -4,6 +4,7 @@ import org.mate.MATE;
 import org.mate.exploration.genetic.chromosome.Chromosome;
 import org.mate.exploration.genetic.chromosome.IChromosome;
 import org.mate.interaction.UIAbstractionLayer;
+import org.mate.message.MessageBatch;
 import org.mate.model.TestCase;
 import org.mate.ui.WidgetAction;
 import org.mate.utils.CoverageUtils;
@@ -66,9 +67,11 @@ public class CutPointMutationFunction implements IMutationFunction<TestCase> {
              * If we deal with a test suite execution, the storing of coverage
              * and fitness data is handled by the AndroidSuiteRandomChromosomeFactory itself.
              */
-            FitnessUtils.storeTestCaseChromosomeFitness(mutatedChromosome);
-            CoverageUtils.storeTestCaseChromosomeCoverage(mutatedChromosome);
-            CoverageUtils.logChromosomeCoverage(mutatedChromosome);
+            MessageBatch batch = new MessageBatch();
+            FitnessUtils.storeTestCaseChromosomeFitness(mutatedChromosome, batch);
+            CoverageUtils.storeTestCaseChromosomeCoverage(mutatedChromosome, batch);
+            CoverageUtils.logChromosomeCoverage(mutatedChromosome, batch);
+            FitnessUtils.prefetchFitness(mutatedChromosome);
         }
 
         return mutations;
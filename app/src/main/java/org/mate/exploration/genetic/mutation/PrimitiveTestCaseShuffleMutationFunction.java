@@ -3,6 +3,7 @@ package org.mate.exploration.genetic.mutation;
 import org.mate.MATE;
 import org.mate.exploration.genetic.chromosome.Chromosome;
 import org.mate.exploration.genetic.chromosome.IChromosome;
+import org.mate.message.MessageBatch;
 import org.mate.model.TestCase;
 import org.mate.ui.Action;
 import org.mate.utils.CoverageUtils;
@@ -26,9 +27,11 @@ public class PrimitiveTestCaseShuffleMutationFunction implements IMutationFuncti
         TestCase executedTestCase = TestCase.fromDummy(testCase);
         IChromosome<TestCase> mutatedChromosome = new Chromosome<>(executedTestCase);
 
-        FitnessUtils.storeTestCaseChromosomeFitness(mutatedChromosome);
-        CoverageUtils.storeTestCaseChromosomeCoverage(mutatedChromosome);
-        CoverageUtils.logChromosomeCoverage(mutatedChromosome);
+        MessageBatch batch = new MessageBatch();
+        FitnessUtils.storeTestCaseChromosomeFitness(mutatedChromosome, batch);
+        CoverageUtils.storeTestCaseChromosomeCoverage(mutatedChromosome, batch);
+        CoverageUtils.logChromosomeCoverage(mutatedChromosome, batch);
+        FitnessUtils.prefetchFitness(mutatedChromosome);
 
         MATE.log_acc("Found crash: " + chromosome.getValue().getCrashDetected());
 
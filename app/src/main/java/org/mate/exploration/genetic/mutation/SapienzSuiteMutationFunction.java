@@ -5,6 +5,7 @@ import org.mate.Registry;
 import org.mate.exploration.genetic.chromosome.Chromosome;
 import org.mate.exploration.genetic.chromosome.IChromosome;
 import org.mate.exploration.genetic.crossover.TestCaseMergeCrossOverFunction;
+import org.mate.message.MessageBatch;
 import org.mate.model.TestCase;
 import org.mate.model.TestSuite;
 import org.mate.utils.Coverage;
@@ -43,7 +44,6 @@ public class SapienzSuiteMutationFunction implements IMutationFunction<TestSuite
 
         List<TestCase> afterOnePointCrossover = new ArrayList<>();
         List<TestCase> afterInternalMutation = new ArrayList<>();
-        List<TestCase> executedTestCases = new ArrayList<>();
 
         if (oldTestCases.size() > 1) {
             for (int i = 1; i < oldTestCases.size(); i += 2) {
@@ -83,14 +83,16 @@ public class SapienzSuiteMutationFunction implements IMutationFunction<TestSuite
         for (TestCase testCase : afterInternalMutation) {
             if (testCase.getId().equals("dummy")) {
                 TestCase mutatedTestCase = TestCase.fromDummy(testCase);
-                executedTestCases.add(mutatedTestCase);
+                // the suite aggregates are needed when storing the coverage of the test case
+                mutatedTestSuite.getTestCases().add(mutatedTestCase);
 
-                FitnessUtils.storeTestSuiteChromosomeFitness(mutatedChromosome, mutatedTestCase.toString());
-                CoverageUtils.storeTestSuiteChromosomeCoverage(mutatedChromosome, mutatedTestCase.toString());
-                CoverageUtils.logChromosomeCoverage(mutatedChromosome);
+                MessageBatch batch = new MessageBatch();
+                FitnessUtils.storeTestSuiteChromosomeFitness(mutatedChromosome, mutatedTestCase.toString(), batch);
+                CoverageUtils.storeTestSuiteChromosomeCoverage(mutatedChromosome, mutatedTestCase.toString(), batch);
+                CoverageUtils.logChromosomeCoverage(mutatedChromosome, batch);
 
             } else {
-                executedTestCases.add(testCase);
+                mutatedTestSuite.getTestCases().add(testCase);
                 if (Properties.COVERAGE() != Coverage.NO_COVERAGE) {
                     copyTestCases.add(testCase);
                 }
@@ -98,11 +100,13 @@ public class SapienzSuiteMutationFunction implements IMutationFunction<TestSuite
         }
 
         if (!copyTestCases.isEmpty()) {
-            CoverageUtils.copyCoverageData(chromosome, mutatedChromosome, copyTestCases);
-            FitnessUtils.copyFitnessData(chromosome, mutatedChromosome, copyTestCases);
+            MessageBatch batch = new MessageBatch();
+            CoverageUtils.copyCoverageData(chromosome, mutatedChromosome, copyTestCases, batch);
+            FitnessUtils.copyFitnessData(chromosome, mutatedChromosome, copyTestCases, batch);
+            Registry.getEnvironmentManager().sendBatch(batch);
         }
 
-        mutatedTestSuite.getTestCases().addAll(executedTestCases);
+        FitnessUtils.prefetchFitness(mutatedChromosome);
 
         return mutations;
     }
@@ -3,6 +3,7 @@ package org.mate.exploration.genetic.mutation;
 import org.mate.Registry;
 import org.mate.exploration.genetic.chromosome.Chromosome;
 import org.mate.exploration.genetic.chromosome.IChromosome;
+import org.mate.message.MessageBatch;
 import org.mate.model.TestCase;
 import org.mate.model.TestSuite;
 import org.mate.utils.CoverageUtils;
@@ -33,9 +34,11 @@ public class SuiteCutPointMutationFunction implements IMutationFunction<TestSuit
         List<TestCase> copyCoverageDataFor = new ArrayList<>(chromosome.getValue().getTestCases());
         copyCoverageDataFor.remove(randomElementIndex);
 
+        // the copy requests are sent along with the requests for the mutated test case
+        MessageBatch batch = new MessageBatch();
         if (!copyCoverageDataFor.isEmpty()) {
-            CoverageUtils.copyCoverageData(chromosome, mutatedChromosome, copyCoverageDataFor);
-            FitnessUtils.copyFitnessData(chromosome, mutatedChromosome, copyCoverageDataFor);
+            CoverageUtils.copyCoverageData(chromosome, mutatedChromosome, copyCoverageDataFor, batch);
+            FitnessUtils.copyFitnessData(chromosome, mutatedChromosome, copyCoverageDataFor, batch);
         }
 
         //Todo: handle coverage
@@ -45,13 +48,14 @@ public class SuiteCutPointMutationFunction implements IMutationFunction<TestSuit
                         chromosome.getValue().getTestCases().get(i))).get(0).getValue();
                 mutatedTestSuite.getTestCases().add(mutatedTestCase);
 
-                FitnessUtils.storeTestSuiteChromosomeFitness(mutatedChromosome, mutatedTestCase.toString());
-                CoverageUtils.storeTestSuiteChromosomeCoverage(mutatedChromosome, mutatedTestCase.toString());
-                CoverageUtils.logChromosomeCoverage(mutatedChromosome);
+                FitnessUtils.storeTestSuiteChromosomeFitness(mutatedChromosome, mutatedTestCase.toString(), batch);
+                CoverageUtils.storeTestSuiteChromosomeCoverage(mutatedChromosome, mutatedTestCase.toString(), batch);
+                CoverageUtils.logChromosomeCoverage(mutatedChromosome, batch);
             } else {
                 mutatedTestSuite.getTestCases().add(chromosome.getValue().getTestCases().get(i));
             }
         }
+        FitnessUtils.prefetchFitness(mutatedChromosome);
         return Arrays.asList(mutatedChromosome);
     }
 }
@@ -18,12 +18,19 @@ public class FitnessSelectionFunction<T> implements ISelectionFunction<T> {
 
     @Override
     public List<IChromosome<T>> select(List<IChromosome<T>> population, final List<IFitnessFunction<T>> fitnessFunctions) {
-        List<IChromosome<T>> list = new ArrayList<>(population);
-        Collections.sort(list, new Comparator<IChromosome<T>>() {
+        // evaluate each chromosome once instead of on every comparison
+        IFitnessFunction<T> fitnessFunction = fitnessFunctions.get(0);
+        final double[] fitness = new double[population.size()];
+        List<Integer> indices = new ArrayList<>(population.size());
+        for (int i = 0; i < population.size(); i++) {
+            fitness[i] = fitnessFunction.getFitness(population.get(i));
+            indices.add(i);
+        }
+
+        Collections.sort(indices, new Comparator<Integer>() {
             @Override
-            public int compare(IChromosome<T> o1, IChromosome<T> o2) {
-                double c = fitnessFunctions.get(0).getFitness(o1)
-                           - fitnessFunctions.get(0).getFitness(o2);
+            public int compare(Integer o1, Integer o2) {
+                double c = fitness[o1] - fitness[o2];
                 if (c > 0) {
                     return 1;
                 } else if (c < 0) {
@@ -32,6 +39,11 @@ public class FitnessSelectionFunction<T> implements ISelectionFunction<T> {
                 return 0;
             }
         });
+
+        List<IChromosome<T>> list = new ArrayList<>(population.size());
+        for (int index : indices) {
+            list.add(population.get(index));
+        }
         return list;
     }
 }
@@ -8,6 +8,7 @@ import org.mate.exploration.genetic.chromosome_factory.AndroidRandomChromosomeFa
 import org.mate.interaction.intent.ComponentDescription;
 import org.mate.interaction.intent.ComponentType;
 import org.mate.interaction.intent.IntentProvider;
+import org.mate.message.MessageBatch;
 import org.mate.model.TestCase;
 import org.mate.ui.Action;
 import org.mate.utils.CoverageUtils;
@@ -127,9 +128,11 @@ public class IntentChromosomeFactory extends AndroidRandomChromosomeFactory {
                  * If we deal with a test suite execution, the storing of coverage
                  * and fitness data is handled by the AndroidSuiteRandomChromosomeFactory itself.
                  */
-                FitnessUtils.storeTestCaseChromosomeFitness(chromosome);
-                CoverageUtils.storeTestCaseChromosomeCoverage(chromosome);
-                CoverageUtils.logChromosomeCoverage(chromosome);
+                MessageBatch batch = new MessageBatch();
+                FitnessUtils.storeTestCaseChromosomeFitness(chromosome, batch);
+                CoverageUtils.storeTestCaseChromosomeCoverage(chromosome, batch);
+                CoverageUtils.logChromosomeCoverage(chromosome, batch);
+                FitnessUtils.prefetchFitness(chromosome);
             }
             testCase.finish();
         }
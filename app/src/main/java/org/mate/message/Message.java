@@ -7,6 +7,7 @@ import java.util.Objects;
 public class Message {
     private final String subject;
     private final Map<String, String> parameters;
+    private final Map<String, JoinedValue> joinedParameters;
 
     public Message(String subject) {
         if (subject == null) {
@@ -14,6 +15,7 @@ public class Message {
         }
         this.subject = subject;
         this.parameters = new HashMap<>();
+        this.joinedParameters = new HashMap<>();
     }
 
     public void addParameter(String key, String value) {
@@ -23,14 +25,38 @@ public class Message {
         parameters.put(key, value);
     }
 
+    /**
+     * Adds a parameter whose value is the string representation of the given elements joined
+     * by the separator. The joined string is not built upfront, instead the elements are
+     * written one by one when the message is serialized.
+     *
+     * @param key The parameter key.
+     * @param elements The elements of the value.
+     * @param separator The separator between two elements.
+     */
+    public void addJoinedParameter(String key, Iterable<?> elements, char separator) {
+        if (key == null || elements == null) {
+            throw new IllegalArgumentException("Parameter key and value must not be null");
+        }
+        joinedParameters.put(key, new JoinedValue(elements, separator));
+    }
+
     public String getParameter(String key) {
-        return parameters.get(key);
+        String value = parameters.get(key);
+        if (value == null && joinedParameters.containsKey(key)) {
+            return joinedParameters.get(key).toString();
+        }
+        return value;
     }
 
     public Map<String, String> getParameters() {
         return parameters;
     }
 
+    public Map<String, JoinedValue> getJoinedParameters() {
+        return joinedParameters;
+    }
+
     public String getSubject() {
         return subject;
     }
@@ -41,12 +67,65 @@ public class Message {
         if (o == null || getClass() != o.getClass()) return false;
         Message message = (Message) o;
         return subject.equals(message.subject) &&
-                parameters.equals(message.parameters);
+                parameters.equals(message.parameters) &&
+                joinedParameters.equals(message.joinedParameters);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(subject, parameters);
+        return Objects.hash(subject, parameters, joinedParameters);
+    }
+
+    /**
+     * The value of a parameter consisting of several elements joined by a separator.
+     */
+    public static class JoinedValue {
+        private final Iterable<?> elements;
+        private final char separator;
+
+        private JoinedValue(Iterable<?> elements, char separator) {
+            this.elements = elements;
+            this.separator = separator;
+        }
+
+        public Iterable<?> getElements() {
+            return elements;
+        }
+
+        public char getSeparator() {
+            return separator;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return toString().equals(o.toString());
+        }
+
+        @Override
+        public int hashCode() {
+            return toString().hashCode();
+        }
+
+        /**
+         * Joins the elements.
+         *
+         * @return Returns the joined value.
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            boolean first = true;
+            for (Object element : elements) {
+                if (!first) {
+                    sb.append(separator);
+                }
+                sb.append(element);
+                first = false;
+            }
+            return sb.toString();
+        }
     }
 
     public static class MessageBuilder {
@@ -61,6 +140,11 @@ public class Message {
             return this;
         }
 
+        public MessageBuilder withJoinedParameter(String key, Iterable<?> elements, char separator) {
+            message.addJoinedParameter(key, elements, separator);
+            return this;
+        }
+
         public Message build() {
             return message;
         }
@@ -0,0 +1,112 @@
+package org.mate.message;
+
+import org.mate.message.serialization.Parser;
+import org.mate.message.serialization.Serializer;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mate.message.serialization.Lexer.CHARSET;
+
+/**
+ * Collects several {@link Message}s that are sent to the MATE server within a single
+ * {@code /batch} message. The server processes the messages in the given order and answers
+ * with a {@code /batch} message containing the responses in the same order.
+ * <p>
+ * Each message is embedded as parameter {@code message_<i>} in the text format, the number
+ * of embedded messages is given by the parameter {@code count}.
+ */
+public class MessageBatch {
+
+    public static final String SUBJECT = "/batch";
+    private static final String COUNT_KEY = "count";
+    private static final String MESSAGE_KEY_PREFIX = "message_";
+
+    private final List<Message> messages = new ArrayList<>();
+
+    /**
+     * Appends a message to the batch.
+     *
+     * @param message The message to be added.
+     * @return Returns the index of the message's response in the list of responses.
+     */
+    public int add(Message message) {
+        messages.add(message);
+        return messages.size() - 1;
+    }
+
+    /**
+     * Returns the messages of the batch in the order they have been added.
+     *
+     * @return Returns an unmodifiable view of the messages.
+     */
+    public List<Message> getMessages() {
+        return Collections.unmodifiableList(messages);
+    }
+
+    public int size() {
+        return messages.size();
+    }
+
+    public boolean isEmpty() {
+        return messages.isEmpty();
+    }
+
+    /**
+     * Removes all messages from the batch, such that it can be reused.
+     */
+    public void clear() {
+        messages.clear();
+    }
+
+    /**
+     * Packs the messages of the batch into a single {@code /batch} message.
+     *
+     * @return Returns the message representing the batch.
+     */
+    public Message toMessage() {
+        return pack(messages);
+    }
+
+    /**
+     * Packs the given messages into a single {@code /batch} message. Joined parameters of the
+     * messages are packed along with the plain ones.
+     *
+     * @param messages The messages to be packed.
+     * @return Returns the message representing the batch.
+     */
+    public static Message pack(List<Message> messages) {
+        Message.MessageBuilder builder = new Message.MessageBuilder(SUBJECT)
+                .withParameter(COUNT_KEY, String.valueOf(messages.size()));
+        for (int i = 0; i < messages.size(); i++) {
+            builder.withParameter(MESSAGE_KEY_PREFIX + i,
+                    new String(Serializer.serialize(messages.get(i)), CHARSET));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Unpacks the messages contained in a {@code /batch} message.
+     *
+     * @param batch The {@code /batch} message, e.g. the response of the server.
+     * @return Returns the contained messages in order.
+     */
+    public static List<Message> unpack(Message batch) {
+        if (!SUBJECT.equals(batch.getSubject())) {
+            throw new IllegalStateException("Expected batch message, but got: " + batch.getSubject());
+        }
+
+        int count = Integer.parseInt(batch.getParameter(COUNT_KEY));
+        List<Message> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String serialized = batch.getParameter(MESSAGE_KEY_PREFIX + i);
+            if (serialized == null) {
+                throw new IllegalStateException("Batch message lacks message " + i + " of " + count);
+            }
+            messages.add(new Parser(new ByteArrayInputStream(serialized.getBytes(CHARSET))).nextMessage());
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,260 @@
+package org.mate.message.serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.mate.message.serialization.Lexer.CHARSET;
+import static org.mate.message.serialization.Lexer.END_MESSAGE_CHAR;
+import static org.mate.message.serialization.Lexer.END_PARAMETER_CHAR;
+import static org.mate.message.serialization.Lexer.ESCAPE_CHAR;
+import static org.mate.message.serialization.Lexer.RELATION_SEPARATOR_CHAR;
+
+/**
+ * A lexer for the MATE message format that operates on a reusable byte buffer instead of
+ * reading the input stream char by char. The delimiters of the message format are all ASCII
+ * characters, which never occur inside a multi-byte UTF-8 sequence. Thus, the buffer can be
+ * scanned for delimiters byte-wise and only the spans in between are decoded.
+ * <p>
+ * In contrast to {@link Lexer}, no tokens are produced. Instead, the {@link Parser} pulls the
+ * subject, keys and values one after another and checks via {@link #endsMessage()} whether the
+ * last value terminated the current message.
+ * <p>
+ * The lexer also provides the primitives for reading the length-prefixed binary format (v2),
+ * such that the {@link Parser} can switch formats without losing already buffered input.
+ */
+public class BufferedLexer {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final InputStream in;
+    private final byte[] buffer;
+    private int position = 0;
+    private int limit = 0;
+
+    // the number of bytes read from the input stream so far
+    private long bytesFilled = 0;
+
+    // collects the unescaped bytes of a value that spans multiple buffer fills or contains escapes
+    private byte[] scratch = new byte[DEFAULT_BUFFER_SIZE];
+    private int scratchLength = 0;
+
+    // whether the last lexed subject or value was terminated by END_MESSAGE_CHAR
+    private boolean endsMessage = false;
+
+    public BufferedLexer(InputStream in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    public BufferedLexer(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Lexes the subject of the next message.
+     *
+     * @return Returns the unescaped subject.
+     */
+    public String nextSubject() {
+        return lexValue(Lexer.Type.SUBJECT);
+    }
+
+    /**
+     * Lexes the next parameter key including the following relation separator.
+     *
+     * @return Returns the unescaped parameter key.
+     */
+    public String nextKey() {
+        return lexValue(Lexer.Type.PARAM_KEY);
+    }
+
+    /**
+     * Lexes the next parameter value including the following parameter or message delimiter.
+     *
+     * @return Returns the unescaped parameter value.
+     */
+    public String nextValue() {
+        return lexValue(Lexer.Type.VALUE);
+    }
+
+    /**
+     * Returns whether the last subject or value was terminated by the end of the message.
+     *
+     * @return Returns {@code true} if the current message has been read completely.
+     */
+    public boolean endsMessage() {
+        return endsMessage;
+    }
+
+    private String lexValue(Lexer.Type type) {
+        scratchLength = 0;
+        endsMessage = false;
+
+        while (true) {
+            if (position == limit) {
+                fill();
+            }
+
+            int start = position;
+            int end = start;
+            byte delimiter = 0;
+
+            // scan the current buffer content for the next delimiter
+            while (end < limit) {
+                byte b = buffer[end];
+                if (b == ESCAPE_CHAR || b == END_PARAMETER_CHAR
+                        || b == RELATION_SEPARATOR_CHAR || b == END_MESSAGE_CHAR) {
+                    delimiter = b;
+                    break;
+                }
+                end++;
+            }
+
+            if (end == limit) {
+                // no delimiter within the buffer, save span and refill
+                appendToScratch(start, end - start);
+                position = limit;
+                continue;
+            }
+
+            position = end + 1;
+
+            if (delimiter == ESCAPE_CHAR) {
+                appendToScratch(start, end - start);
+                if (position == limit) {
+                    fill();
+                }
+                appendToScratch(position, 1);
+                position++;
+                continue;
+            }
+
+            checkDelimiter(type, delimiter);
+            endsMessage = delimiter == END_MESSAGE_CHAR;
+
+            if (scratchLength == 0) {
+                // fast path: the whole value is contained in the buffer without any escapes
+                return new String(buffer, start, end - start, CHARSET);
+            }
+            appendToScratch(start, end - start);
+            return new String(scratch, 0, scratchLength, CHARSET);
+        }
+    }
+
+    private void checkDelimiter(Lexer.Type type, byte delimiter) {
+        if (delimiter == END_MESSAGE_CHAR && type == Lexer.Type.PARAM_KEY) {
+            throw new IllegalStateException(
+                    "Illegal END_MESSAGE_CHAR encountered while lexing parameter key");
+        } else if (delimiter == END_PARAMETER_CHAR && type == Lexer.Type.PARAM_KEY) {
+            throw new IllegalStateException(
+                    "Illegal END_PARAMETER_CHAR encountered while lexing parameter key");
+        } else if (delimiter == RELATION_SEPARATOR_CHAR && type != Lexer.Type.PARAM_KEY) {
+            throw new IllegalStateException(
+                    "Illegal RELATION_SEPARATOR_CHAR encountered while lexing non parameter key");
+        }
+    }
+
+    private void appendToScratch(int offset, int length) {
+        if (length == 0) {
+            return;
+        }
+        if (scratchLength + length > scratch.length) {
+            byte[] grown = new byte[Math.max(scratch.length * 2, scratchLength + length)];
+            System.arraycopy(scratch, 0, grown, 0, scratchLength);
+            scratch = grown;
+        }
+        System.arraycopy(buffer, offset, scratch, scratchLength, length);
+        scratchLength += length;
+    }
+
+    private void fill() {
+        int read;
+        try {
+            read = in.read(buffer, 0, buffer.length);
+        } catch (IOException e) {
+            throw new IllegalStateException(
+                    "Lexing value failed: IO error while reading from input: " + e.getLocalizedMessage());
+        }
+        if (read == -1) {
+            throw new IllegalStateException("Lexing value failed: unexpected EOF");
+        }
+        position = 0;
+        limit = read;
+        bytesFilled += read;
+    }
+
+    /**
+     * Returns the number of bytes consumed so far. Bytes that have been read ahead into the
+     * buffer but not lexed yet are not included.
+     *
+     * @return Returns the number of consumed bytes.
+     */
+    long getBytesRead() {
+        return bytesFilled - (limit - position);
+    }
+
+    /**
+     * Reads a big-endian 32 bit integer, e.g. the length prefix of a binary frame.
+     *
+     * @return Returns the read integer.
+     */
+    int readInt() {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | readByte();
+        }
+        return value;
+    }
+
+    /**
+     * Reads an unsigned LEB128 encoded integer.
+     *
+     * @return Returns the decoded integer.
+     */
+    int readVarint() {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint in binary message");
+    }
+
+    /**
+     * Reads and decodes a UTF-8 string of the given byte length.
+     *
+     * @param length The length of the encoded string in bytes.
+     * @return Returns the decoded string.
+     */
+    String readString(int length) {
+        if (position == limit && length > 0) {
+            fill();
+        }
+        if (limit - position >= length) {
+            // fast path: the string is contained in the buffer
+            String value = new String(buffer, position, length, CHARSET);
+            position += length;
+            return value;
+        }
+
+        scratchLength = 0;
+        while (scratchLength < length) {
+            if (position == limit) {
+                fill();
+            }
+            int chunk = Math.min(length - scratchLength, limit - position);
+            appendToScratch(position, chunk);
+            position += chunk;
+        }
+        return new String(scratch, 0, scratchLength, CHARSET);
+    }
+
+    private int readByte() {
+        if (position == limit) {
+            fill();
+        }
+        return buffer[position++] & 0xFF;
+    }
+}
@@ -0,0 +1,297 @@
+package org.mate.message.serialization;
+
+import org.mate.message.Message;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.mate.message.serialization.Lexer.END_MESSAGE_CHAR;
+import static org.mate.message.serialization.Lexer.END_PARAMETER_CHAR;
+import static org.mate.message.serialization.Lexer.ESCAPE_CHAR;
+import static org.mate.message.serialization.Lexer.RELATION_SEPARATOR_CHAR;
+
+/**
+ * Serializes messages directly into a reusable byte buffer, which is written to the
+ * underlying output stream once it is full or the message is complete. Escaping and UTF-8
+ * encoding happen char by char, thus no intermediate strings or arrays are allocated.
+ * <p>
+ * Metadata is passed separately from the message and the values of joined parameters
+ * (see {@link Message#addJoinedParameter(String, Iterable, char)}) are written element
+ * by element.
+ */
+public class MessageWriter {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final byte REPLACEMENT_BYTE = '?';
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position = 0;
+    private boolean binaryFormat = false;
+
+    // the number of bytes handed over to the output stream so far
+    private long bytesWritten = 0;
+
+    public MessageWriter(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    public MessageWriter(OutputStream out, int bufferSize) {
+        if (bufferSize < 4) {
+            throw new IllegalArgumentException("Buffer size must be at least 4 bytes!");
+        }
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Switches the writer to the length-prefixed binary format (message protocol v2) for all
+     * subsequent messages. See {@link Serializer#serializeBinary(Message)} for the format.
+     */
+    public void useBinaryFormat() {
+        binaryFormat = true;
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     *
+     * @return Returns the number of written bytes.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Writes and flushes the given message.
+     *
+     * @param message The message to be written.
+     * @throws IOException If writing to the output stream fails.
+     */
+    public void writeMessage(Message message) throws IOException {
+        writeMessage(message, Collections.<String, String>emptyMap());
+    }
+
+    /**
+     * Writes and flushes the given message extended by the given metadata parameters.
+     *
+     * @param message The message to be written.
+     * @param metadata Additional parameters, which are not part of the message itself.
+     * @throws IOException If writing to the output stream fails.
+     */
+    public void writeMessage(Message message, Map<String, String> metadata) throws IOException {
+        if (binaryFormat) {
+            writeBinaryMessage(message, metadata);
+        } else {
+            writeTextMessage(message, metadata);
+        }
+        flush();
+    }
+
+    private void writeTextMessage(Message message, Map<String, String> metadata) throws IOException {
+        writeEscaped(message.getSubject());
+        for (Map.Entry<String, String> parameter : message.getParameters().entrySet()) {
+            writeTextParameter(parameter.getKey(), parameter.getValue());
+        }
+        for (Map.Entry<String, Message.JoinedValue> parameter : message.getJoinedParameters().entrySet()) {
+            writeTextParameter(parameter.getKey(), null);
+            writeJoined(parameter.getValue(), true);
+        }
+        for (Map.Entry<String, String> parameter : metadata.entrySet()) {
+            writeTextParameter(parameter.getKey(), parameter.getValue());
+        }
+        writeByte(END_MESSAGE_CHAR);
+    }
+
+    private void writeTextParameter(String key, String value) throws IOException {
+        writeByte(END_PARAMETER_CHAR);
+        writeEscaped(key);
+        writeByte(RELATION_SEPARATOR_CHAR);
+        if (value != null) {
+            writeEscaped(value);
+        }
+    }
+
+    private void writeBinaryMessage(Message message, Map<String, String> metadata) throws IOException {
+        Map<String, Message.JoinedValue> joinedParameters = message.getJoinedParameters();
+        int parameterCount = message.getParameters().size() + joinedParameters.size() + metadata.size();
+
+        // the payload length is required upfront
+        int length = stringSize(message.getSubject()) + varintSize(parameterCount);
+        for (Map.Entry<String, String> parameter : message.getParameters().entrySet()) {
+            length += stringSize(parameter.getKey()) + stringSize(parameter.getValue());
+        }
+        for (Map.Entry<String, Message.JoinedValue> parameter : joinedParameters.entrySet()) {
+            int valueLength = joinedLength(parameter.getValue());
+            length += stringSize(parameter.getKey()) + varintSize(valueLength) + valueLength;
+        }
+        for (Map.Entry<String, String> parameter : metadata.entrySet()) {
+            length += stringSize(parameter.getKey()) + stringSize(parameter.getValue());
+        }
+
+        writeByte(length >>> 24);
+        writeByte(length >>> 16);
+        writeByte(length >>> 8);
+        writeByte(length);
+
+        writeString(message.getSubject());
+        writeVarint(parameterCount);
+        for (Map.Entry<String, String> parameter : message.getParameters().entrySet()) {
+            writeString(parameter.getKey());
+            writeString(parameter.getValue());
+        }
+        for (Map.Entry<String, Message.JoinedValue> parameter : joinedParameters.entrySet()) {
+            writeString(parameter.getKey());
+            writeVarint(joinedLength(parameter.getValue()));
+            writeJoined(parameter.getValue(), false);
+        }
+        for (Map.Entry<String, String> parameter : metadata.entrySet()) {
+            writeString(parameter.getKey());
+            writeString(parameter.getValue());
+        }
+    }
+
+    private void writeJoined(Message.JoinedValue value, boolean escaped) throws IOException {
+        boolean first = true;
+        for (Object element : value.getElements()) {
+            if (!first) {
+                writeChar(value.getSeparator(), escaped);
+            }
+            writeChars(String.valueOf(element), escaped);
+            first = false;
+        }
+    }
+
+    private void writeEscaped(String value) throws IOException {
+        writeChars(value, true);
+    }
+
+    private void writeString(String value) throws IOException {
+        writeVarint(utf8Length(value));
+        writeChars(value, false);
+    }
+
+    private void writeChars(String value, boolean escaped) throws IOException {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                writeCodePoint(Character.toCodePoint(c, value.charAt(++i)));
+            } else {
+                writeChar(c, escaped);
+            }
+        }
+    }
+
+    private void writeChar(char c, boolean escaped) throws IOException {
+        if (position + 3 > buffer.length) {
+            flushBuffer();
+        }
+        if (c < 0x80) {
+            if (escaped && (c == ESCAPE_CHAR || c == END_PARAMETER_CHAR
+                    || c == END_MESSAGE_CHAR || c == RELATION_SEPARATOR_CHAR)) {
+                buffer[position++] = (byte) ESCAPE_CHAR;
+            }
+            buffer[position++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (c >> 6));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            // unpaired surrogate, replaced like String#getBytes does
+            buffer[position++] = REPLACEMENT_BYTE;
+        } else {
+            buffer[position++] = (byte) (0xE0 | (c >> 12));
+            buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    private void writeCodePoint(int codePoint) throws IOException {
+        if (position + 4 > buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+        buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+    }
+
+    private void writeVarint(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        bytesWritten += position;
+        position = 0;
+    }
+
+    private void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    private static int joinedLength(Message.JoinedValue value) {
+        int length = 0;
+        boolean first = true;
+        for (Object element : value.getElements()) {
+            if (!first) {
+                length += utf8Length(String.valueOf(value.getSeparator()));
+            }
+            length += utf8Length(String.valueOf(element));
+            first = false;
+        }
+        return length;
+    }
+
+    private static int stringSize(String value) {
+        int length = utf8Length(value);
+        return varintSize(length) + length;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Computes the length of the UTF-8 encoding of the given string without encoding it.
+     */
+    private static int utf8Length(String value) {
+        int length = value.length();
+        int bytes = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
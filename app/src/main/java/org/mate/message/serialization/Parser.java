@@ -7,12 +7,66 @@ import java.util.Iterator;
 
 public class Parser {
     private final Lexer lexer;
-
+    private final BufferedLexer bufferedLexer;
+    private boolean binaryFormat = false;
+
+    /**
+     * Initialises a parser reading from the given input stream using the {@link BufferedLexer}.
+     *
+     * @param in The input stream.
+     */
     public Parser(InputStream in) {
-        lexer = new Lexer(in);
+        this(in, true);
+    }
+
+    /**
+     * Initialises a parser reading from the given input stream.
+     *
+     * @param in The input stream.
+     * @param buffered Whether the {@link BufferedLexer} or the token based {@link Lexer}
+     *                 should be used.
+     */
+    public Parser(InputStream in, boolean buffered) {
+        if (buffered) {
+            lexer = null;
+            bufferedLexer = new BufferedLexer(in);
+        } else {
+            lexer = new Lexer(in);
+            bufferedLexer = null;
+        }
+    }
+
+    /**
+     * Switches the parser to the length-prefixed binary format (message protocol v2) for all
+     * subsequent messages. See {@link Serializer#serializeBinary(Message)} for the format.
+     */
+    public void useBinaryFormat() {
+        if (bufferedLexer == null) {
+            throw new IllegalStateException("The binary message format requires the buffered lexer!");
+        }
+        binaryFormat = true;
+    }
+
+    /**
+     * Returns the number of bytes consumed by the parsed messages so far.
+     *
+     * @return Returns the number of consumed bytes.
+     */
+    public long getBytesRead() {
+        if (bufferedLexer == null) {
+            throw new IllegalStateException("Counting the read bytes requires the buffered lexer!");
+        }
+        return bufferedLexer.getBytesRead();
     }
 
     public Message nextMessage() {
+        if (binaryFormat) {
+            return nextBinaryMessage();
+        }
+        if (bufferedLexer != null) {
+            return nextBufferedMessage();
+        }
+
         Iterator<Lexer.Token> tokenIterator = lexer.lexMessage().iterator();
 
         Lexer.Token currentToken = tokenIterator.next();
@@ -64,4 +118,54 @@ public class Parser {
 
         return messageBuilder.build();
     }
+
+    /**
+     * Parses the next message by pulling the subject, keys and values directly from the
+     * {@link BufferedLexer}, i.e. without an intermediate token list.
+     *
+     * @return Returns the parsed message.
+     */
+    private Message nextBufferedMessage() {
+        Message.MessageBuilder messageBuilder
+                = new Message.MessageBuilder(bufferedLexer.nextSubject());
+
+        while (!bufferedLexer.endsMessage()) {
+            String paramKey = bufferedLexer.nextKey();
+            messageBuilder.withParameter(paramKey, bufferedLexer.nextValue());
+        }
+
+        return messageBuilder.build();
+    }
+
+    /**
+     * Parses the next length-prefixed binary message. Since each string is prefixed by its
+     * length, values are read without scanning for delimiters or unescaping.
+     *
+     * @return Returns the parsed message.
+     */
+    private Message nextBinaryMessage() {
+        int frameLength = bufferedLexer.readInt();
+        if (frameLength < 0) {
+            throw new IllegalStateException("Illegal frame length: " + frameLength);
+        }
+        long frameStart = bufferedLexer.getBytesRead();
+
+        Message.MessageBuilder messageBuilder
+                = new Message.MessageBuilder(bufferedLexer.readString(bufferedLexer.readVarint()));
+        int parameterCount = bufferedLexer.readVarint();
+
+        for (int i = 0; i < parameterCount; i++) {
+            String paramKey = bufferedLexer.readString(bufferedLexer.readVarint());
+            messageBuilder.withParameter(paramKey, bufferedLexer.readString(bufferedLexer.readVarint()));
+        }
+
+        // a payload of another length means the stream is out of sync with the frames
+        long payloadLength = bufferedLexer.getBytesRead() - frameStart;
+        if (payloadLength != frameLength) {
+            throw new IllegalStateException("Frame length " + frameLength + " doesn't match the payload of "
+                    + payloadLength + " bytes");
+        }
+
+        return messageBuilder.build();
+    }
 }
@@ -2,7 +2,8 @@ package org.mate.message.serialization;
 
 import org.mate.message.Message;
 
-import java.util.Map;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 
 import static org.mate.message.serialization.Lexer.*;
 
@@ -18,21 +19,44 @@ public class Serializer {
         return sb.toString();
     }
 
+    /**
+     * Serializes the given message in the text format, including the values of joined
+     * parameters, see {@link Message#addJoinedParameter(String, Iterable, char)}.
+     *
+     * @param message The message to be serialized.
+     * @return Returns the serialized message.
+     */
     public static byte[] serialize(Message message) {
-        StringBuilder sb = new StringBuilder(escapeParameterValue(message.getSubject()));
-        if (!message.getParameters().isEmpty()) {
-            sb.append(END_PARAMETER_CHAR);
-        }
-        for (Map.Entry<String, String> parameter : message.getParameters().entrySet()) {
-            sb.append(escapeParameterValue(parameter.getKey()));
-            sb.append(RELATION_SEPARATOR_CHAR);
-            sb.append(escapeParameterValue(parameter.getValue()));
-            sb.append(END_PARAMETER_CHAR);
+        return write(message, false);
+    }
+
+    /**
+     * Serializes the given message in the length-prefixed binary format (message protocol v2).
+     * A frame consists of the payload length as big-endian 32 bit integer followed by the
+     * payload. The payload contains the subject, the number of parameters and the key value
+     * pairs, where each string is prefixed by its UTF-8 byte length as unsigned LEB128 varint.
+     * Since no delimiters are involved, no escaping is necessary. Joined parameters are
+     * written like any other parameter.
+     *
+     * @param message The message to be serialized.
+     * @return Returns the binary frame of the message.
+     */
+    public static byte[] serializeBinary(Message message) {
+        return write(message, true);
+    }
+
+    private static byte[] write(Message message, boolean binaryFormat) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MessageWriter writer = new MessageWriter(out);
+        if (binaryFormat) {
+            writer.useBinaryFormat();
         }
-        if (!message.getParameters().isEmpty()) {
-            sb.setLength(sb.length() - 1);
+        try {
+            writer.writeMessage(message);
+        } catch (IOException e) {
+            // a ByteArrayOutputStream never throws
+            throw new IllegalStateException(e);
         }
-        sb.append(END_MESSAGE_CHAR);
-        return sb.toString().getBytes(CHARSET);
+        return out.toByteArray();
     }
 }
@@ -0,0 +1,212 @@
+package org.mate.message.serialization;
+
+import org.mate.utils.VectorEncoding;
+
+/**
+ * Encodes and decodes numeric vectors in a packed representation, such that they can be
+ * transferred as a single parameter value instead of a separator delimited list of decimal
+ * strings. The values are laid out in little-endian byte order and the resulting bytes are
+ * base64 encoded, since parameter values are strings.
+ */
+public final class VectorCodec {
+
+    private static final char[] BASE64_ALPHABET
+            = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    private static final int[] BASE64_VALUES = new int[128];
+
+    static {
+        for (int i = 0; i < BASE64_VALUES.length; i++) {
+            BASE64_VALUES[i] = -1;
+        }
+        for (int i = 0; i < BASE64_ALPHABET.length; i++) {
+            BASE64_VALUES[BASE64_ALPHABET[i]] = i;
+        }
+    }
+
+    private VectorCodec() {
+        throw new UnsupportedOperationException("Utility class!");
+    }
+
+    /**
+     * Encodes the given vector.
+     *
+     * @param vector The vector to be encoded.
+     * @param encoding The packed encoding, i.e. not {@link VectorEncoding#TEXT}.
+     * @return Returns the base64 encoded vector.
+     */
+    public static String encode(double[] vector, VectorEncoding encoding) {
+        byte[] bytes;
+        switch (encoding) {
+            case FLOAT64:
+                bytes = new byte[vector.length * 8];
+                for (int i = 0; i < vector.length; i++) {
+                    writeLong(bytes, i * 8, Double.doubleToLongBits(vector[i]), 8);
+                }
+                break;
+            case FLOAT32:
+                bytes = new byte[vector.length * 4];
+                for (int i = 0; i < vector.length; i++) {
+                    writeLong(bytes, i * 4, Float.floatToIntBits((float) vector[i]), 4);
+                }
+                break;
+            case QUANTISED8:
+                bytes = new byte[vector.length];
+                for (int i = 0; i < vector.length; i++) {
+                    if (vector[i] < 0 || vector[i] > 1) {
+                        throw new IllegalArgumentException("Value " + vector[i] + " can't be quantised!");
+                    }
+                    // 255 is reserved for an exact 1, such that a decoded 1 implies a covered target
+                    bytes[i] = (byte) (vector[i] == 1 ? 255 : Math.min(254, Math.round(vector[i] * 255)));
+                }
+                break;
+            default:
+                throw new UnsupportedOperationException("Encoding " + encoding + " is not a packed encoding!");
+        }
+        return toBase64(bytes);
+    }
+
+    /**
+     * Decodes the given vector.
+     *
+     * @param packed The base64 encoded vector.
+     * @param encoding The packed encoding, i.e. not {@link VectorEncoding#TEXT}.
+     * @return Returns the decoded vector.
+     */
+    public static double[] decode(String packed, VectorEncoding encoding) {
+        byte[] bytes = fromBase64(packed);
+        double[] vector;
+        switch (encoding) {
+            case FLOAT64:
+                checkLength(bytes, 8);
+                vector = new double[bytes.length / 8];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = Double.longBitsToDouble(readLong(bytes, i * 8, 8));
+                }
+                break;
+            case FLOAT32:
+                checkLength(bytes, 4);
+                vector = new double[bytes.length / 4];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = Float.intBitsToFloat((int) readLong(bytes, i * 4, 4));
+                }
+                break;
+            case QUANTISED8:
+                vector = new double[bytes.length];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = (bytes[i] & 0xFF) / 255.0;
+                }
+                break;
+            default:
+                throw new UnsupportedOperationException("Encoding " + encoding + " is not a packed encoding!");
+        }
+        return vector;
+    }
+
+    /**
+     * Parses a vector given as separator delimited list of decimal strings.
+     *
+     * @param text The textual representation of the vector.
+     * @param separator The separator between two values.
+     * @return Returns the parsed vector.
+     */
+    public static double[] parseText(String text, char separator) {
+        if (text.isEmpty()) {
+            return new double[0];
+        }
+
+        int count = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == separator) {
+                count++;
+            }
+        }
+        // a trailing separator doesn't introduce another value
+        if (text.charAt(text.length() - 1) == separator) {
+            count--;
+        }
+
+        double[] vector = new double[count];
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            int end = text.indexOf(separator, start);
+            if (end == -1) {
+                end = text.length();
+            }
+            vector[i] = Double.parseDouble(text.substring(start, end));
+            start = end + 1;
+        }
+        return vector;
+    }
+
+    private static void checkLength(byte[] bytes, int valueSize) {
+        if (bytes.length % valueSize != 0) {
+            throw new IllegalStateException("Packed vector of " + bytes.length
+                    + " bytes is not a multiple of " + valueSize + " bytes!");
+        }
+    }
+
+    private static void writeLong(byte[] bytes, int offset, long value, int size) {
+        for (int i = 0; i < size; i++) {
+            bytes[offset + i] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    private static long readLong(byte[] bytes, int offset, int size) {
+        long value = 0;
+        for (int i = 0; i < size; i++) {
+            value |= (bytes[offset + i] & 0xFFL) << (8 * i);
+        }
+        return value;
+    }
+
+    static String toBase64(byte[] bytes) {
+        StringBuilder sb = new StringBuilder((bytes.length + 2) / 3 * 4);
+        for (int i = 0; i < bytes.length; i += 3) {
+            int remaining = Math.min(3, bytes.length - i);
+            int chunk = (bytes[i] & 0xFF) << 16;
+            if (remaining > 1) {
+                chunk |= (bytes[i + 1] & 0xFF) << 8;
+            }
+            if (remaining > 2) {
+                chunk |= bytes[i + 2] & 0xFF;
+            }
+            sb.append(BASE64_ALPHABET[(chunk >> 18) & 0x3F]);
+            sb.append(BASE64_ALPHABET[(chunk >> 12) & 0x3F]);
+            sb.append(remaining > 1 ? BASE64_ALPHABET[(chunk >> 6) & 0x3F] : '=');
+            sb.append(remaining > 2 ? BASE64_ALPHABET[chunk & 0x3F] : '=');
+        }
+        return sb.toString();
+    }
+
+    static byte[] fromBase64(String base64) {
+        int length = base64.length();
+        if (length % 4 != 0) {
+            throw new IllegalStateException("Invalid base64 length: " + length);
+        }
+        int padding = 0;
+        if (length > 0 && base64.charAt(length - 1) == '=') {
+            padding++;
+            if (base64.charAt(length - 2) == '=') {
+                padding++;
+            }
+        }
+
+        byte[] bytes = new byte[length / 4 * 3 - padding];
+        int position = 0;
+        for (int i = 0; i < length; i += 4) {
+            int chunk = 0;
+            for (int j = 0; j < 4; j++) {
+                char c = base64.charAt(i + j);
+                int value = c == '=' ? 0 : c < 128 ? BASE64_VALUES[c] : -1;
+                if (value == -1) {
+                    throw new IllegalStateException("Invalid base64 character: " + c);
+                }
+                chunk = (chunk << 6) | value;
+            }
+            for (int shift = 16; shift >= 0 && position < bytes.length; shift -= 8) {
+                bytes[position++] = (byte) (chunk >> shift);
+            }
+        }
+        return bytes;
+    }
+}
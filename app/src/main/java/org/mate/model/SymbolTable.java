@@ -0,0 +1,100 @@
+package org.mate.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Interns strings, e.g. activity names, as dense integers in the order of their first
+ * occurrence. Sets of interned strings can thus be represented as {@link BitSet}s, such that
+ * unions, intersections and counts are computed word-wise instead of hashing strings.
+ * <p>
+ * The symbol tables are shared by the whole run, such that the bit sets of different test
+ * cases refer to the same symbols.
+ */
+public class SymbolTable {
+
+    /**
+     * The names of the activities.
+     */
+    public static final SymbolTable ACTIVITIES = new SymbolTable();
+
+    /**
+     * The ids of the screen states.
+     */
+    public static final SymbolTable STATES = new SymbolTable();
+
+    /**
+     * The widget ids qualified by their activity, see {@link org.mate.ui.Widget#getIdByActivity()}.
+     */
+    public static final SymbolTable WIDGETS = new SymbolTable();
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> symbols = new ArrayList<>();
+
+    /**
+     * Returns the id of the given symbol and assigns the next free id if the symbol
+     * hasn't been interned yet.
+     *
+     * @param symbol The symbol to be interned.
+     * @return Returns the dense id of the symbol.
+     */
+    public synchronized int intern(String symbol) {
+        Integer id = ids.get(symbol);
+        if (id == null) {
+            id = symbols.size();
+            symbols.add(symbol);
+            ids.put(symbol, id);
+        }
+        return id;
+    }
+
+    /**
+     * Looks up the id of the given symbol without interning it.
+     *
+     * @param symbol The symbol.
+     * @return Returns the id of the symbol or {@code -1} if the symbol hasn't been interned yet.
+     */
+    public synchronized int idOf(String symbol) {
+        Integer id = ids.get(symbol);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Returns the symbol with the given id.
+     *
+     * @param id The id of the symbol.
+     * @return Returns the interned symbol.
+     */
+    public synchronized String symbolOf(int id) {
+        return symbols.get(id);
+    }
+
+    /**
+     * Returns the number of interned symbols.
+     *
+     * @return Returns the number of symbols.
+     */
+    public synchronized int size() {
+        return symbols.size();
+    }
+
+    /**
+     * Resolves the symbols of the given ids.
+     *
+     * @param ids The ids of interned symbols.
+     * @return Returns an unmodifiable set of the symbols ordered by their ids.
+     */
+    public synchronized Set<String> toSymbols(BitSet ids) {
+        Set<String> resolved = new LinkedHashSet<>();
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            resolved.add(symbols.get(id));
+        }
+        return Collections.unmodifiableSet(resolved);
+    }
+}
@@ -16,9 +16,9 @@ import org.mate.utils.Randomness;
 import org.mate.utils.TestCaseStatistics;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -26,15 +26,18 @@ import java.util.UUID;
 
 public class TestCase {
     private String id;
-    private Set<String> visitedActivities;
-    private Set<String> visitedStates;
+    // the ids of the visited activities and states, see SymbolTable, serialized by their
+    // names, see TestCaseSerializer
+    private final BitSet visitedActivities;
+    private final BitSet visitedStates;
     private List<Action> eventSequence;
     private List<String> activitySequence;
     private float novelty;
     private boolean crashDetected;
     private double sparseness;
     private HashMap<String, String> statesMap;
-    private HashMap<String, Integer> featureVector;
+    // the states of the GUI model the feature vector refers to, see updateFeatureVector()
+    private BitSet featureStates;
     private Optional<Integer> desiredSize = Optional.none();
     private String crashStackTrace = null;
 
@@ -43,12 +46,12 @@ public class TestCase {
         MATE.log("Initialising new test case!");
         setId(id);
         crashDetected = false;
-        visitedActivities = new HashSet<>();
-        visitedStates = new HashSet<>();
+        visitedActivities = new BitSet();
+        visitedStates = new BitSet();
         eventSequence = new ArrayList<>();
         sparseness = 0;
         statesMap = new HashMap<>();
-        featureVector = new HashMap<String, Integer>();
+        featureStates = new BitSet();
         activitySequence = new ArrayList<>();
     }
 
@@ -171,18 +174,48 @@ public class TestCase {
     }
 
     public void updateVisitedActivities(String activity) {
-        this.visitedActivities.add(activity);
+        this.visitedActivities.set(SymbolTable.ACTIVITIES.intern(activity));
     }
 
+    /**
+     * Returns the names of the visited activities. Prefer {@link #getVisitedActivityIds()}
+     * for computing unions or counts.
+     *
+     * @return Returns an unmodifiable set of the visited activities.
+     */
     public Set<String> getVisitedActivities() {
+        return SymbolTable.ACTIVITIES.toSymbols(visitedActivities);
+    }
+
+    /**
+     * Returns the ids of the visited activities as interned by {@link SymbolTable#ACTIVITIES}.
+     *
+     * @return Returns the visited activities, which must not be modified.
+     */
+    public BitSet getVisitedActivityIds() {
         return visitedActivities;
     }
 
     public void updateVisitedStates(IScreenState GUIState) {
-        this.visitedStates.add(GUIState.getId());
+        this.visitedStates.set(SymbolTable.STATES.intern(GUIState.getId()));
     }
 
+    /**
+     * Returns the ids of the visited states. Prefer {@link #getVisitedStateIds()}
+     * for computing unions or counts.
+     *
+     * @return Returns an unmodifiable set of the visited states.
+     */
     public Set<String> getVisitedStates() {
+        return SymbolTable.STATES.toSymbols(visitedStates);
+    }
+
+    /**
+     * Returns the visited states as interned by {@link SymbolTable#STATES}.
+     *
+     * @return Returns the visited states, which must not be modified.
+     */
+    public BitSet getVisitedStateIds() {
         return visitedStates;
     }
 
@@ -228,19 +261,52 @@ public class TestCase {
         return statesMap;
     }
 
+    /**
+     * Returns the feature vector, which maps each state of the GUI model to {@code 1} if
+     * the state has been visited, otherwise to {@code 0}.
+     *
+     * @return Returns the feature vector.
+     */
     public HashMap<String, Integer> getFeatureVector() {
+        HashMap<String, Integer> featureVector = new HashMap<>();
+        for (int state = featureStates.nextSetBit(0); state >= 0; state = featureStates.nextSetBit(state + 1)) {
+            featureVector.put(SymbolTable.STATES.symbolOf(state), visitedStates.get(state) ? 1 : 0);
+        }
         return featureVector;
     }
 
     public void updateFeatureVector(IGUIModel guiModel) {
         List<IScreenState> guiStates = guiModel.getStates();
         for(IScreenState state : guiStates){
-            if(this.visitedStates.contains(state.getId())){
-                featureVector.put(state.getId(),1);
-            } else {
-                featureVector.put(state.getId(),0);
-            }
+            featureStates.set(SymbolTable.STATES.intern(state.getId()));
+        }
+    }
+
+    /**
+     * Computes the manhattan distance between the feature vectors of this and the given
+     * test case, i.e. the number of states of the GUI model visited by only one of them.
+     *
+     * @param other The other test case.
+     * @return Returns the distance between the feature vectors.
+     */
+    public int getFeatureDistance(TestCase other) {
+        BitSet difference = (BitSet) visitedStates.clone();
+        difference.xor(other.visitedStates);
+        difference.and(featureStates);
+        return difference.cardinality();
+    }
+
+    /**
+     * Called by XStream after de-serializing a test case. Test cases recorded before the
+     * feature vector has been kept as a mask of states don't contain the mask.
+     *
+     * @return Returns the de-serialized test case.
+     */
+    private Object readResolve() {
+        if (featureStates == null) {
+            featureStates = new BitSet();
         }
+        return this;
     }
 
     public static TestCase newDummy() {
@@ -1,7 +1,13 @@
 package org.mate.model;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
 import java.util.UUID;
 
 public class TestSuite {
@@ -9,13 +15,29 @@ public class TestSuite {
     private final String id;
     private List<TestCase> testCases;
 
+    /*
+     * Aggregates over the test cases, which are updated whenever a test case is added or removed,
+     * such that suite level fitness values can be read without walking all test cases. The
+     * aggregates reflect the test cases at the time they were added, i.e. test cases should have
+     * been executed before they are added to the test suite.
+     */
+    private final BitSet visitedActivities = new BitSet();
+    private int[] activityCounts = new int[0];
+    private final BitSet visitedStates = new BitSet();
+    private int[] stateCounts = new int[0];
+    private int crashes = 0;
+
+    // the test cases by their id and the number of their occurrences
+    private final Map<String, TestCase> testCasesById = new HashMap<>();
+    private final Map<String, Integer> occurrences = new HashMap<>();
+
     public TestSuite() {
         this(UUID.randomUUID().toString());
     }
 
     public TestSuite(String id) {
         this.id = id;
-        testCases = new ArrayList<>();
+        testCases = new TestCases();
     }
 
     /**
@@ -27,12 +49,145 @@ public class TestSuite {
         return id;
     }
 
+    /**
+     * Returns the test cases of the test suite. Modifications of the returned list update
+     * the aggregates of the test suite.
+     *
+     * @return Returns the test cases.
+     */
     public List<TestCase> getTestCases() {
         return testCases;
     }
 
+    /**
+     * Looks up the test case with the given id.
+     *
+     * @param testCaseId The id of the test case.
+     * @return Returns the test case or {@code null} if the test suite doesn't contain it.
+     */
+    public TestCase getTestCase(String testCaseId) {
+        return testCasesById.get(testCaseId);
+    }
+
+    /**
+     * Returns the activities visited by any test case of the test suite.
+     *
+     * @return Returns the ids of the visited activities, see {@link SymbolTable#ACTIVITIES},
+     *          which must not be modified.
+     */
+    public BitSet getVisitedActivityIds() {
+        return visitedActivities;
+    }
+
+    /**
+     * Returns the states visited by any test case of the test suite.
+     *
+     * @return Returns the ids of the visited states, see {@link SymbolTable#STATES},
+     *          which must not be modified.
+     */
+    public BitSet getVisitedStateIds() {
+        return visitedStates;
+    }
+
+    /**
+     * Returns the number of test cases that detected a crash.
+     *
+     * @return Returns the number of crashes.
+     */
+    public int getCrashCount() {
+        return crashes;
+    }
+
     @Override
     public String toString() {
         return id;
     }
+
+    private void added(TestCase testCase) {
+        activityCounts = count(testCase.getVisitedActivityIds(), activityCounts, visitedActivities, 1);
+        stateCounts = count(testCase.getVisitedStateIds(), stateCounts, visitedStates, 1);
+        if (testCase.getCrashDetected()) {
+            crashes++;
+        }
+
+        Integer count = occurrences.get(testCase.getId());
+        occurrences.put(testCase.getId(), count == null ? 1 : count + 1);
+        testCasesById.put(testCase.getId(), testCase);
+    }
+
+    private void removed(TestCase testCase) {
+        activityCounts = count(testCase.getVisitedActivityIds(), activityCounts, visitedActivities, -1);
+        stateCounts = count(testCase.getVisitedStateIds(), stateCounts, visitedStates, -1);
+        if (testCase.getCrashDetected()) {
+            crashes--;
+        }
+
+        int count = occurrences.get(testCase.getId());
+        if (count == 1) {
+            occurrences.remove(testCase.getId());
+            testCasesById.remove(testCase.getId());
+        } else {
+            occurrences.put(testCase.getId(), count - 1);
+        }
+    }
+
+    /**
+     * Updates the number of test cases per symbol and the bits of the symbols covered by at
+     * least one test case.
+     *
+     * @param symbols The symbols of the added or removed test case.
+     * @param counts The number of test cases per symbol.
+     * @param covered The symbols covered by at least one test case.
+     * @param delta {@code 1} if the test case is added, {@code -1} if it is removed.
+     * @return Returns the counts, which are grown if necessary.
+     */
+    private static int[] count(BitSet symbols, int[] counts, BitSet covered, int delta) {
+        if (symbols.length() > counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(symbols.length(), 2 * counts.length));
+        }
+        for (int symbol = symbols.nextSetBit(0); symbol >= 0; symbol = symbols.nextSetBit(symbol + 1)) {
+            counts[symbol] += delta;
+            covered.set(symbol, counts[symbol] > 0);
+        }
+        return counts;
+    }
+
+    /**
+     * The list of test cases that keeps the aggregates of the test suite up to date.
+     */
+    private final class TestCases extends AbstractList<TestCase> implements RandomAccess {
+
+        private final List<TestCase> elements = new ArrayList<>();
+
+        @Override
+        public TestCase get(int index) {
+            return elements.get(index);
+        }
+
+        @Override
+        public int size() {
+            return elements.size();
+        }
+
+        @Override
+        public TestCase set(int index, TestCase testCase) {
+            TestCase previous = elements.set(index, testCase);
+            removed(previous);
+            added(testCase);
+            return previous;
+        }
+
+        @Override
+        public void add(int index, TestCase testCase) {
+            elements.add(index, testCase);
+            added(testCase);
+        }
+
+        @Override
+        public TestCase remove(int index) {
+            TestCase removed = elements.remove(index);
+            removed(removed);
+            return removed;
+        }
+    }
 }
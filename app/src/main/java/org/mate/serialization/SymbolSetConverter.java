@@ -0,0 +1,83 @@
+package org.mate.serialization;
+
+import com.thoughtworks.xstream.converters.Converter;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+
+import org.mate.model.SymbolTable;
+
+import java.util.BitSet;
+
+/**
+ * Represents a custom converter from a {@link BitSet} of ids interned by a {@link SymbolTable}
+ * to XML and vice versa. The ids are only valid within a single run, thus the symbols are
+ * written instead, using the same layout as a set of strings, e.g.:
+ *
+ *      <visitedActivities>
+ *          <string>com.example.MainActivity</string>
+ *      </visitedActivities>
+ *
+ * This way test cases recorded while the symbols were kept in a set of strings can be
+ * replayed as well.
+ */
+public final class SymbolSetConverter implements Converter {
+
+    private final SymbolTable symbolTable;
+
+    /**
+     * Initialises the converter for the ids of the given symbol table.
+     *
+     * @param symbolTable The symbol table that interns the symbols.
+     */
+    public SymbolSetConverter(SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
+
+    /**
+     * Converts a {@link BitSet} of ids to a list of symbols.
+     *
+     * @param object The {@link BitSet} to be serialized.
+     * @param writer The top-down XML writer instance.
+     * @param context The serialization context.
+     */
+    @Override
+    public void marshal(Object object, HierarchicalStreamWriter writer, MarshallingContext context) {
+        for (String symbol : symbolTable.toSymbols((BitSet) object)) {
+            writer.startNode("string");
+            writer.setValue(symbol);
+            writer.endNode();
+        }
+    }
+
+    /**
+     * Converts a list of symbols to a {@link BitSet}, interning symbols not seen in this run.
+     *
+     * @param reader The top-down reader.
+     * @param context The de-serialization context.
+     * @return Returns the ids of the symbols.
+     */
+    @Override
+    public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
+        BitSet ids = new BitSet();
+        while (reader.hasMoreChildren()) {
+            reader.moveDown();
+            ids.set(symbolTable.intern(reader.getValue()));
+            reader.moveUp();
+        }
+        return ids;
+    }
+
+    /**
+     * Defines which kinds of objects can be handled by this converter.
+     *
+     * @param object The object to be converted.
+     * @return Returns {@code true} if the given object can be converted by
+     *      this converter, otherwise {@code false}.
+     */
+    @Override
+    public boolean canConvert(Class object) {
+        return object.equals(BitSet.class);
+    }
+}
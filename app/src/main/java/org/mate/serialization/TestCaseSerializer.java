@@ -7,6 +7,7 @@ import com.thoughtworks.xstream.XStream;
 
 import org.mate.MATE;
 import org.mate.Registry;
+import org.mate.model.SymbolTable;
 import org.mate.model.TestCase;
 
 import java.io.File;
@@ -31,6 +32,25 @@ public final class TestCaseSerializer {
     // tracks the number of replayed test cases
     private static int replayCounter = 0;
 
+    /**
+     * Creates the XStream instance converting test cases to XML and vice versa.
+     *
+     * @return Returns the configured XStream instance.
+     */
+    public static XStream createXStream() {
+        XStream xstream = new XStream();
+        xstream.ignoreUnknownElements();
+        xstream.registerConverter(new IntentBasedActionConverter());
+        // the interned ids are only valid within a run, thus the symbols are written instead
+        xstream.registerLocalConverter(TestCase.class, "visitedActivities",
+                new SymbolSetConverter(SymbolTable.ACTIVITIES));
+        xstream.registerLocalConverter(TestCase.class, "visitedStates",
+                new SymbolSetConverter(SymbolTable.STATES));
+        xstream.registerLocalConverter(TestCase.class, "featureStates",
+                new SymbolSetConverter(SymbolTable.STATES));
+        return xstream;
+    }
+
     /**
      * Serializes a given {@link TestCase} to XML and stores it on the
      * app-internal storage of MATE.
@@ -55,8 +75,7 @@ public final class TestCaseSerializer {
         File testCaseFile = new File(dir, "TestCase" + recordCounter + ".xml");
 
         // convert test case to xml
-        XStream xstream = new XStream();
-        xstream.registerConverter(new IntentBasedActionConverter());
+        XStream xstream = createXStream();
         String testCaseXML = xstream.toXML(testCase);
 
         try (Writer fileWriter = new FileWriter(testCaseFile)) {
@@ -125,9 +144,7 @@ public final class TestCaseSerializer {
             // retrieves the file from /data/data/org.mate/files/
             FileInputStream testCaseFile = InstrumentationRegistry.getTargetContext().openFileInput(testCaseName);
 
-            XStream xstream = new XStream();
-            xstream.ignoreUnknownElements();
-            xstream.registerConverter(new IntentBasedActionConverter());
+            XStream xstream = createXStream();
 
             TestCase testCase = (TestCase) xstream.fromXML(testCaseFile);
             MATE.log("Number of Actions: " + testCase.getEventSequence().size());
@@ -0,0 +1,204 @@
+package org.mate.ui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Collects the number of calls, a latency histogram and the transferred bytes per endpoint
+ * of the MATE server. An endpoint is the subject of a message, requests tunneled over the
+ * legacy end point are distinguished by their command, e.g. {@code /legacy:getActivity}.
+ * <p>
+ * The latency of a request is measured from writing the request until its response has
+ * been parsed. The histogram uses power of two buckets of microseconds, i.e. bucket {@code i}
+ * counts the requests that took less than {@code 2^i} but at least {@code 2^(i-1)} microseconds.
+ */
+public class EndpointMetrics {
+
+    public static final int HISTOGRAM_BUCKETS = 32;
+
+    private static class Metric {
+        private long calls = 0;
+        private long totalLatencyNanos = 0;
+        private long bytesSent = 0;
+        private long bytesReceived = 0;
+        private final long[] histogram = new long[HISTOGRAM_BUCKETS];
+    }
+
+    private final Map<String, Metric> metrics = new HashMap<>();
+
+    /**
+     * Derives the endpoint of a request.
+     *
+     * @param subject The subject of the message.
+     * @param legacyCmd The command of a legacy request or {@code null} otherwise.
+     * @return Returns the endpoint under which the request is recorded.
+     */
+    public static String endpointOf(String subject, String legacyCmd) {
+        if (legacyCmd == null) {
+            return subject;
+        }
+        int separator = legacyCmd.indexOf(':');
+        return subject + ":" + (separator == -1 ? legacyCmd : legacyCmd.substring(0, separator));
+    }
+
+    /**
+     * Records the size of a request sent to the given endpoint.
+     *
+     * @param endpoint The endpoint.
+     * @param bytes The number of bytes written.
+     */
+    public synchronized void recordRequest(String endpoint, long bytes) {
+        getMetric(endpoint).bytesSent += bytes;
+    }
+
+    /**
+     * Records the response of a request to the given endpoint.
+     *
+     * @param endpoint The endpoint.
+     * @param latencyNanos The time from sending the request until the response arrived.
+     * @param bytes The number of bytes read.
+     */
+    public synchronized void recordResponse(String endpoint, long latencyNanos, long bytes) {
+        Metric metric = getMetric(endpoint);
+        metric.calls++;
+        metric.totalLatencyNanos += latencyNanos;
+        metric.bytesReceived += bytes;
+        metric.histogram[bucketOf(latencyNanos)]++;
+    }
+
+    private Metric getMetric(String endpoint) {
+        Metric metric = metrics.get(endpoint);
+        if (metric == null) {
+            metric = new Metric();
+            metrics.put(endpoint, metric);
+        }
+        return metric;
+    }
+
+    private static int bucketOf(long latencyNanos) {
+        long micros = Math.max(latencyNanos / 1000, 0);
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        return Math.min(bucket, HISTOGRAM_BUCKETS - 1);
+    }
+
+    /**
+     * Returns the endpoints for which requests have been recorded.
+     *
+     * @return Returns the endpoints sorted by their total latency in descending order.
+     */
+    public synchronized List<String> getEndpoints() {
+        List<String> endpoints = new ArrayList<>(metrics.keySet());
+        Collections.sort(endpoints, new Comparator<String>() {
+            @Override
+            public int compare(String first, String second) {
+                int comparison = Long.compare(metrics.get(second).totalLatencyNanos,
+                        metrics.get(first).totalLatencyNanos);
+                return comparison != 0 ? comparison : first.compareTo(second);
+            }
+        });
+        return endpoints;
+    }
+
+    public synchronized long getCalls(String endpoint) {
+        Metric metric = metrics.get(endpoint);
+        return metric == null ? 0 : metric.calls;
+    }
+
+    public synchronized long getTotalLatencyNanos(String endpoint) {
+        Metric metric = metrics.get(endpoint);
+        return metric == null ? 0 : metric.totalLatencyNanos;
+    }
+
+    public synchronized long getBytesSent(String endpoint) {
+        Metric metric = metrics.get(endpoint);
+        return metric == null ? 0 : metric.bytesSent;
+    }
+
+    public synchronized long getBytesReceived(String endpoint) {
+        Metric metric = metrics.get(endpoint);
+        return metric == null ? 0 : metric.bytesReceived;
+    }
+
+    /**
+     * Returns the latency histogram of the given endpoint.
+     *
+     * @param endpoint The endpoint.
+     * @return Returns a copy of the histogram with {@link #HISTOGRAM_BUCKETS} buckets.
+     */
+    public synchronized long[] getLatencyHistogram(String endpoint) {
+        Metric metric = metrics.get(endpoint);
+        return metric == null ? new long[HISTOGRAM_BUCKETS] : metric.histogram.clone();
+    }
+
+    /**
+     * Estimates the given percentile of the latency of the given endpoint by the upper bound
+     * of the histogram bucket it falls into.
+     *
+     * @param endpoint The endpoint.
+     * @param percentile The percentile in the range (0,1].
+     * @return Returns the estimated latency in microseconds.
+     */
+    public synchronized long getLatencyPercentileMicros(String endpoint, double percentile) {
+        Metric metric = metrics.get(endpoint);
+        if (metric == null || metric.calls == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(metric.calls * percentile);
+        long seen = 0;
+        for (int bucket = 0; bucket < HISTOGRAM_BUCKETS; bucket++) {
+            seen += metric.histogram[bucket];
+            if (seen >= threshold) {
+                return 1L << bucket;
+            }
+        }
+        return 1L << (HISTOGRAM_BUCKETS - 1);
+    }
+
+    /**
+     * Drops all recorded metrics.
+     */
+    public synchronized void reset() {
+        metrics.clear();
+    }
+
+    /**
+     * Formats the recorded metrics as a table, one row per endpoint, sorted by the total
+     * latency. The share refers to the summed latency of all endpoints.
+     *
+     * @return Returns the formatted table.
+     */
+    @Override
+    public synchronized String toString() {
+        long totalNanos = 0;
+        int width = "endpoint".length();
+        for (Map.Entry<String, Metric> entry : metrics.entrySet()) {
+            totalNanos += entry.getValue().totalLatencyNanos;
+            width = Math.max(width, entry.getKey().length());
+        }
+
+        String rowFormat = "%n%-" + width + "s %8s %10s %6s %9s %9s %10s %10s";
+        StringBuilder sb = new StringBuilder("Endpoint metrics:");
+        sb.append(String.format(Locale.ENGLISH, rowFormat, "endpoint", "calls", "total ms",
+                "share", "mean ms", "p90 ms", "sent KB", "recv KB"));
+        for (String endpoint : getEndpoints()) {
+            Metric metric = metrics.get(endpoint);
+            sb.append(String.format(Locale.ENGLISH, rowFormat, endpoint,
+                    metric.calls,
+                    String.format(Locale.ENGLISH, "%.1f", metric.totalLatencyNanos / 1e6),
+                    String.format(Locale.ENGLISH, "%.1f%%",
+                            totalNanos == 0 ? 0.0 : 100.0 * metric.totalLatencyNanos / totalNanos),
+                    String.format(Locale.ENGLISH, "%.2f", metric.calls == 0
+                            ? 0.0 : metric.totalLatencyNanos / 1e6 / metric.calls),
+                    String.format(Locale.ENGLISH, "%.2f",
+                            getLatencyPercentileMicros(endpoint, 0.9) / 1e3),
+                    String.format(Locale.ENGLISH, "%.1f", metric.bytesSent / 1024.0),
+                    String.format(Locale.ENGLISH, "%.1f", metric.bytesReceived / 1024.0)));
+        }
+        return sb.toString();
+    }
+}
@@ -5,21 +5,37 @@ import org.mate.Properties;
 import org.mate.exploration.genetic.chromosome.IChromosome;
 import org.mate.graph.GraphType;
 import org.mate.message.Message;
+import org.mate.message.MessageBatch;
+import org.mate.message.serialization.MessageWriter;
 import org.mate.message.serialization.Parser;
-import org.mate.message.serialization.Serializer;
+import org.mate.message.serialization.VectorCodec;
 import org.mate.model.TestCase;
 import org.mate.model.TestSuite;
 import org.mate.utils.Coverage;
+import org.mate.utils.CoverageBitmap;
 import org.mate.utils.Objective;
+import org.mate.utils.VectorEncoding;
 
 import java.io.IOException;
 import java.net.Socket;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Provides the interface to communicate with the MATE server.
@@ -31,19 +47,116 @@ public class EnvironmentManager {
     private static final String METADATA_PREFIX = "__meta__";
     private static final String MESSAGE_PROTOCOL_VERSION = "1.9";
     private static final String MESSAGE_PROTOCOL_VERSION_KEY = "version";
+    private static final String BINARY_MESSAGE_PROTOCOL_VERSION = "2.0";
+    private static final String REQUESTED_PROTOCOL_VERSION_KEY = "requested_version";
+
+    private static final String REQUEST_ID_KEY = "request_id";
+    private static final String VECTOR_ENCODING_KEY = "vector_encoding";
+    private static final int NOTIFICATION_QUEUE_CAPACITY = 64;
+
+    // the endpoints whose responses are cached, legacy commands are prefixed with /legacy:
+    private static final String PROPERTIES_ENDPOINT = "/properties";
+    private static final String SOURCE_LINES_ENDPOINT = "/coverage/getSourceLines";
+    private static final String BRANCHES_ENDPOINT = "/graph/get_branches";
+    private static final String BRANCH_DEPENDENCIES_ENDPOINT = "/graph/get_branch_dependencies";
+    private static final String BRANCH_DISTANCE_MATRIX_ENDPOINT = "/graph/get_branch_distance_matrix";
+    private static final String COVERED_ENDPOINT = "/coverage/covered";
+    private static final String ACTIVITIES_ENDPOINT = "/legacy:getActivities";
+    private static final String TIMEOUT_ENDPOINT = "/legacy:timeout";
+    private static final String RANDOM_LENGTH_ENDPOINT = "/legacy:randomlength";
 
     private String emulator = null;
     private final Socket server;
     private final Parser messageParser;
-    private boolean active;
+
+    // serialises messages directly into a reusable buffer of the socket stream, guarded by writeLock
+    private final MessageWriter messageWriter;
+    private volatile boolean active;
+
+    // the reason why the connection to the MATE server broke down or null, guarded by pendingResponses
+    private volatile Throwable connectionFailure;
+
+    /**
+     * Reads the responses of the MATE server and hands them over to the pending requests.
+     * This allows multiple requests to be in flight on the same socket.
+     */
+    private final Thread responseReader;
+
+    /**
+     * The requests waiting for a response, keyed by their request id and kept in the order
+     * they have been sent. A server that does not echo the request id answers in order.
+     */
+    private final Map<String, ResponseFuture> pendingResponses = new LinkedHashMap<>();
+
+    /**
+     * The responses of one-way notifications, e.g. flaw reports, that nobody waits for.
+     * They are awaited by the {@link #notificationWatcher} thread in order. If the queue is
+     * full, the next notification blocks until the server caught up.
+     */
+    private final BlockingQueue<Future<Message>> notifications
+            = new ArrayBlockingQueue<>(NOTIFICATION_QUEUE_CAPACITY);
+    private final Thread notificationWatcher;
+
+    // the number of queued or in-flight notifications, guarded by notificationLock
+    private final Object notificationLock = new Object();
+    private int outstandingNotifications = 0;
+
+    // whether the server accepts multiple messages within a single batch message
+    private volatile boolean batchingSupported = true;
+
+    // serialises the writing of messages to the socket
+    private final Object writeLock = new Object();
+    private long nextRequestId = 0;
+
+    /**
+     * The message protocol version currently in use. Starts with the text format (v1) and
+     * switches to the binary format (v2) once the MATE server acknowledged the request.
+     */
+    private volatile String protocolVersion = MESSAGE_PROTOCOL_VERSION;
+    private boolean binaryProtocolRequested = false;
+
+    // the response to the message that carried the protocol request, if still outstanding
+    private ResponseFuture protocolNegotiation = null;
+
+    // the calls, latencies and transferred bytes per endpoint
+    private final EndpointMetrics endpointMetrics = new EndpointMetrics();
+
+    // caches the responses of queries that don't change during a run
+    private final ResponseCache responseCache = new ResponseCache();
+
+    // the line set registered with the MATE server and the handle referring to it
+    private List<String> registeredLines = null;
+    private int registeredLinesSize = 0;
+    private String registeredLinesHandle = null;
+    private boolean lineRegistrationSupported = true;
+
+    // whether the server evaluates the branch distance vectors of many chromosomes at once
+    private volatile boolean branchDistanceMatrixSupported = true;
+
+    /**
+     * The lines or branches covered by each test case, indexed like {@link #getSourceLines()}
+     * or {@link #getBranches()}. Each bitmap is requested along with storing the traces of the
+     * test case and recorded from the response, see {@link #sendBatch(MessageBatch)}, such that
+     * combined coverage is computed on the device. Guarded by coverageLock.
+     */
+    private final Object coverageLock = new Object();
+    private final Map<Coverage, Map<String, CoverageBitmap>> coverageBitmaps = new EnumMap<>(Coverage.class);
+
+    // the chromosome (test case or test suite) under which the traces of each test case are stored
+    private final Map<String, String> traceLocations = new LinkedHashMap<>();
+
+    // whether the server sends the covered lines or branches of a test case
+    private volatile boolean coverageBitmapsSupported = true;
 
     /**
      * Tracks for which test case the pulling of traces files have been already performed.
      * This is necessary that BranchDistance and BranchCoverage don't try to fetch for the same
      * test case the traces file multiple times. Otherwise, the last fetch trial overwrites
-     * the traces file for the given test case with an empty file.
+     * the traces file for the given test case with an empty file. The set is synchronized, since
+     * fitness data may be requested from a background thread, see
+     * {@link Properties#PIPELINED_FITNESS_EVALUATION()}.
      */
-    private Set<String> coveredTestCases = new HashSet<>();
+    private final Set<String> coveredTestCases = Collections.synchronizedSet(new HashSet<String>());
 
     /**
      * Initialises a new environment manager communicating with
@@ -63,9 +176,69 @@ public class EnvironmentManager {
      * @throws IOException If no connection could be established with the MATE server.
      */
     public EnvironmentManager(int port) throws IOException {
+        this(DEFAULT_SERVER_IP, port);
+    }
+
+    /**
+     * Initialises a new environment manager communicating with
+     * the MATE server on the given host and port, e.g. a stand-in
+     * server on the loopback interface.
+     *
+     * @param host The host running the MATE server.
+     * @param port The MATE server port.
+     * @throws IOException If no connection could be established with the MATE server.
+     */
+    public EnvironmentManager(String host, int port) throws IOException {
         active = true;
-        server = new Socket(DEFAULT_SERVER_IP, port);
+        declareCachedEndpoints();
+        server = new Socket(host, port);
         messageParser = new Parser(server.getInputStream());
+        messageWriter = new MessageWriter(server.getOutputStream());
+        responseReader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                readResponses();
+            }
+        }, "MATE-Server response reader");
+        responseReader.setDaemon(true);
+        responseReader.start();
+        notificationWatcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                awaitNotifications();
+            }
+        }, "MATE-Server notification watcher");
+        notificationWatcher.setDaemon(true);
+        notificationWatcher.start();
+    }
+
+    private void declareCachedEndpoints() {
+        responseCache.declare(PROPERTIES_ENDPOINT, ResponseCache.Policy.STATIC);
+        responseCache.declare(SOURCE_LINES_ENDPOINT, ResponseCache.Policy.STATIC);
+        responseCache.declare(BRANCHES_ENDPOINT, ResponseCache.Policy.STATIC);
+        responseCache.declare(BRANCH_DEPENDENCIES_ENDPOINT, ResponseCache.Policy.STATIC);
+        responseCache.declare(ACTIVITIES_ENDPOINT, ResponseCache.Policy.STATIC);
+        responseCache.declare(TIMEOUT_ENDPOINT, ResponseCache.Policy.STATIC);
+        responseCache.declare(RANDOM_LENGTH_ENDPOINT, ResponseCache.Policy.STATIC);
+    }
+
+    /**
+     * Returns the cache of server responses, e.g. to inspect its hit and miss counters.
+     *
+     * @return Returns the response cache.
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Returns the metrics collected per endpoint of the MATE server, e.g. to find out which
+     * requests dominate the run time.
+     *
+     * @return Returns the endpoint metrics.
+     */
+    public EndpointMetrics getEndpointMetrics() {
+        return endpointMetrics;
     }
 
     /**
@@ -74,8 +247,18 @@ public class EnvironmentManager {
      * @throws IOException If closing connection fails.
      */
     public void close() throws IOException {
-        sendMessage(new Message("/close"));
+        MATE.log(responseCache.toString());
+        if (connectionFailure != null) {
+            // the server can't be told anymore
+            notificationWatcher.interrupt();
+            server.close();
+            return;
+        }
+        flushNotifications();
+        Future<Message> response = sendMessageAsync(new Message("/close"));
         active = false;
+        notificationWatcher.interrupt();
+        awaitResponse(response);
         server.close();
     }
 
@@ -88,36 +271,309 @@ public class EnvironmentManager {
         return emulator;
     }
 
+    /**
+     * Requests the length-prefixed binary message protocol (v2) with the next message sent to
+     * the MATE server. If the server supports the binary protocol, it answers that message
+     * still in the text format but with the binary protocol version in the metadata, and both
+     * sides use the binary format from then on. Otherwise, the text format (v1) is kept.
+     */
+    public void requestBinaryProtocol() {
+        synchronized (writeLock) {
+            if (!protocolVersion.equals(BINARY_MESSAGE_PROTOCOL_VERSION)) {
+                binaryProtocolRequested = true;
+            }
+        }
+    }
+
+    /**
+     * Returns the message protocol version currently used for the communication with the
+     * MATE server.
+     *
+     * @return Returns the used message protocol version.
+     */
+    public String getProtocolVersion() {
+        return protocolVersion;
+    }
+
     /**
      * Send a {@link org.mate.message.Message} to the server and return the response of the server
      *
      * @param message {@link org.mate.message.Message} that will be send to the server
      * @return Response {@link org.mate.message.Message} of the server
      */
-    public synchronized Message sendMessage(Message message) {
+    public Message sendMessage(Message message) {
+        return awaitResponse(sendMessageAsync(message));
+    }
+
+    /**
+     * Sends a {@link org.mate.message.Message} to the server without waiting for the response.
+     * The message is tagged with a request id, such that the server may answer requests out of
+     * order. Requests that are not interested in the response may simply drop the future.
+     *
+     * @param message {@link org.mate.message.Message} that will be send to the server
+     * @return Returns a future of the response, which yields {@code null} if the server
+     *          answered with an error message, like {@link #sendMessage(Message)}.
+     */
+    public Future<Message> sendMessageAsync(Message message) {
+        requireActive();
+
+        synchronized (writeLock) {
+            // the format of the next message depends on the outcome of the negotiation
+            if (protocolNegotiation != null) {
+                awaitResponse(protocolNegotiation);
+                protocolNegotiation = null;
+                if (protocolVersion.equals(BINARY_MESSAGE_PROTOCOL_VERSION)) {
+                    messageWriter.useBinaryFormat();
+                }
+            }
+
+            String requestId = String.valueOf(nextRequestId++);
+            Map<String, String> metadata = createMetadata(requestId);
+
+            String legacyCmd = message.getSubject().equals("/legacy") ? message.getParameter("cmd") : null;
+            String endpoint = EndpointMetrics.endpointOf(message.getSubject(), legacyCmd);
+            ResponseFuture response = new ResponseFuture(binaryProtocolRequested, endpoint);
+            if (binaryProtocolRequested) {
+                protocolNegotiation = response;
+                binaryProtocolRequested = false;
+            }
+            synchronized (pendingResponses) {
+                // the response reader may have failed since the check above
+                requireActive();
+                pendingResponses.put(requestId, response);
+            }
+
+            try {
+                long bytesWritten = messageWriter.getBytesWritten();
+                messageWriter.writeMessage(message, metadata);
+                endpointMetrics.recordRequest(endpoint, messageWriter.getBytesWritten() - bytesWritten);
+            } catch (IOException e) {
+                MATE.log("socket error sending");
+                synchronized (pendingResponses) {
+                    pendingResponses.remove(requestId);
+                }
+                throw new IllegalStateException(e);
+            }
+            return response;
+        }
+    }
+
+    private void requireActive() {
+        if (connectionFailure != null) {
+            throw new IllegalStateException("The connection to the MATE-Server failed!", connectionFailure);
+        }
         if (!active) {
             throw new IllegalStateException("EnvironmentManager is no longer active and can not be used for communication!");
         }
-        addMetadata(message);
+    }
 
+    /**
+     * Sends a one-way notification to the server without waiting for the response. The
+     * message is written right away, thus the server receives it before any subsequent
+     * request, e.g. a screenshot is taken before the luminance of the screenshot is queried.
+     * If too many notifications are pending, the caller blocks until there is space in the
+     * queue again.
+     *
+     * @param message The notification to be sent.
+     */
+    public void sendNotification(Message message) {
+        synchronized (notificationLock) {
+            outstandingNotifications++;
+        }
         try {
-            server.getOutputStream().write(Serializer.serialize(message));
-            server.getOutputStream().flush();
-        } catch (IOException e) {
-            MATE.log("socket error sending");
+            notifications.put(sendMessageAsync(message));
+        } catch (InterruptedException e) {
+            notificationDone();
+            Thread.currentThread().interrupt();
             throw new IllegalStateException(e);
+        } catch (RuntimeException e) {
+            notificationDone();
+            throw e;
+        }
+    }
+
+    /**
+     * Blocks until all pending notifications have been answered by the server.
+     */
+    public void flushNotifications() {
+        synchronized (notificationLock) {
+            while (outstandingNotifications > 0) {
+                try {
+                    notificationLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
         }
+    }
 
-        Message response = messageParser.nextMessage();
+    /**
+     * Awaits the responses of the sent notifications one after another until the connection
+     * is closed. Runs on the {@link #notificationWatcher} thread.
+     */
+    private void awaitNotifications() {
+        while (true) {
+            Future<Message> notification;
+            try {
+                notification = notifications.take();
+            } catch (InterruptedException e) {
+                return;
+            }
 
-        verifyMetadata(response);
-        if (response.getSubject().equals("/error")) {
-            MATE.log("Received error message from mate-server: "
-                    + response.getParameter("info"));
-            return null;
+            try {
+                awaitResponse(notification);
+            } catch (IllegalStateException e) {
+                MATE.log("Sending notification failed: " + e.getMessage());
+            } finally {
+                notificationDone();
+            }
+        }
+    }
+
+    private void notificationDone() {
+        synchronized (notificationLock) {
+            outstandingNotifications--;
+            if (outstandingNotifications == 0) {
+                notificationLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Sends the messages of the given batch within a single round trip and clears the batch.
+     * If the MATE server doesn't support batches, the messages are sent one by one. Coverage
+     * bitmaps contained in the responses are recorded.
+     *
+     * @param batch The batch of messages to be sent.
+     * @return Returns the responses in the order of the messages, where a response is
+     *          {@code null} if the server answered with an error message.
+     */
+    public List<Message> sendBatch(MessageBatch batch) {
+        List<Message> messages = new ArrayList<>(batch.getMessages());
+        batch.clear();
+
+        List<Message> responses = sendMessages(messages);
+        for (int i = 0; i < messages.size(); i++) {
+            if (messages.get(i).getSubject().equals(COVERED_ENDPOINT)) {
+                recordCoverageBitmap(messages.get(i), responses.get(i));
+            }
+        }
+        return responses;
+    }
+
+    private List<Message> sendMessages(List<Message> messages) {
+        List<Message> responses = new ArrayList<>(messages.size());
+        if (messages.size() > 1 && batchingSupported) {
+            Message response = sendMessage(MessageBatch.pack(messages));
+            if (response != null) {
+                for (Message embeddedResponse : MessageBatch.unpack(response)) {
+                    if (embeddedResponse.getSubject().equals("/error")) {
+                        MATE.log("Received error message from mate-server: "
+                                + embeddedResponse.getParameter("info"));
+                        responses.add(null);
+                    } else {
+                        stripMetadata(embeddedResponse);
+                        responses.add(embeddedResponse);
+                    }
+                }
+                return responses;
+            }
+            // the server rejects an unknown subject without processing the embedded messages
+            MATE.log("MATE-Server does not support batches, sending messages one by one");
+            batchingSupported = false;
+        }
+
+        for (Message message : messages) {
+            responses.add(sendMessage(message));
+        }
+        return responses;
+    }
+
+    /**
+     * Waits for the given response of the MATE server.
+     *
+     * @param response The future of the response.
+     * @return Returns the response or {@code null} if the server answered with an error message.
+     */
+    private static Message awaitResponse(Future<Message> response) {
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Reads the responses of the MATE server until the connection is closed and completes
+     * the matching pending requests. Runs on the {@link #responseReader} thread.
+     */
+    private void readResponses() {
+        while (true) {
+            Message response;
+            long bytesRead = messageParser.getBytesRead();
+            try {
+                response = messageParser.nextMessage();
+            } catch (IllegalStateException e) {
+                if (active) {
+                    MATE.log("Reading response from MATE-Server failed: " + e.getMessage());
+                }
+                failPendingResponses(e);
+                return;
+            }
+
+            String requestId = response.getParameter(METADATA_PREFIX + REQUEST_ID_KEY);
+            ResponseFuture pending = null;
+            synchronized (pendingResponses) {
+                if (requestId != null) {
+                    pending = pendingResponses.remove(requestId);
+                }
+                if (pending == null && !pendingResponses.isEmpty()) {
+                    Iterator<ResponseFuture> iterator = pendingResponses.values().iterator();
+                    pending = iterator.next();
+                    iterator.remove();
+                }
+            }
+            if (pending == null) {
+                MATE.log("WARNING: Dropping unexpected message from MATE-Server: "
+                        + response.getSubject());
+                continue;
+            }
+            endpointMetrics.recordResponse(pending.endpoint, System.nanoTime() - pending.sentAt,
+                    messageParser.getBytesRead() - bytesRead);
+
+            // the parser needs to be switched before the next response is read
+            if (pending.negotiatesProtocol) {
+                negotiateProtocol(response);
+            }
+            verifyMetadata(response);
+            if (response.getSubject().equals("/error")) {
+                MATE.log("Received error message from mate-server: "
+                        + response.getParameter("info"));
+                pending.complete(null);
+            } else {
+                stripMetadata(response);
+                pending.complete(response);
+            }
+        }
+    }
+
+    /**
+     * Fails all pending requests and marks the connection as broken, such that subsequent
+     * requests fail right away instead of waiting for a response that never arrives.
+     */
+    private void failPendingResponses(Throwable cause) {
+        synchronized (pendingResponses) {
+            connectionFailure = cause;
+            active = false;
+            for (ResponseFuture pending : pendingResponses.values()) {
+                pending.fail(cause);
+            }
+            pendingResponses.clear();
         }
-        stripMetadata(response);
-        return response;
     }
 
     /**
@@ -147,9 +603,53 @@ public class EnvironmentManager {
         return response.getParameter("response");
     }
 
-    private void addMetadata(Message message) {
-        message.addParameter(
-                METADATA_PREFIX + MESSAGE_PROTOCOL_VERSION_KEY, MESSAGE_PROTOCOL_VERSION);
+    /**
+     * Tunnels a command whose response is not needed over the legacy end point in the
+     * background, see {@link #sendNotification(Message)}.
+     *
+     * @param cmd The command string.
+     */
+    private void sendLegacyNotification(String cmd) {
+        sendNotification(new Message.MessageBuilder("/legacy")
+                .withParameter("cmd", cmd)
+                .build());
+    }
+
+    /**
+     * Creates the metadata of the next message. The metadata is written along with the
+     * message, thus the message itself is left untouched and may be sent again.
+     *
+     * @param requestId The id of the request.
+     * @return Returns the metadata parameters.
+     */
+    private Map<String, String> createMetadata(String requestId) {
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put(METADATA_PREFIX + MESSAGE_PROTOCOL_VERSION_KEY, protocolVersion);
+        metadata.put(METADATA_PREFIX + REQUEST_ID_KEY, requestId);
+        if (binaryProtocolRequested) {
+            metadata.put(
+                    METADATA_PREFIX + REQUESTED_PROTOCOL_VERSION_KEY, BINARY_MESSAGE_PROTOCOL_VERSION);
+        }
+        return metadata;
+    }
+
+    /**
+     * Switches to the binary message protocol if the MATE server acknowledged the request
+     * by answering with the binary protocol version.
+     *
+     * @param response The response to the message carrying the protocol request.
+     */
+    private void negotiateProtocol(Message response) {
+        String serverVersion = response.getParameter(
+                METADATA_PREFIX + MESSAGE_PROTOCOL_VERSION_KEY);
+        if (BINARY_MESSAGE_PROTOCOL_VERSION.equals(serverVersion)) {
+            protocolVersion = BINARY_MESSAGE_PROTOCOL_VERSION;
+            messageParser.useBinaryFormat();
+            MATE.log("Switched to binary message protocol version " + protocolVersion);
+        } else {
+            MATE.log("MATE-Server does not support the binary message protocol, keeping version "
+                    + protocolVersion);
+        }
     }
 
     private void stripMetadata(Message message) {
@@ -166,14 +666,14 @@ public class EnvironmentManager {
     }
 
     private void verifyMetadata(Message message) {
-        String protocolVersion = message.getParameter(
+        String serverVersion = message.getParameter(
                 METADATA_PREFIX + MESSAGE_PROTOCOL_VERSION_KEY);
-        if (!protocolVersion.equals(MESSAGE_PROTOCOL_VERSION)) {
+        if (!protocolVersion.equals(serverVersion)) {
             MATE.log(
                     "WARNING: Message protocol version used by MATE ("
-                            + MESSAGE_PROTOCOL_VERSION
-                            + ") does not match with the version used by MATE-Server ("
                             + protocolVersion
+                            + ") does not match with the version used by MATE-Server ("
+                            + serverVersion
                             + ")");
         }
     }
@@ -211,9 +711,13 @@ public class EnvironmentManager {
      * @return Returns the specified timeout.
      */
     public long getTimeout() {
-        long timeout = 0;
-        String cmd = "timeout";
-        return Long.valueOf(tunnelLegacyCmd(cmd));
+        Long timeout = responseCache.get(TIMEOUT_ENDPOINT, "");
+        if (timeout == null) {
+            String cmd = "timeout";
+            timeout = Long.valueOf(tunnelLegacyCmd(cmd));
+            responseCache.put(TIMEOUT_ENDPOINT, "", timeout);
+        }
+        return timeout;
     }
 
     /**
@@ -227,6 +731,32 @@ public class EnvironmentManager {
      */
     public void copyFitnessData(IChromosome<TestSuite> sourceChromosome,
                                  IChromosome<TestSuite> targetChromosome, List<TestCase> testCases) {
+        Message response = sendMessage(
+                createCopyFitnessDataMessage(sourceChromosome, targetChromosome, testCases));
+        if (response.getSubject().equals("/error")) {
+            MATE.log_acc("Copying fitness data failed!");
+            throw new IllegalStateException(response.getParameter("info"));
+        }
+    }
+
+    /**
+     * Adds the request for copying the fitness data of the given test cases from the source chromosome
+     * to the target chromosome to the given batch instead of sending it right away.
+     *
+     * @param sourceChromosome The source chromosome.
+     * @param targetChromosome The target chromosome.
+     * @param testCases The test cases belonging to the source chromosome.
+     * @param batch The batch collecting the messages.
+     */
+    public void copyFitnessData(IChromosome<TestSuite> sourceChromosome,
+                                 IChromosome<TestSuite> targetChromosome, List<TestCase> testCases,
+                                 MessageBatch batch) {
+        batch.add(createCopyFitnessDataMessage(sourceChromosome, targetChromosome, testCases));
+    }
+
+    private Message createCopyFitnessDataMessage(IChromosome<TestSuite> sourceChromosome,
+                                                 IChromosome<TestSuite> targetChromosome,
+                                                 List<TestCase> testCases) {
 
         // concatenate test cases
         StringBuilder sb = new StringBuilder();
@@ -245,11 +775,7 @@ public class EnvironmentManager {
                 .withParameter("chromosome_target", targetChromosome.toString())
                 .withParameter("entities", sb.toString());
 
-        Message response = sendMessage(messageBuilder.build());
-        if (response.getSubject().equals("/error")) {
-            MATE.log_acc("Copying fitness data failed!");
-            throw new IllegalStateException(response.getParameter("info"));
-        }
+        return messageBuilder.build();
     }
 
     /**
@@ -263,6 +789,32 @@ public class EnvironmentManager {
      */
     public void copyCoverageData(IChromosome<TestSuite> sourceChromosome,
                                  IChromosome<TestSuite> targetChromosome, List<TestCase> testCases) {
+        Message response = sendMessage(
+                createCopyCoverageDataMessage(sourceChromosome, targetChromosome, testCases));
+        if (response.getSubject().equals("/error")) {
+            MATE.log_acc("Copying coverage data failed!");
+            throw new IllegalStateException(response.getParameter("info"));
+        }
+    }
+
+    /**
+     * Adds the request for copying the coverage data of the given test cases from the source chromosome
+     * to the target chromosome to the given batch instead of sending it right away.
+     *
+     * @param sourceChromosome The source chromosome.
+     * @param targetChromosome The target chromosome.
+     * @param testCases The test cases belonging to the source chromosome.
+     * @param batch The batch collecting the messages.
+     */
+    public void copyCoverageData(IChromosome<TestSuite> sourceChromosome,
+                                 IChromosome<TestSuite> targetChromosome, List<TestCase> testCases,
+                                 MessageBatch batch) {
+        batch.add(createCopyCoverageDataMessage(sourceChromosome, targetChromosome, testCases));
+    }
+
+    private Message createCopyCoverageDataMessage(IChromosome<TestSuite> sourceChromosome,
+                                                  IChromosome<TestSuite> targetChromosome,
+                                                  List<TestCase> testCases) {
 
         // concatenate test cases
         StringBuilder sb = new StringBuilder();
@@ -281,11 +833,7 @@ public class EnvironmentManager {
                 .withParameter("chromosome_target", targetChromosome.toString())
                 .withParameter("entities", sb.toString());
 
-        Message response = sendMessage(messageBuilder.build());
-        if (response.getSubject().equals("/error")) {
-            MATE.log_acc("Copying coverage data failed!");
-            throw new IllegalStateException(response.getParameter("info"));
-        }
+        return messageBuilder.build();
     }
 
     /**
@@ -313,10 +861,13 @@ public class EnvironmentManager {
      * @return Returns the list of activities of the AUT.
      */
     public List<String> getActivityNames() {
-        List<String> activities = new ArrayList<>();
-
-        String cmd = "getActivities:" + emulator;
-        return Arrays.asList(tunnelLegacyCmd(cmd).split("\n"));
+        List<String> activities = responseCache.get(ACTIVITIES_ENDPOINT, emulator);
+        if (activities == null) {
+            String cmd = "getActivities:" + emulator;
+            activities = Collections.unmodifiableList(Arrays.asList(tunnelLegacyCmd(cmd).split("\n")));
+            responseCache.put(ACTIVITIES_ENDPOINT, emulator, activities);
+        }
+        return activities;
     }
 
     /**
@@ -470,12 +1021,77 @@ public class EnvironmentManager {
 
         GraphType graphType = Properties.GRAPH_TYPE();
 
-        Message.MessageBuilder messageBuilder = new Message.MessageBuilder("/graph/get_branches")
+        List<String> branches = responseCache.get(BRANCHES_ENDPOINT, graphType.name());
+        if (branches != null) {
+            return branches;
+        }
+
+        Message.MessageBuilder messageBuilder = new Message.MessageBuilder(BRANCHES_ENDPOINT)
+                .withParameter("graph_type", graphType.name());
+
+        Message response = sendMessage(messageBuilder.build());
+
+        branches = Collections.unmodifiableList(
+                Arrays.asList(response.getParameter("branches").split("\\+")));
+        responseCache.put(BRANCHES_ENDPOINT, graphType.name(), branches);
+        return branches;
+    }
+
+    /**
+     * Requests the control dependencies between the branches of the AUT, which the MATE server
+     * derives from the graph built by {@link #initGraph()}. A branch is control dependent on
+     * another branch if it can only be reached after the other branch has been taken. The
+     * MATE server answers with the edges {@code parent:child} separated by {@code +}, where
+     * both refer to the index of the branch in {@link #getBranches()}.
+     *
+     * @return Returns the indices of the branches each branch is control dependent on, indexed
+     *          like {@link #getBranches()}, or {@code null} if the MATE server doesn't support
+     *          this request. Branches without dependency are reachable from an entry point.
+     */
+    public List<List<Integer>> getBranchDependencies() {
+
+        GraphType graphType = Properties.GRAPH_TYPE();
+
+        List<List<Integer>> dependencies = responseCache.get(BRANCH_DEPENDENCIES_ENDPOINT, graphType.name());
+        if (dependencies != null) {
+            return dependencies;
+        }
+
+        int branches = getBranches().size();
+
+        Message.MessageBuilder messageBuilder = new Message.MessageBuilder(BRANCH_DEPENDENCIES_ENDPOINT)
                 .withParameter("graph_type", graphType.name());
 
         Message response = sendMessage(messageBuilder.build());
+        String edges = response != null ? response.getParameter("dependencies") : null;
+        if (edges == null) {
+            MATE.log("MATE-Server does not support branch dependencies!");
+            return null;
+        }
+
+        List<List<Integer>> parents = new ArrayList<>(branches);
+        for (int branch = 0; branch < branches; branch++) {
+            parents.add(new ArrayList<Integer>());
+        }
+
+        if (!edges.isEmpty()) {
+            for (String edge : edges.split("\\+")) {
+                int separator = edge.indexOf(':');
+                int parent = separator > 0 ? Integer.parseInt(edge.substring(0, separator)) : -1;
+                int child = separator > 0 ? Integer.parseInt(edge.substring(separator + 1)) : -1;
+                if (parent < 0 || parent >= branches || child < 0 || child >= branches) {
+                    throw new IllegalStateException("Malformed branch dependency " + edge + "!");
+                }
+                parents.get(child).add(parent);
+            }
+        }
 
-        return Arrays.asList(response.getParameter("branches").split("\\+"));
+        for (int branch = 0; branch < branches; branch++) {
+            parents.set(branch, Collections.unmodifiableList(parents.get(branch)));
+        }
+        dependencies = Collections.unmodifiableList(parents);
+        responseCache.put(BRANCH_DEPENDENCIES_ENDPOINT, graphType.name(), dependencies);
+        return dependencies;
     }
 
     /**
@@ -487,12 +1103,50 @@ public class EnvironmentManager {
      */
     public void storeFitnessData(String chromosomeId, String entityId) {
 
-        String testcase = entityId == null ? chromosomeId : entityId;
-        if (coveredTestCases.contains(testcase)) {
+        Message message = createStoreFitnessDataMessage(chromosomeId, entityId);
+        if (message == null) {
             // don't fetch again traces file from emulator
             return;
         }
-        coveredTestCases.add(testcase);
+
+        Message response = sendMessage(message);
+
+        if (response.getSubject().equals("/error")) {
+            MATE.log_acc("Storing fitness data failed!");
+            throw new IllegalStateException(response.getParameter("info"));
+        }
+    }
+
+    /**
+     * Adds the request for storing the fitness data of the given chromosome to the given batch
+     * instead of sending it right away. Note that the batch needs to be sent before the app
+     * is reset, otherwise the traces are lost.
+     *
+     * @param chromosomeId Identifies either a test case or a test suite.
+     * @param entityId     Identifies the test case if chromosomeId specifies a test suite,
+     *                     otherwise {@code null}.
+     * @param batch        The batch collecting the messages.
+     */
+    public void storeFitnessData(String chromosomeId, String entityId, MessageBatch batch) {
+        Message message = createStoreFitnessDataMessage(chromosomeId, entityId);
+        if (message != null) {
+            batch.add(message);
+        }
+    }
+
+    /**
+     * Creates the message for storing the fitness data of the given chromosome.
+     *
+     * @return Returns the message or {@code null} if the traces have been already fetched.
+     */
+    private Message createStoreFitnessDataMessage(String chromosomeId, String entityId) {
+
+        String testcase = entityId == null ? chromosomeId : entityId;
+        // checks and marks the test case atomically
+        if (!coveredTestCases.add(testcase)) {
+            return null;
+        }
+        recordTraceLocation(chromosomeId, testcase);
 
         Message.MessageBuilder messageBuilder = new Message.MessageBuilder("/utility/store_fitness_data")
                 .withParameter("fitnessFunction", Properties.FITNESS_FUNCTION())
@@ -502,13 +1156,7 @@ public class EnvironmentManager {
         if (entityId != null) {
             messageBuilder.withParameter("entity", entityId);
         }
-
-        Message response = sendMessage(messageBuilder.build());
-
-        if (response.getSubject().equals("/error")) {
-            MATE.log_acc("Storing fitness data failed!");
-            throw new IllegalStateException(response.getParameter("info"));
-        }
+        return messageBuilder.build();
     }
 
     /**
@@ -537,23 +1185,126 @@ public class EnvironmentManager {
      * @param <T>        Specifies whether the chromosome refers to a test case or a test suite.
      * @return Returns the branch distance vector for the given chromosome.
      */
-    public <T> List<Double> getBranchDistanceVector(IChromosome<T> chromosome) {
+    public <T> double[] getBranchDistanceVector(IChromosome<T> chromosome) {
 
         Message.MessageBuilder messageBuilder = new Message.MessageBuilder("/graph/get_branch_distance_vector")
                 .withParameter("deviceId", emulator)
                 // required for sending a broadcast to the AUT (target component), may use app name of graph from init request
                 .withParameter("packageName", MATE.packageName)
                 .withParameter("chromosomes", chromosome.getValue().toString());
+        requestVectorEncoding(messageBuilder);
 
         Message response = sendMessage(messageBuilder.build());
-        List<Double> branchDistanceVector = new ArrayList<>();
-        String[] branchDistances = response.getParameter("branch_distance_vector").split("\\+");
+        return parseVector(response, "branch_distance_vector", '+');
+    }
+
+    /**
+     * Retrieves the branch distance vectors of the given chromosomes within a single request.
+     * The MATE server answers with a row-major matrix of {@code rows x cols} entries, where
+     * the rows refer to the chromosomes in the given order and the columns to the branches.
+     * If the MATE server doesn't support this request, the vectors are retrieved one by one.
+     *
+     * @param chromosomes The given chromosomes.
+     * @param <T>         Specifies whether the chromosomes refer to test cases or test suites.
+     * @return Returns the branch distance vectors in the order of the given chromosomes.
+     */
+    public <T> double[][] getBranchDistanceMatrix(List<IChromosome<T>> chromosomes) {
+
+        double[][] matrix = new double[chromosomes.size()][];
+
+        if (chromosomes.size() > 1 && branchDistanceMatrixSupported) {
+            Message.MessageBuilder messageBuilder = new Message.MessageBuilder(BRANCH_DISTANCE_MATRIX_ENDPOINT)
+                    .withParameter("deviceId", emulator)
+                    .withParameter("packageName", MATE.packageName)
+                    .withJoinedParameter("chromosomes", valuesOf(chromosomes), '+');
+            requestVectorEncoding(messageBuilder);
+
+            Message response = sendMessage(messageBuilder.build());
+            if (response != null && response.getParameter("branch_distance_matrix") != null) {
+                int rows = Integer.parseInt(response.getParameter("rows"));
+                int cols = Integer.parseInt(response.getParameter("cols"));
+                double[] entries = parseVector(response, "branch_distance_matrix", '+');
+                if (rows != chromosomes.size() || entries.length != rows * cols) {
+                    throw new IllegalStateException("Expected branch distance matrix of "
+                            + chromosomes.size() + " rows but got " + rows + "x" + cols
+                            + " with " + entries.length + " entries!");
+                }
+                for (int row = 0; row < rows; row++) {
+                    matrix[row] = Arrays.copyOfRange(entries, row * cols, (row + 1) * cols);
+                }
+                return matrix;
+            }
+            MATE.log("MATE-Server does not support branch distance matrices, requesting vectors one by one");
+            branchDistanceMatrixSupported = false;
+        }
 
-        for (String branchDistance : branchDistances) {
-            branchDistanceVector.add(Double.parseDouble(branchDistance));
+        for (int row = 0; row < chromosomes.size(); row++) {
+            matrix[row] = getBranchDistanceVector(chromosomes.get(row));
         }
+        return matrix;
+    }
+
+    /**
+     * Provides a view of the values, i.e. the test cases or test suites, of the given chromosomes,
+     * such that their ids can be streamed into a message without joining them upfront.
+     *
+     * @param chromosomes The given chromosomes.
+     * @param <T> Specifies whether the chromosomes refer to test cases or test suites.
+     * @return Returns an iterable over the values of the chromosomes.
+     */
+    private static <T> Iterable<T> valuesOf(final List<IChromosome<T>> chromosomes) {
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                final Iterator<IChromosome<T>> iterator = chromosomes.iterator();
+                return new Iterator<T>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public T next() {
+                        return iterator.next().getValue();
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException("Chromosome ids are read-only!");
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Asks the MATE server to send numeric vectors in the configured packed encoding.
+     *
+     * @param messageBuilder The builder of the request.
+     */
+    private void requestVectorEncoding(Message.MessageBuilder messageBuilder) {
+        VectorEncoding encoding = Properties.VECTOR_ENCODING();
+        if (encoding != VectorEncoding.TEXT) {
+            messageBuilder.withParameter(VECTOR_ENCODING_KEY, encoding.name().toLowerCase());
+        }
+    }
 
-        return branchDistanceVector;
+    /**
+     * Extracts a numeric vector from the given response. The vector is either packed, if the
+     * MATE server reports the used encoding, or given as separator delimited list of decimals.
+     *
+     * @param response The response containing the vector.
+     * @param key The parameter holding the vector.
+     * @param separator The separator used in the textual representation.
+     * @return Returns the extracted vector.
+     */
+    private double[] parseVector(Message response, String key, char separator) {
+        String encoding = response.getParameter(VECTOR_ENCODING_KEY);
+        if (encoding == null) {
+            // the server doesn't support packed vectors
+            return VectorCodec.parseText(response.getParameter(key), separator);
+        }
+        return VectorCodec.decode(response.getParameter(key), VectorEncoding.valueOf(encoding.toUpperCase()));
     }
 
     /**
@@ -564,14 +1315,21 @@ public class EnvironmentManager {
      * @return Returns the sources lines of the AUT.
      */
     public List<String> getSourceLines() {
-        Message response = sendMessage(new Message.MessageBuilder("/coverage/getSourceLines")
+        List<String> lines = responseCache.get(SOURCE_LINES_ENDPOINT, emulator);
+        if (lines != null) {
+            return lines;
+        }
+
+        Message response = sendMessage(new Message.MessageBuilder(SOURCE_LINES_ENDPOINT)
                 .withParameter("deviceId", emulator)
                 .build());
-        if (!"/coverage/getSourceLines".equals(response.getSubject())) {
+        if (!SOURCE_LINES_ENDPOINT.equals(response.getSubject())) {
             MATE.log_acc("ERROR: unable to retrieve source lines");
             return null;
         }
-        return Arrays.asList(response.getParameter("lines").split("\n"));
+        lines = Collections.unmodifiableList(Arrays.asList(response.getParameter("lines").split("\n")));
+        responseCache.put(SOURCE_LINES_ENDPOINT, emulator, lines);
+        return lines;
     }
 
     /**
@@ -584,15 +1342,53 @@ public class EnvironmentManager {
      *                     otherwise {@code null}.
      */
     public void storeCoverageData(Coverage coverage, String chromosomeId, String entityId) {
+        MessageBatch batch = new MessageBatch();
+        storeCoverageData(coverage, chromosomeId, entityId, batch);
+        if (!batch.isEmpty()) {
+            sendBatch(batch);
+        }
+    }
+
+    /**
+     * Adds the request for storing the coverage information of the given test case to the
+     * given batch instead of sending it right away. Note that the batch needs to be sent
+     * before the app is reset, otherwise the coverage information is lost.
+     *
+     * @param coverage     The coverage type, e.g. BRANCH_COVERAGE.
+     * @param chromosomeId Identifies either a test case or a test suite.
+     * @param entityId     Identifies the test case if chromosomeId specifies a test suite,
+     *                     otherwise {@code null}.
+     * @param batch        The batch collecting the messages.
+     */
+    public void storeCoverageData(Coverage coverage, String chromosomeId, String entityId,
+                                  MessageBatch batch) {
+        Message message = createStoreCoverageDataMessage(coverage, chromosomeId, entityId);
+        if (message != null) {
+            batch.add(message);
+            if (coverageBitmapsSupported
+                    && (coverage == Coverage.LINE_COVERAGE || coverage == Coverage.BRANCH_COVERAGE)) {
+                // the coverage bitmap is answered within the same round trip
+                batch.add(createCoveredMessage(coverage, chromosomeId, entityId == null ? chromosomeId : entityId));
+            }
+        }
+    }
+
+    /**
+     * Creates the message for storing the coverage information of the given test case.
+     *
+     * @return Returns the message or {@code null} if the traces have been already fetched.
+     */
+    private Message createStoreCoverageDataMessage(Coverage coverage, String chromosomeId,
+                                                   String entityId) {
 
         if (coverage == Coverage.BRANCH_COVERAGE || coverage == Coverage.LINE_COVERAGE) {
             // check whether the storing of the traces/coverage file has been already requested
             String testcase = entityId == null ? chromosomeId : entityId;
-            if (coveredTestCases.contains(testcase)) {
+            if (!coveredTestCases.add(testcase)) {
                 // don't fetch again traces/coverage file from emulator
-                return;
+                return null;
             }
-            coveredTestCases.add(testcase);
+            recordTraceLocation(chromosomeId, testcase);
         }
 
         Message.MessageBuilder messageBuilder = new Message.MessageBuilder("/coverage/store")
@@ -602,11 +1398,13 @@ public class EnvironmentManager {
         if (entityId != null) {
             messageBuilder.withParameter("entity", entityId);
         }
-        sendMessage(messageBuilder.build());
+        return messageBuilder.build();
     }
 
     /**
      * Requests the combined coverage information for the given set of test cases / test suites.
+     * Line and branch coverage are computed on the device from the coverage bitmaps of the test
+     * cases if the MATE server sends them, otherwise the MATE server computes the coverage.
      *
      * @param coverage    The coverage type, e.g. BRANCH_COVERAGE.
      * @param chromosomes The list of chromosomes (test cases or test suites) for which the
@@ -614,36 +1412,180 @@ public class EnvironmentManager {
      * @param <T>         Refers to a test case or a test suite.
      * @return Returns the combined coverage information for a set of chromosomes.
      */
-    public <T> double getCombinedCoverage(Coverage coverage, List<IChromosome<T>> chromosomes) {
+    public <T> double getCombinedCoverage(Coverage coverage, final List<IChromosome<T>> chromosomes) {
 
-        String chromosomesParam = null;
+        double localCoverage = getLocalCoverage(coverage, chromosomes);
+        if (!Double.isNaN(localCoverage)) {
+            return localCoverage;
+        }
 
+        Message.MessageBuilder messageBuilder = new Message.MessageBuilder("/coverage/combined")
+                .withParameter("deviceId", emulator)
+                .withParameter("packageName", MATE.packageName)
+                .withParameter("coverage_type", coverage.name());
         if (chromosomes != null) {
+            // the chromosome ids are streamed into the message without joining them upfront
+            messageBuilder.withJoinedParameter("chromosomes", valuesOf(chromosomes), '+');
+        }
 
-            // Java 8: String.join("+", chromosomeIds);
-            StringBuilder chromosomeIds = new StringBuilder();
+        Message response = sendMessage(messageBuilder.build());
+        return Double.parseDouble(response.getParameter("coverage"));
+    }
 
+    /**
+     * Computes the combined coverage of the given chromosomes on the device by uniting the
+     * coverage bitmaps of their test cases. Missing bitmaps are retrieved from the MATE server.
+     *
+     * @param coverage    The coverage type, e.g. BRANCH_COVERAGE.
+     * @param chromosomes The chromosomes or {@code null} for all test cases stored so far.
+     * @param <T>         Refers to a test case or a test suite.
+     * @return Returns the combined coverage or {@link Double#NaN} if the coverage needs to be
+     *          computed by the MATE server.
+     */
+    private <T> double getLocalCoverage(Coverage coverage, List<IChromosome<T>> chromosomes) {
+
+        if (!coverageBitmapsSupported
+                || (coverage != Coverage.LINE_COVERAGE && coverage != Coverage.BRANCH_COVERAGE)) {
+            return Double.NaN;
+        }
+
+        List<String> testCases = new ArrayList<>();
+        if (chromosomes == null) {
+            synchronized (coverageLock) {
+                testCases.addAll(traceLocations.keySet());
+            }
+        } else {
             for (IChromosome<T> chromosome : chromosomes) {
-                chromosomeIds.append(chromosome.getValue());
-                chromosomeIds.append("+");
+                if (chromosome.getValue() instanceof TestSuite) {
+                    for (TestCase testCase : ((TestSuite) chromosome.getValue()).getTestCases()) {
+                        testCases.add(testCase.toString());
+                    }
+                } else {
+                    testCases.add(chromosome.getValue().toString());
+                }
+            }
+        }
+
+        List<CoverageBitmap> bitmaps = getCoverageBitmaps(coverage, testCases);
+        if (bitmaps == null) {
+            return Double.NaN;
+        }
+
+        int objectives = coverage == Coverage.LINE_COVERAGE ? getSourceLines().size() : getBranches().size();
+        return (double) CoverageBitmap.union(bitmaps).cardinality() / objectives * 100;
+    }
+
+    /**
+     * Returns the lines or branches covered by the given test cases. The bitmaps are usually
+     * recorded when the traces are stored, the missing ones are requested within a single
+     * round trip.
+     *
+     * @param coverage The coverage type, i.e. LINE_COVERAGE or BRANCH_COVERAGE.
+     * @param testCases Identifies the test cases.
+     * @return Returns the coverage bitmaps or {@code null} if the MATE server doesn't send
+     *          coverage bitmaps or the traces of a test case haven't been stored.
+     */
+    private List<CoverageBitmap> getCoverageBitmaps(Coverage coverage, List<String> testCases) {
+
+        MessageBatch batch = new MessageBatch();
+        synchronized (coverageLock) {
+            Map<String, CoverageBitmap> bitmaps = getCoverageBitmaps(coverage);
+            for (String testCase : testCases) {
+                if (!bitmaps.containsKey(testCase)) {
+                    String chromosomeId = traceLocations.get(testCase);
+                    if (chromosomeId == null) {
+                        return null;
+                    }
+                    batch.add(createCoveredMessage(coverage, chromosomeId, testCase));
+                }
             }
+        }
 
-            // remove '+' at the end
-            chromosomeIds.setLength(chromosomeIds.length() - 1);
+        // the server is not contacted while holding the lock
+        if (!batch.isEmpty()) {
+            sendBatch(batch);
+        }
 
-            chromosomesParam = chromosomeIds.toString();
+        synchronized (coverageLock) {
+            Map<String, CoverageBitmap> bitmaps = getCoverageBitmaps(coverage);
+            List<CoverageBitmap> result = new ArrayList<>(testCases.size());
+            for (String testCase : testCases) {
+                CoverageBitmap bitmap = bitmaps.get(testCase);
+                if (bitmap == null) {
+                    return null;
+                }
+                result.add(bitmap);
+            }
+            return result;
         }
+    }
 
-        Message.MessageBuilder messageBuilder = new Message.MessageBuilder("/coverage/combined")
+    private Map<String, CoverageBitmap> getCoverageBitmaps(Coverage coverage) {
+        Map<String, CoverageBitmap> bitmaps = coverageBitmaps.get(coverage);
+        if (bitmaps == null) {
+            bitmaps = new HashMap<>();
+            coverageBitmaps.put(coverage, bitmaps);
+        }
+        return bitmaps;
+    }
+
+    /**
+     * Creates the message requesting the coverage bitmap of the given test case.
+     *
+     * @param coverage     The coverage type, i.e. LINE_COVERAGE or BRANCH_COVERAGE.
+     * @param chromosomeId Identifies the test case or the test suite the traces are stored under.
+     * @param testCase     Identifies the test case.
+     * @return Returns the message.
+     */
+    private Message createCoveredMessage(Coverage coverage, String chromosomeId, String testCase) {
+        Message.MessageBuilder messageBuilder = new Message.MessageBuilder(COVERED_ENDPOINT)
                 .withParameter("deviceId", emulator)
                 .withParameter("packageName", MATE.packageName)
-                .withParameter("coverage_type", coverage.name());
-        if (chromosomesParam != null) {
-            messageBuilder.withParameter("chromosomes", chromosomesParam);
+                .withParameter("coverage_type", coverage.name())
+                .withParameter("chromosome", chromosomeId);
+        if (!chromosomeId.equals(testCase)) {
+            messageBuilder.withParameter("entity", testCase);
         }
+        return messageBuilder.build();
+    }
 
-        Message response = sendMessage(messageBuilder.build());
-        return Double.parseDouble(response.getParameter("coverage"));
+    /**
+     * Records the coverage bitmap answered by the MATE server.
+     *
+     * @param request  The request of the bitmap, see {@link #createCoveredMessage(Coverage, String, String)}.
+     * @param response The response or {@code null} if the server answered with an error message.
+     */
+    private void recordCoverageBitmap(Message request, Message response) {
+
+        if (response == null || response.getParameter("covered") == null) {
+            if (coverageBitmapsSupported) {
+                MATE.log("MATE-Server does not support coverage bitmaps, requesting combined coverage");
+                coverageBitmapsSupported = false;
+            }
+            return;
+        }
+
+        Coverage coverage = Coverage.valueOf(request.getParameter("coverage_type"));
+        String testCase = request.getParameter("entity") != null
+                ? request.getParameter("entity") : request.getParameter("chromosome");
+        synchronized (coverageLock) {
+            getCoverageBitmaps(coverage).put(testCase, CoverageBitmap.parse(response.getParameter("covered")));
+        }
+    }
+
+    /**
+     * Remembers under which chromosome the traces of the given test case are stored, such that
+     * its coverage bitmap can be requested later on.
+     *
+     * @param chromosomeId Identifies either a test case or a test suite.
+     * @param testCase     Identifies the test case.
+     */
+    private void recordTraceLocation(String chromosomeId, String testCase) {
+        synchronized (coverageLock) {
+            if (!traceLocations.containsKey(testCase)) {
+                traceLocations.put(testCase, chromosomeId);
+            }
+        }
     }
 
     /**
@@ -655,14 +1597,67 @@ public class EnvironmentManager {
      * @return Returns the coverage of the given test case.
      */
     public double getCoverage(Coverage coverage, String chromosomeId) {
+        Message response = sendMessage(createGetCoverageMessage(coverage, chromosomeId));
+        return Double.parseDouble(response.getParameter("coverage"));
+    }
 
-        Message.MessageBuilder messageBuilder = new Message.MessageBuilder("/coverage/combined")
+    /**
+     * Requests the coverage information for a given chromosome as the last message of the
+     * given batch, i.e. the batch is sent.
+     *
+     * @param coverage     The coverage type, e.g. BRANCH_COVERAGE.
+     * @param chromosomeId Identifies either a test case or a test suite.
+     * @param batch        The batch containing the preceding messages, e.g. storing the traces.
+     * @return Returns the coverage of the given test case.
+     */
+    public double getCoverage(Coverage coverage, String chromosomeId, MessageBatch batch) {
+        int index = batch.add(createGetCoverageMessage(coverage, chromosomeId));
+        Message response = sendBatch(batch).get(index);
+        return Double.parseDouble(response.getParameter("coverage"));
+    }
+
+    /**
+     * Returns the coverage of the given chromosome. The coverage is computed on the device from
+     * the coverage bitmaps of its test cases if the MATE server sends them.
+     *
+     * @param coverage   The coverage type, e.g. BRANCH_COVERAGE.
+     * @param chromosome The chromosome, i.e. a test case or a test suite.
+     * @param <T>        Refers to a test case or a test suite.
+     * @return Returns the coverage of the given chromosome.
+     */
+    public <T> double getCoverage(Coverage coverage, IChromosome<T> chromosome) {
+        double localCoverage = getLocalCoverage(coverage, Collections.singletonList(chromosome));
+        if (!Double.isNaN(localCoverage)) {
+            return localCoverage;
+        }
+        return getCoverage(coverage, chromosome.toString());
+    }
+
+    /**
+     * Returns the coverage of the given chromosome after sending the given batch, e.g. storing
+     * the traces of the chromosome.
+     *
+     * @param coverage   The coverage type, e.g. BRANCH_COVERAGE.
+     * @param chromosome The chromosome, i.e. a test case or a test suite.
+     * @param batch      The batch containing the preceding messages.
+     * @param <T>        Refers to a test case or a test suite.
+     * @return Returns the coverage of the given chromosome.
+     */
+    public <T> double getCoverage(Coverage coverage, IChromosome<T> chromosome, MessageBatch batch) {
+        if (!coverageBitmapsSupported) {
+            return getCoverage(coverage, chromosome.toString(), batch);
+        }
+        sendBatch(batch);
+        return getCoverage(coverage, chromosome);
+    }
+
+    private Message createGetCoverageMessage(Coverage coverage, String chromosomeId) {
+        return new Message.MessageBuilder("/coverage/combined")
                 .withParameter("deviceId", emulator)
                 .withParameter("coverage_type", coverage.name())
                 .withParameter("packageName", MATE.packageName)
-                .withParameter("chromosomes", chromosomeId);
-        Message response = sendMessage(messageBuilder.build());
-        return Double.parseDouble(response.getParameter("coverage"));
+                .withParameter("chromosomes", chromosomeId)
+                .build();
     }
 
     /**
@@ -672,41 +1667,79 @@ public class EnvironmentManager {
      * @param chromosome The given chromosome.
      * @param lines The lines for which coverage should be retrieved.
      * @param <T> Indicates the type of the chromosome, i.e. test case or test suite.
-     * @return
+     * @return Returns the covered percentage of each line in the order of the given lines.
      */
-    public <T> List<Double> getLineCoveredPercentage(IChromosome<T> chromosome, List<String> lines) {
-
-        // concatenate lines
-        StringBuilder sb = new StringBuilder();
-
-        for (String line : lines) {
-            sb.append(line);
-            sb.append("*");
-        }
-        if (!lines.isEmpty()) {
-            sb.setLength(sb.length() - 1);
-        }
+    public <T> double[] getLineCoveredPercentage(IChromosome<T> chromosome, List<String> lines) {
 
         Message.MessageBuilder messageBuilder = new Message.MessageBuilder("/coverage/lineCoveredPercentages")
                 .withParameter("deviceId", emulator)
-                .withParameter("lines", sb.toString())
                 .withParameter("chromosomes", chromosome.toString());
+
+        String linesHandle = registerLines(lines);
+        if (linesHandle != null) {
+            messageBuilder.withParameter("lines_handle", linesHandle);
+        } else {
+            messageBuilder.withParameter("lines", joinLines(lines));
+        }
+        requestVectorEncoding(messageBuilder);
+
         Message response = sendMessage(messageBuilder.build());
 
-        if (response.getSubject().equals("/error")) {
+        if (response == null) {
             MATE.log_acc("Retrieving line covered percentages failed!");
-            throw new IllegalStateException(response.getParameter("info"));
-        } else {
-            // convert result
-            List<Double> coveragePercentagesVector = new ArrayList<>();
-            String[] coveragePercentages = response.getParameter("coveragePercentages").split("\n");
+            throw new IllegalStateException("Retrieving line covered percentages failed!");
+        }
+        return parseVector(response, "coveragePercentages", '\n');
+    }
 
-            for (String coveragePercentage : coveragePercentages) {
-                coveragePercentagesVector.add(Double.parseDouble(coveragePercentage));
-            }
+    /**
+     * Registers the given set of lines with the MATE server, such that subsequent requests
+     * can refer to it by a handle instead of sending all lines again. The handle is reused
+     * as long as the same list is passed and no lines have been added to it in the meantime.
+     *
+     * @param lines The lines to be registered.
+     * @return Returns the handle of the line set or {@code null} if the server doesn't
+     *          support the registration of lines.
+     */
+    private synchronized String registerLines(List<String> lines) {
+
+        if (!lineRegistrationSupported) {
+            return null;
+        }
+
+        if (lines == registeredLines && lines.size() == registeredLinesSize) {
+            return registeredLinesHandle;
+        }
+
+        Message response = sendMessage(new Message.MessageBuilder("/coverage/registerLines")
+                .withParameter("deviceId", emulator)
+                .withParameter("lines", joinLines(lines))
+                .build());
+
+        if (response == null || response.getParameter("handle") == null) {
+            MATE.log("MATE-Server does not support registering lines, sending them with each request");
+            lineRegistrationSupported = false;
+            return null;
+        }
 
-            return coveragePercentagesVector;
+        registeredLines = lines;
+        registeredLinesSize = lines.size();
+        registeredLinesHandle = response.getParameter("handle");
+        return registeredLinesHandle;
+    }
+
+    private static String joinLines(List<String> lines) {
+
+        StringBuilder sb = new StringBuilder();
+
+        for (String line : lines) {
+            sb.append(line);
+            sb.append("*");
         }
+        if (!lines.isEmpty()) {
+            sb.setLength(sb.length() - 1);
+        }
+        return sb.toString();
     }
 
     /**
@@ -726,7 +1759,13 @@ public class EnvironmentManager {
      * @return Returns a mapping of the specified properties.
      */
     public Map<String, String> getProperties() {
-        return sendMessage(new Message("/properties")).getParameters();
+        Map<String, String> properties = responseCache.get(PROPERTIES_ENDPOINT, "");
+        if (properties == null) {
+            properties = Collections.unmodifiableMap(
+                    sendMessage(new Message(PROPERTIES_ENDPOINT)).getParameters());
+            responseCache.put(PROPERTIES_ENDPOINT, "", properties);
+        }
+        return properties;
     }
 
     /**
@@ -737,12 +1776,12 @@ public class EnvironmentManager {
      */
     public void screenShot(String packageName, String nodeId) {
         String cmd = "screenshot:" + emulator + ":" + emulator + "_" + packageName + "_" + nodeId + ".png";
-        tunnelLegacyCmd(cmd);
+        sendLegacyNotification(cmd);
     }
 
     public void screenShotForFlickerDetection(String packageName, String nodeId) {
         String cmd = "flickerScreenshot:" + emulator + ":" + emulator + "_" + packageName + "_" + nodeId + ".png";
-        tunnelLegacyCmd(cmd);
+        sendLegacyNotification(cmd);
     }
 
     /**
@@ -824,14 +1863,19 @@ public class EnvironmentManager {
     }
 
     public long getRandomLength() {
-        String cmd = "randomlength";
-        return Long.valueOf(tunnelLegacyCmd(cmd));
+        Long randomLength = responseCache.get(RANDOM_LENGTH_ENDPOINT, "");
+        if (randomLength == null) {
+            String cmd = "randomlength";
+            randomLength = Long.valueOf(tunnelLegacyCmd(cmd));
+            responseCache.put(RANDOM_LENGTH_ENDPOINT, "", randomLength);
+        }
+        return randomLength;
     }
 
 
     public void sendFlawToServer(String msg) {
         String cmd = "reportFlaw:" + emulator + ":" + msg;
-        tunnelLegacyCmd(cmd);
+        sendLegacyNotification(cmd);
     }
 
     /**
@@ -862,4 +1906,75 @@ public class EnvironmentManager {
             MATE.log_acc("ERROR: unable to toggle rotation of emulator");
         }
     }
+
+    /**
+     * The future of a response of the MATE server, completed by the {@link #responseReader}.
+     */
+    private static class ResponseFuture implements Future<Message> {
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        // whether the request asked the server to switch the message protocol
+        private final boolean negotiatesProtocol;
+
+        // the endpoint of the request and the time it was sent, used for the endpoint metrics
+        private final String endpoint;
+        private final long sentAt = System.nanoTime();
+
+        private Message response;
+        private Throwable failure;
+
+        private ResponseFuture(boolean negotiatesProtocol, String endpoint) {
+            this.negotiatesProtocol = negotiatesProtocol;
+            this.endpoint = endpoint;
+        }
+
+        private void complete(Message response) {
+            this.response = response;
+            done.countDown();
+        }
+
+        private void fail(Throwable failure) {
+            this.failure = failure;
+            done.countDown();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            // the request has already been sent
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        @Override
+        public Message get() throws InterruptedException, ExecutionException {
+            done.await();
+            return result();
+        }
+
+        @Override
+        public Message get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            if (!done.await(timeout, unit)) {
+                throw new TimeoutException("No response from MATE-Server within " + timeout + " " + unit);
+            }
+            return result();
+        }
+
+        private Message result() throws ExecutionException {
+            if (failure != null) {
+                throw new ExecutionException(failure);
+            }
+            return response;
+        }
+    }
 }
@@ -0,0 +1,160 @@
+package org.mate.ui;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Caches the parsed responses of the MATE server for queries whose result doesn't change
+ * (or changes rarely) during a run, e.g. the list of activities or source lines of the AUT.
+ * Each endpoint is declared with a {@link Policy}, undeclared endpoints are never cached.
+ * Cached values are shared between callers and thus should be immutable.
+ */
+public class ResponseCache {
+
+    /**
+     * Describes how long the response of an endpoint may be served from the cache.
+     */
+    public enum Policy {
+        // the response never changes during a run
+        STATIC,
+        // the response may be reused until a time to live expired
+        TTL,
+        // the response is always requested from the server
+        NEVER
+    }
+
+    private static class Declaration {
+        private final Policy policy;
+        private final long ttlMillis;
+        private int hits = 0;
+        private int misses = 0;
+
+        private Declaration(Policy policy, long ttlMillis) {
+            this.policy = policy;
+            this.ttlMillis = ttlMillis;
+        }
+    }
+
+    private static class Entry {
+        private final Object value;
+        private final long expiresAt;
+
+        private Entry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final Map<String, Declaration> declarations = new HashMap<>();
+
+    // the cached values per endpoint and request key
+    private final Map<String, Map<String, Entry>> entries = new HashMap<>();
+
+    /**
+     * Declares the caching policy of the given endpoint.
+     *
+     * @param endpoint The endpoint, e.g. the subject of the request.
+     * @param policy Either {@link Policy#STATIC} or {@link Policy#NEVER}.
+     */
+    public synchronized void declare(String endpoint, Policy policy) {
+        if (policy == Policy.TTL) {
+            throw new IllegalArgumentException("A TTL policy requires a time to live!");
+        }
+        declarations.put(endpoint, new Declaration(policy, 0));
+    }
+
+    /**
+     * Declares that responses of the given endpoint may be reused for the given time.
+     *
+     * @param endpoint The endpoint, e.g. the subject of the request.
+     * @param ttlMillis The time to live of a response in milliseconds.
+     */
+    public synchronized void declareTtl(String endpoint, long ttlMillis) {
+        declarations.put(endpoint, new Declaration(Policy.TTL, ttlMillis));
+    }
+
+    /**
+     * Looks up the cached response of the given endpoint.
+     *
+     * @param endpoint The endpoint, e.g. the subject of the request.
+     * @param key Identifies the request among all requests of the endpoint, e.g. the device id.
+     * @param <T> The type of the cached value.
+     * @return Returns the cached value or {@code null} if the value needs to be requested.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T get(String endpoint, String key) {
+        Declaration declaration = declarations.get(endpoint);
+        if (declaration == null || declaration.policy == Policy.NEVER) {
+            return null;
+        }
+
+        Map<String, Entry> endpointEntries = entries.get(endpoint);
+        Entry entry = endpointEntries == null ? null : endpointEntries.get(key);
+        if (entry == null || (declaration.policy == Policy.TTL
+                && System.currentTimeMillis() >= entry.expiresAt)) {
+            declaration.misses++;
+            return null;
+        }
+
+        declaration.hits++;
+        return (T) entry.value;
+    }
+
+    /**
+     * Caches the response of the given endpoint if its policy permits it.
+     *
+     * @param endpoint The endpoint, e.g. the subject of the request.
+     * @param key Identifies the request among all requests of the endpoint, e.g. the device id.
+     * @param value The parsed response.
+     */
+    public synchronized void put(String endpoint, String key, Object value) {
+        Declaration declaration = declarations.get(endpoint);
+        if (declaration == null || declaration.policy == Policy.NEVER || value == null) {
+            return;
+        }
+
+        Map<String, Entry> endpointEntries = entries.get(endpoint);
+        if (endpointEntries == null) {
+            endpointEntries = new HashMap<>();
+            entries.put(endpoint, endpointEntries);
+        }
+        endpointEntries.put(key, new Entry(value, System.currentTimeMillis() + declaration.ttlMillis));
+    }
+
+    /**
+     * Drops all cached responses of the given endpoint.
+     *
+     * @param endpoint The endpoint, e.g. the subject of the request.
+     */
+    public synchronized void invalidate(String endpoint) {
+        entries.remove(endpoint);
+    }
+
+    public synchronized int getHits(String endpoint) {
+        Declaration declaration = declarations.get(endpoint);
+        return declaration == null ? 0 : declaration.hits;
+    }
+
+    public synchronized int getMisses(String endpoint) {
+        Declaration declaration = declarations.get(endpoint);
+        return declaration == null ? 0 : declaration.misses;
+    }
+
+    /**
+     * Summarises the hits and misses of the declared endpoints.
+     *
+     * @return Returns one line per endpoint.
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder("Response cache statistics:");
+        for (Map.Entry<String, Declaration> declaration : new TreeMap<>(declarations).entrySet()) {
+            sb.append("\n\t").append(declaration.getKey())
+                    .append(" (").append(declaration.getValue().policy).append("): ")
+                    .append(declaration.getValue().hits).append(" hits, ")
+                    .append(declaration.getValue().misses).append(" misses");
+        }
+        return sb.toString();
+    }
+}
@@ -2,6 +2,7 @@ package org.mate.ui;
 
 
 import org.mate.MATE;
+import org.mate.model.SymbolTable;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -16,6 +17,8 @@ public class Widget {
     private Widget parent;
     private String id;
     private String idByActivity;
+    // the id of idByActivity in SymbolTable.WIDGETS, interned on demand (ids are only valid within a run)
+    private transient Integer idByActivitySymbol;
     private String clazz;
     private String text;
     private String resourceID;
@@ -462,6 +465,19 @@ public class Widget {
 
     public void setIdByActivity(String idByActivity) {
         this.idByActivity = idByActivity;
+        idByActivitySymbol = null;
+    }
+
+    /**
+     * Returns the dense id of {@link #getIdByActivity()} as interned by {@link SymbolTable#WIDGETS}.
+     *
+     * @return Returns the interned widget id.
+     */
+    public int getIdByActivitySymbol() {
+        if (idByActivitySymbol == null) {
+            idByActivitySymbol = SymbolTable.WIDGETS.intern(idByActivity);
+        }
+        return idByActivitySymbol;
     }
 
     public String getResourceID() {
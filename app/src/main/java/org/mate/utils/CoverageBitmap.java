@@ -0,0 +1,214 @@
+package org.mate.utils;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An immutable set of covered objectives, i.e. lines or branches identified by their index in
+ * the list of source lines or branches of the AUT, stored as sorted runs of consecutive indices.
+ * Instrumented code is typically covered in blocks, thus a test case covering thousands of lines
+ * is represented by a few runs, and unions and counts are computed per run instead of per line.
+ * <p>
+ * The textual representation lists the runs as {@code start:length} pairs separated by
+ * {@code +}, e.g. {@code 0:3+7:1} for the indices {@code 0, 1, 2, 7}.
+ */
+public final class CoverageBitmap {
+
+    /**
+     * The bitmap without any covered objective.
+     */
+    public static final CoverageBitmap EMPTY = new CoverageBitmap(new int[0], new int[0], 0);
+
+    // the first index of each run and the index following it, the runs are sorted and disjoint
+    private final int[] starts;
+    private final int[] ends;
+    private final int cardinality;
+
+    private CoverageBitmap(int[] starts, int[] ends, int cardinality) {
+        this.starts = starts;
+        this.ends = ends;
+        this.cardinality = cardinality;
+    }
+
+    /**
+     * Parses the textual representation of a bitmap. The runs may be given in any order and
+     * may overlap.
+     *
+     * @param runs The runs as {@code start:length} pairs separated by {@code +}.
+     * @return Returns the parsed bitmap.
+     */
+    public static CoverageBitmap parse(String runs) {
+
+        if (runs == null) {
+            throw new IllegalArgumentException("No runs given!");
+        }
+
+        if (runs.isEmpty()) {
+            return EMPTY;
+        }
+
+        String[] pairs = runs.split("\\+");
+        int[] starts = new int[pairs.length];
+        int[] ends = new int[pairs.length];
+
+        for (int i = 0; i < pairs.length; i++) {
+            int separator = pairs[i].indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Malformed run " + pairs[i] + "!");
+            }
+            int start = Integer.parseInt(pairs[i].substring(0, separator));
+            int length = Integer.parseInt(pairs[i].substring(separator + 1));
+            if (start < 0 || length < 0 || start > Integer.MAX_VALUE - length) {
+                throw new IllegalArgumentException("Malformed run " + pairs[i] + "!");
+            }
+            starts[i] = start;
+            ends[i] = start + length;
+        }
+        return normalise(starts, ends, pairs.length);
+    }
+
+    /**
+     * Computes the union of the given bitmaps, i.e. the objectives covered by any of them.
+     *
+     * @param bitmaps The bitmaps to be united.
+     * @return Returns the united bitmap.
+     */
+    public static CoverageBitmap union(Collection<CoverageBitmap> bitmaps) {
+
+        int runs = 0;
+        CoverageBitmap single = EMPTY;
+        for (CoverageBitmap bitmap : bitmaps) {
+            if (bitmap.starts.length > 0) {
+                runs += bitmap.starts.length;
+                single = bitmap;
+            }
+        }
+
+        if (runs == single.starts.length) {
+            // at most one bitmap covers anything
+            return single;
+        }
+
+        int[] starts = new int[runs];
+        int[] ends = new int[runs];
+        int run = 0;
+        for (CoverageBitmap bitmap : bitmaps) {
+            System.arraycopy(bitmap.starts, 0, starts, run, bitmap.starts.length);
+            System.arraycopy(bitmap.ends, 0, ends, run, bitmap.ends.length);
+            run += bitmap.starts.length;
+        }
+        return normalise(starts, ends, runs);
+    }
+
+    /**
+     * Computes the union of this and the given bitmap.
+     *
+     * @param other The other bitmap.
+     * @return Returns the united bitmap.
+     */
+    public CoverageBitmap or(CoverageBitmap other) {
+        return union(Arrays.asList(this, other));
+    }
+
+    /**
+     * Sorts the given runs by their start and merges overlapping or adjacent runs.
+     */
+    private static CoverageBitmap normalise(int[] starts, int[] ends, int runs) {
+
+        // packs each run into a long, such that sorting the longs sorts the runs by their start
+        long[] packed = new long[runs];
+        int nonEmpty = 0;
+        for (int run = 0; run < runs; run++) {
+            if (ends[run] > starts[run]) {
+                packed[nonEmpty++] = ((long) starts[run] << 32) | ends[run];
+            }
+        }
+        Arrays.sort(packed, 0, nonEmpty);
+
+        int[] mergedStarts = new int[nonEmpty];
+        int[] mergedEnds = new int[nonEmpty];
+        int merged = 0;
+        int cardinality = 0;
+
+        for (int run = 0; run < nonEmpty; run++) {
+            int start = (int) (packed[run] >>> 32);
+            int end = (int) packed[run];
+            if (merged > 0 && start <= mergedEnds[merged - 1]) {
+                if (end > mergedEnds[merged - 1]) {
+                    cardinality += end - mergedEnds[merged - 1];
+                    mergedEnds[merged - 1] = end;
+                }
+            } else {
+                mergedStarts[merged] = start;
+                mergedEnds[merged] = end;
+                cardinality += end - start;
+                merged++;
+            }
+        }
+        return new CoverageBitmap(Arrays.copyOf(mergedStarts, merged), Arrays.copyOf(mergedEnds, merged),
+                cardinality);
+    }
+
+    /**
+     * Returns the number of covered objectives.
+     *
+     * @return Returns the cardinality of the bitmap.
+     */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Checks whether the given objective is covered.
+     *
+     * @param index The index of the objective.
+     * @return Returns {@code true} if the objective is covered, otherwise {@code false}.
+     */
+    public boolean get(int index) {
+        int run = Arrays.binarySearch(starts, index);
+        if (run >= 0) {
+            return true;
+        }
+        // the run starting before the index
+        run = -run - 2;
+        return run >= 0 && index < ends[run];
+    }
+
+    /**
+     * Returns the number of runs the bitmap is stored as.
+     *
+     * @return Returns the number of runs.
+     */
+    public int getRunCount() {
+        return starts.length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        } else if (o == null || getClass() != o.getClass()) {
+            return false;
+        } else {
+            CoverageBitmap other = (CoverageBitmap) o;
+            return Arrays.equals(starts, other.starts) && Arrays.equals(ends, other.ends);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(starts) + Arrays.hashCode(ends);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int run = 0; run < starts.length; run++) {
+            if (run > 0) {
+                sb.append('+');
+            }
+            sb.append(starts[run]).append(':').append(ends[run] - starts[run]);
+        }
+        return sb.toString();
+    }
+}
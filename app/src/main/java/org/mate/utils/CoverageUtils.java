@@ -5,25 +5,28 @@ import org.mate.Properties;
 import org.mate.Registry;
 import org.mate.exploration.genetic.chromosome.IChromosome;
 import org.mate.exploration.genetic.fitness.LineCoveredPercentageFitnessFunction;
+import org.mate.message.MessageBatch;
+import org.mate.model.SymbolTable;
 import org.mate.model.TestCase;
 import org.mate.model.TestSuite;
 
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 public class CoverageUtils {
 
     private CoverageUtils() {
     }
 
-    // cache activities for activity coverage
-    private static Set<String> activities = null;
-
-    // tracks for each chromosome which activities have been visited
-    private static Map<IChromosome, Set<String>> visitedActivities = new HashMap<>();
+    /**
+     * Tracks for each chromosome, identified by its id, which activities have been visited.
+     * The chromosomes themselves are not referenced, such that discarded chromosomes can be
+     * garbage collected while their visited activities still count towards the final coverage.
+     * The activities are given by their ids, see {@link SymbolTable#ACTIVITIES}.
+     */
+    private static Map<String, BitSet> visitedActivities = new HashMap<>();
 
     /**
      * Copies the coverage data for the given test cases from a source chromosome to a
@@ -47,14 +50,37 @@ public class CoverageUtils {
     }
 
     /**
-     * Retrieves the activities of the AUT.
+     * Adds the requests for copying the coverage data for the given test cases from a source
+     * chromosome to a target chromosome to the given batch.
      *
-     * @return Return a set of activities.
+     * @param sourceChromosome The source chromosome.
+     * @param targetChromosome The target chromosome.
+     * @param testCases The test cases for which coverage data should be copied over.
+     * @param batch The batch collecting the requests.
      */
-    private static Set<String> getActivities() {
-        if (activities == null) {
-            activities = new HashSet<>(Registry.getEnvironmentManager().getActivityNames());
+    public static void copyCoverageData(IChromosome<TestSuite> sourceChromosome,
+                                        IChromosome<TestSuite> targetChromosome, List<TestCase> testCases,
+                                        MessageBatch batch) {
+
+        switch (Properties.COVERAGE()) {
+            case BRANCH_COVERAGE:
+            case LINE_COVERAGE:
+                Registry.getEnvironmentManager().copyCoverageData(sourceChromosome, targetChromosome,
+                        testCases, batch);
+                break;
+            default:
+                break;
         }
+    }
+
+    /**
+     * Retrieves the activities of the AUT.
+     *
+     * @return Return the list of activities.
+     */
+    private static List<String> getActivities() {
+        // the list is cached by the environment manager
+        List<String> activities = Registry.getEnvironmentManager().getActivityNames();
 
         if (activities.size() == 0) {
             // TODO: app with 0 activities is unlikely
@@ -73,7 +99,7 @@ public class CoverageUtils {
 
         switch (Properties.COVERAGE()) {
             case ACTIVITY_COVERAGE:
-                visitedActivities.put(chromosome, chromosome.getValue().getVisitedActivities());
+                visitedActivities.put(chromosome.toString(), chromosome.getValue().getVisitedActivityIds());
                 break;
             case BRANCH_COVERAGE:
             case LINE_COVERAGE:
@@ -87,6 +113,31 @@ public class CoverageUtils {
         }
     }
 
+    /**
+     * Store coverage data for the given TestCase based chromosome. Requests to the server
+     * are added to the given batch.
+     *
+     * @param chromosome store coverage for this chromosome
+     * @param batch collects the requests to the server
+     */
+    public static void storeTestCaseChromosomeCoverage(IChromosome<TestCase> chromosome,
+                                                       MessageBatch batch) {
+
+        switch (Properties.COVERAGE()) {
+            case BRANCH_COVERAGE:
+            case LINE_COVERAGE:
+                Registry.getEnvironmentManager().storeCoverageData(
+                        Properties.COVERAGE(),
+                        chromosome.getValue().toString(),
+                        null,
+                        batch);
+                break;
+            default:
+                storeTestCaseChromosomeCoverage(chromosome);
+                break;
+        }
+    }
+
     /**
      * Store coverage data of a single TestCase of the given TestSuite based chromosome
      *
@@ -100,19 +151,18 @@ public class CoverageUtils {
         switch (Properties.COVERAGE()) {
             case ACTIVITY_COVERAGE:
                 // only add the visited activities by the specified test case
-                Set<String> visitedActivitiesByTestCase = new HashSet<>();
-                for (TestCase testCase : chromosome.getValue().getTestCases()) {
-                    if (testCase.toString().equals(testCaseId)) {
-                        visitedActivitiesByTestCase.addAll(testCase.getVisitedActivities());
-                    }
+                BitSet visitedActivitiesByTestCase = new BitSet();
+                TestCase testCase = chromosome.getValue().getTestCase(testCaseId);
+                if (testCase != null) {
+                    visitedActivitiesByTestCase.or(testCase.getVisitedActivityIds());
                 }
 
                 // merge with already visited activities of other test cases in the test suite
-                if (visitedActivities.containsKey(chromosome)) {
-                    visitedActivitiesByTestCase.addAll(visitedActivities.get(chromosome));
+                if (visitedActivities.containsKey(chromosome.toString())) {
+                    visitedActivitiesByTestCase.or(visitedActivities.get(chromosome.toString()));
                 }
 
-                visitedActivities.put(chromosome, visitedActivitiesByTestCase);
+                visitedActivities.put(chromosome.toString(), visitedActivitiesByTestCase);
                 break;
             case BRANCH_COVERAGE:
             case LINE_COVERAGE:
@@ -126,6 +176,34 @@ public class CoverageUtils {
         }
     }
 
+    /**
+     * Store coverage data of a single TestCase of the given TestSuite based chromosome.
+     * Requests to the server are added to the given batch.
+     *
+     * @param chromosome store coverage for this chromosome
+     * @param testCaseId store coverage for this TestCase
+     * @param batch collects the requests to the server
+     */
+    public static void storeTestSuiteChromosomeCoverage(
+            IChromosome<TestSuite> chromosome,
+            String testCaseId,
+            MessageBatch batch) {
+
+        switch (Properties.COVERAGE()) {
+            case BRANCH_COVERAGE:
+            case LINE_COVERAGE:
+                Registry.getEnvironmentManager().storeCoverageData(
+                        Properties.COVERAGE(),
+                        chromosome.getValue().toString(),
+                        testCaseId,
+                        batch);
+                break;
+            default:
+                storeTestSuiteChromosomeCoverage(chromosome, testCaseId);
+                break;
+        }
+    }
+
     /**
      * Log the coverage value of the given chromosome
      *
@@ -137,12 +215,12 @@ public class CoverageUtils {
         switch (Properties.COVERAGE()) {
             case ACTIVITY_COVERAGE:
 
-                if (!visitedActivities.containsKey(chromosome)) {
+                if (!visitedActivities.containsKey(chromosome.toString())) {
                     throw new IllegalStateException("No visited activities for chromosome "
                             + chromosome + "!");
                 }
 
-                double activityCoverage = (double) visitedActivities.get(chromosome).size()
+                double activityCoverage = (double) visitedActivities.get(chromosome.toString()).cardinality()
                         / getActivities().size() * 100;
                 MATE.log("Coverage of chromosome "
                         + chromosome.getValue().toString() + ": " + activityCoverage);
@@ -152,9 +230,35 @@ public class CoverageUtils {
                 MATE.log("Coverage of chromosome " + chromosome.getValue().toString() + ": "
                         + Registry.getEnvironmentManager().getCoverage(
                         Properties.COVERAGE(),
-                        chromosome.getValue().toString()));
+                        chromosome));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Log the coverage value of the given chromosome. The given batch, e.g. containing the
+     * requests for storing the coverage data, is sent together with the coverage request.
+     *
+     * @param chromosome log coverage for this chromosome
+     * @param batch the pending requests to the server
+     * @param <T>        type of the chromosome
+     */
+    public static <T> void logChromosomeCoverage(IChromosome<T> chromosome, MessageBatch batch) {
+
+        switch (Properties.COVERAGE()) {
+            case BRANCH_COVERAGE:
+            case LINE_COVERAGE:
+                MATE.log("Coverage of chromosome " + chromosome.getValue().toString() + ": "
+                        + Registry.getEnvironmentManager().getCoverage(
+                        Properties.COVERAGE(),
+                        chromosome,
+                        batch));
                 break;
             default:
+                Registry.getEnvironmentManager().sendBatch(batch);
+                logChromosomeCoverage(chromosome);
                 break;
         }
     }
@@ -168,12 +272,13 @@ public class CoverageUtils {
         // TODO: check if it is somehow possible to evaluate activity coverage of last test case
         if (Properties.COVERAGE() != Coverage.ACTIVITY_COVERAGE) {
             // store coverage of test case interrupted by timeout
+            MessageBatch batch = new MessageBatch();
             Registry.getEnvironmentManager().storeCoverageData(Properties.COVERAGE(),
-                    "lastIncompleteTestCase", null);
+                    "lastIncompleteTestCase", null, batch);
 
             MATE.log("Coverage of last test case: " +
                     Registry.getEnvironmentManager().getCoverage(Properties.COVERAGE()
-                            , "lastIncompleteTestCase"));
+                            , "lastIncompleteTestCase", batch));
         }
 
         // get combined coverage
@@ -181,19 +286,26 @@ public class CoverageUtils {
 
         if (Properties.COVERAGE() == Coverage.ACTIVITY_COVERAGE) {
 
-            Set<String> visitedActivitiesTotal = new HashSet<>();
-
-            for (Set<String> activities : visitedActivities.values()) {
-                visitedActivitiesTotal.addAll(activities);
-            }
-
             MATE.log_acc("Visited Activities: ");
-            for (String activity : visitedActivitiesTotal) {
+            for (String activity : SymbolTable.ACTIVITIES.toSymbols(getVisitedActivitiesTotal())) {
                     MATE.log_acc(activity);
             }
         }
     }
 
+    /**
+     * Returns the activities visited by any chromosome so far.
+     *
+     * @return Returns the ids of the visited activities.
+     */
+    private static BitSet getVisitedActivitiesTotal() {
+        BitSet visitedActivitiesTotal = new BitSet();
+        for (BitSet activities : visitedActivities.values()) {
+            visitedActivitiesTotal.or(activities);
+        }
+        return visitedActivitiesTotal;
+    }
+
     /**
      *  Returns the total coverage for the given coverage type.
      *
@@ -204,13 +316,7 @@ public class CoverageUtils {
 
         switch (Properties.COVERAGE()) {
             case ACTIVITY_COVERAGE:
-                Set<String> visitedActivitiesTotal = new HashSet<>();
-
-                for (Set<String> activities : visitedActivities.values()) {
-                    visitedActivitiesTotal.addAll(activities);
-                }
-
-                return (double) visitedActivitiesTotal.size() / getActivities().size() * 100;
+                return (double) getVisitedActivitiesTotal().cardinality() / getActivities().size() * 100;
             case BRANCH_COVERAGE:
             case LINE_COVERAGE:
                 return Registry.getEnvironmentManager().getCombinedCoverage(coverage, null);
@@ -232,19 +338,19 @@ public class CoverageUtils {
 
         switch (Properties.COVERAGE()) {
             case ACTIVITY_COVERAGE:
-                Set<String> visitedActivitiesTotal = new HashSet<>();
+                BitSet visitedActivitiesTotal = new BitSet();
 
                 for (IChromosome<T> chromosome : chromosomes) {
 
-                    if (!visitedActivities.containsKey(chromosome)) {
+                    if (!visitedActivities.containsKey(chromosome.toString())) {
                         throw new IllegalStateException("No visited activities for chromosome "
                                 + chromosome + "!");
                     }
 
-                    visitedActivitiesTotal.addAll(visitedActivities.get(chromosome));
+                    visitedActivitiesTotal.or(visitedActivities.get(chromosome.toString()));
                 }
 
-                return (double) visitedActivitiesTotal.size() / getActivities().size() * 100;
+                return (double) visitedActivitiesTotal.cardinality() / getActivities().size() * 100;
             case BRANCH_COVERAGE:
             case LINE_COVERAGE:
                 return Registry.getEnvironmentManager().getCombinedCoverage(coverage, chromosomes);
@@ -266,15 +372,15 @@ public class CoverageUtils {
         switch (Properties.COVERAGE()) {
             case ACTIVITY_COVERAGE:
 
-                if (!visitedActivities.containsKey(chromosome)) {
+                if (!visitedActivities.containsKey(chromosome.toString())) {
                     throw new IllegalStateException("No visited activities for chromosome "
                             + chromosome + "!");
                 }
 
-                return (double) visitedActivities.get(chromosome).size() / getActivities().size() * 100;
+                return (double) visitedActivities.get(chromosome.toString()).cardinality() / getActivities().size() * 100;
             case BRANCH_COVERAGE:
             case LINE_COVERAGE:
-                return Registry.getEnvironmentManager().getCoverage(coverage, chromosome.toString());
+                return Registry.getEnvironmentManager().getCoverage(coverage, chromosome);
             default:
                 throw new UnsupportedOperationException("Coverage type not yet supported!");
         }
@@ -1,17 +1,29 @@
 package org.mate.utils;
 
+import org.mate.MATE;
 import org.mate.Properties;
 import org.mate.Registry;
 import org.mate.exploration.genetic.chromosome.IChromosome;
 import org.mate.exploration.genetic.fitness.BranchCoverageFitnessFunction;
 import org.mate.exploration.genetic.fitness.BranchDistanceFitnessFunction;
 import org.mate.exploration.genetic.fitness.BranchDistanceFitnessFunctionMultiObjective;
+import org.mate.exploration.genetic.fitness.FitnessCache;
 import org.mate.exploration.genetic.fitness.LineCoveredPercentageFitnessFunction;
 import org.mate.exploration.genetic.fitness.LineCoverageFitnessFunction;
+import org.mate.message.MessageBatch;
 import org.mate.model.TestCase;
 import org.mate.model.TestSuite;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 
 public class FitnessUtils {
 
@@ -19,6 +31,25 @@ public class FitnessUtils {
         throw new UnsupportedOperationException("Utility class!");
     }
 
+    // memoises the scalar fitness values retrieved from the server, see getFitness(IChromosome)
+    private static FitnessCache fitnessCache;
+
+    // retrieves the fitness values in the background if the evaluation is pipelined
+    private static ExecutorService fitnessExecutor;
+    private static volatile Thread fitnessThread;
+
+    // the outstanding background evaluations per chromosome (compared by identity), an entry
+    // is removed once it has been awaited or its evaluation has completed
+    private static final Map<IChromosome<?>, Future<?>> pendingEvaluations = new IdentityHashMap<>();
+
+    private static synchronized FitnessCache getFitnessCache() {
+        if (fitnessCache == null) {
+            fitnessCache = new FitnessCache(Properties.FITNESS_CACHE_SIZE());
+            fitnessCache.registerObjective("fitness");
+        }
+        return fitnessCache;
+    }
+
     /**
      * Copies the fitness data for the given test cases from a source chromosome to a
      * target chromosome.
@@ -30,6 +61,8 @@ public class FitnessUtils {
     public static void copyFitnessData(IChromosome<TestSuite> sourceChromosome,
                                         IChromosome<TestSuite> targetChromosome, List<TestCase> testCases) {
 
+        invalidateFitness(targetChromosome);
+
         if (BranchDistanceFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())
                 || BranchDistanceFitnessFunctionMultiObjective.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())
                 || LineCoveredPercentageFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())
@@ -38,6 +71,29 @@ public class FitnessUtils {
         }
     }
 
+    /**
+     * Adds the requests for copying the fitness data for the given test cases from a source
+     * chromosome to a target chromosome to the given batch.
+     *
+     * @param sourceChromosome The source chromosome.
+     * @param targetChromosome The target chromosome.
+     * @param testCases The test cases for which coverage data should be copied over.
+     * @param batch The batch collecting the requests.
+     */
+    public static void copyFitnessData(IChromosome<TestSuite> sourceChromosome,
+                                       IChromosome<TestSuite> targetChromosome, List<TestCase> testCases,
+                                       MessageBatch batch) {
+
+        invalidateFitness(targetChromosome);
+
+        if (BranchDistanceFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())
+                || BranchDistanceFitnessFunctionMultiObjective.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())
+                || LineCoveredPercentageFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())
+                || LineCoverageFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())) {
+            Registry.getEnvironmentManager().copyFitnessData(sourceChromosome, targetChromosome, testCases, batch);
+        }
+    }
+
     /**
      * Stores for the given test case the fitness data, e.g. the traces are
      * fetched from the emulator when dealing with branch distance fitness.
@@ -46,6 +102,8 @@ public class FitnessUtils {
      */
     public static void storeTestCaseChromosomeFitness(IChromosome<TestCase> chromosome) {
 
+        invalidateFitness(chromosome);
+
         if (BranchDistanceFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())
                 || BranchDistanceFitnessFunctionMultiObjective.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())
                 || LineCoveredPercentageFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())
@@ -54,7 +112,31 @@ public class FitnessUtils {
         }
 
         if (LineCoveredPercentageFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())) {
-            LineCoveredPercentageFitnessFunction.retrieveFitnessValues(chromosome);
+            retrieveLineCoveredPercentages(chromosome);
+        }
+    }
+
+    /**
+     * Adds the request for storing the fitness data of the given test case to the given batch.
+     * If the fitness values need to be retrieved right away, the batch is sent.
+     *
+     * @param chromosome The given test case.
+     * @param batch The batch collecting the requests.
+     */
+    public static void storeTestCaseChromosomeFitness(IChromosome<TestCase> chromosome, MessageBatch batch) {
+
+        invalidateFitness(chromosome);
+
+        if (BranchDistanceFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())
+                || BranchDistanceFitnessFunctionMultiObjective.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())
+                || LineCoveredPercentageFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())
+                || LineCoverageFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())) {
+            Registry.getEnvironmentManager().storeFitnessData(chromosome.getValue().toString(), null, batch);
+        }
+
+        if (LineCoveredPercentageFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())) {
+            Registry.getEnvironmentManager().sendBatch(batch);
+            retrieveLineCoveredPercentages(chromosome);
         }
     }
 
@@ -67,6 +149,8 @@ public class FitnessUtils {
      */
     public static void storeTestSuiteChromosomeFitness(IChromosome<TestSuite> chromosome, String testCaseId) {
 
+        invalidateFitness(chromosome);
+
         // TODO: use enum for fitness function property
         // store branch distance data
         if (BranchDistanceFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())
@@ -77,19 +161,239 @@ public class FitnessUtils {
     }
 
     /**
-     * Removes all non active chromosomes, i.e. obsolete chromosomes, from an internal cache.
+     * Adds the request for storing the fitness data of the given test case of a test suite
+     * to the given batch.
      *
-     * @param activeChromosomes The list of active chromosomes.
+     * @param chromosome The given test suite.
+     * @param testCaseId The test case id.
+     * @param batch The batch collecting the requests.
      */
-    public static <T> void cleanCache(List<IChromosome<T>> activeChromosomes) {
+    public static void storeTestSuiteChromosomeFitness(IChromosome<TestSuite> chromosome, String testCaseId,
+                                                       MessageBatch batch) {
 
-        if (LineCoveredPercentageFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())) {
-            LineCoveredPercentageFitnessFunction.cleanCache(activeChromosomes);
+        invalidateFitness(chromosome);
+
+        if (BranchDistanceFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())
+                || BranchDistanceFitnessFunctionMultiObjective.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())
+                || LineCoverageFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())) {
+            Registry.getEnvironmentManager().storeFitnessData(chromosome.getValue().toString(), testCaseId, batch);
+        }
+    }
+
+    /**
+     * Returns the number of fitness vectors cached for chromosomes that are still alive.
+     * Vectors of garbage collected chromosomes are dropped automatically.
+     *
+     * @return Returns the number of live cache entries or {@code 0} if the fitness function
+     *          doesn't employ a fitness vector cache.
+     */
+    public static int getLiveFitnessCacheEntries() {
+
+        if (BranchDistanceFitnessFunctionMultiObjective.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())) {
+            return BranchDistanceFitnessFunctionMultiObjective.getCache().getLiveEntries();
+        } else if (LineCoveredPercentageFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())) {
+            return LineCoveredPercentageFitnessFunction.getCache().getLiveEntries();
+        }
+        return 0;
+    }
+
+    /**
+     * Drops the memoised fitness values of the given chromosome, e.g. because further
+     * fitness data has been stored for it. An outstanding background evaluation is awaited
+     * first, such that it can't memoise outdated values afterwards.
+     *
+     * @param chromosome The chromosome whose fitness data changed.
+     */
+    private static <T> void invalidateFitness(IChromosome<T> chromosome) {
+
+        awaitFitness(chromosome);
+        getFitnessCache().invalidate(chromosome);
+
+        if (BranchDistanceFitnessFunctionMultiObjective.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())) {
+            BranchDistanceFitnessFunctionMultiObjective.getCache().invalidate(chromosome);
+        } else if (LineCoveredPercentageFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())) {
+            LineCoveredPercentageFitnessFunction.getCache().invalidate(chromosome);
+        }
+    }
+
+    /**
+     * Retrieves the line covered percentages of the given test case, in the background
+     * if the evaluation is pipelined.
+     *
+     * @param chromosome The test case whose fitness data has been stored.
+     */
+    private static void retrieveLineCoveredPercentages(final IChromosome<TestCase> chromosome) {
+        evaluate(chromosome, new Runnable() {
+            @Override
+            public void run() {
+                LineCoveredPercentageFitnessFunction.retrieveFitnessValues(chromosome);
+            }
+        });
+    }
+
+    /**
+     * Retrieves the fitness values of the given chromosome ahead of time, such that subsequent
+     * fitness evaluations, e.g. by the selection function, don't need to contact the server.
+     * Should be called once all fitness and coverage data of the chromosome has been stored.
+     * If the evaluation is pipelined, the values are retrieved in the background while the
+     * next test case is executed. The branch distance vectors are not retrieved here, since
+     * they are retrieved for a whole generation at once, see {@link #prefetchFitness(List)}.
+     *
+     * @param chromosome The chromosome whose fitness values should be retrieved.
+     * @param <T> Specifies whether the chromosome is a test suite or a test case.
+     */
+    public static <T> void prefetchFitness(final IChromosome<T> chromosome) {
+
+        if (BranchDistanceFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())
+                || BranchCoverageFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())
+                || LineCoverageFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())) {
+            evaluate(chromosome, new Runnable() {
+                @Override
+                public void run() {
+                    getFitness(chromosome);
+                }
+            });
+        }
+        // the line covered percentages are already retrieved when the fitness data is stored
+    }
+
+    /**
+     * Retrieves the fitness values of the given chromosomes ahead of time, e.g. of a whole
+     * generation, and waits for outstanding background evaluations. The branch distance
+     * vectors of all chromosomes that are not cached yet are retrieved within a single request.
+     *
+     * @param chromosomes The chromosomes whose fitness values should be retrieved.
+     * @param <T> Specifies whether the chromosomes are test suites or test cases.
+     */
+    public static <T> void prefetchFitness(List<IChromosome<T>> chromosomes) {
+
+        for (IChromosome<T> chromosome : chromosomes) {
+            awaitFitness(chromosome);
+        }
+
+        if (BranchDistanceFitnessFunctionMultiObjective.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())) {
+            FitnessCache cache = BranchDistanceFitnessFunctionMultiObjective.getCache();
+            List<IChromosome<T>> missing = new ArrayList<>();
+            for (IChromosome<T> chromosome : chromosomes) {
+                if (cache.getVector(chromosome) == null) {
+                    missing.add(chromosome);
+                }
+            }
+            if (!missing.isEmpty()) {
+                double[][] branchDistanceMatrix = Registry.getEnvironmentManager().getBranchDistanceMatrix(missing);
+                for (int i = 0; i < missing.size(); i++) {
+                    cache.putVector(missing.get(i), branchDistanceMatrix[i]);
+                }
+            }
+        } else if (BranchDistanceFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())
+                || BranchCoverageFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())
+                || LineCoverageFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())) {
+            for (IChromosome<T> chromosome : chromosomes) {
+                getFitness(chromosome);
+            }
+        }
+    }
+
+    /**
+     * Runs the given evaluation of the chromosome's fitness values in the background if the
+     * evaluation is pipelined, otherwise right away. The background evaluations are run one
+     * after another in the order of submission.
+     *
+     * @param chromosome The chromosome to be evaluated.
+     * @param evaluation Retrieves the fitness values of the chromosome.
+     */
+    private static void evaluate(final IChromosome<?> chromosome, Runnable evaluation) {
+
+        if (!Properties.PIPELINED_FITNESS_EVALUATION() || Thread.currentThread() == fitnessThread) {
+            evaluation.run();
+            return;
+        }
+
+        FutureTask<Void> task = new FutureTask<Void>(evaluation, null) {
+            @Override
+            protected void done() {
+                synchronized (pendingEvaluations) {
+                    // a later evaluation of the chromosome may have replaced this one
+                    if (pendingEvaluations.get(chromosome) == this) {
+                        pendingEvaluations.remove(chromosome);
+                    }
+                }
+                try {
+                    get();
+                } catch (InterruptedException | ExecutionException e) {
+                    // nobody may await the failure, the fitness functions retrieve the values again
+                    MATE.log_acc("Retrieving the fitness values in the background failed: " + e.getMessage());
+                }
+            }
+        };
+
+        synchronized (pendingEvaluations) {
+            // a previous evaluation of the chromosome completes before this one
+            pendingEvaluations.put(chromosome, task);
+            getFitnessExecutor().execute(task);
+        }
+    }
+
+    /**
+     * Waits until the outstanding background evaluation of the given chromosome, if any,
+     * has been completed.
+     *
+     * @param chromosome The chromosome whose fitness values are needed.
+     */
+    public static void awaitFitness(IChromosome<?> chromosome) {
+
+        if (Thread.currentThread() == fitnessThread) {
+            // the background evaluation itself must not wait for its completion
+            return;
+        }
+
+        Future<?> pending;
+        synchronized (pendingEvaluations) {
+            pending = pendingEvaluations.remove(chromosome);
+        }
+
+        if (pending != null) {
+            try {
+                pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the fitness evaluation!", e);
+            } catch (ExecutionException e) {
+                MATE.log_acc("Retrieving the fitness values in the background failed!");
+                throw new IllegalStateException("Retrieving the fitness values failed!", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of background evaluations that have neither completed nor been
+     * awaited yet, e.g. to monitor the evaluation pipeline.
+     *
+     * @return Returns the number of outstanding background evaluations.
+     */
+    public static int getPendingEvaluationCount() {
+        synchronized (pendingEvaluations) {
+            return pendingEvaluations.size();
         }
     }
 
+    private static synchronized ExecutorService getFitnessExecutor() {
+        if (fitnessExecutor == null) {
+            fitnessExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    fitnessThread = new Thread(runnable, "Fitness evaluation");
+                    fitnessThread.setDaemon(true);
+                    return fitnessThread;
+                }
+            });
+        }
+        return fitnessExecutor;
+    }
+
     /**
-     * Retrieves the fitness value for the given chromosome.
+     * Retrieves the fitness value for the given chromosome. The value is memoised until
+     * further fitness data is stored for the chromosome.
      *
      * @param chromosome The chromosome for which the fitness value should be evaluated.
      * @param <T> Specifies whether the chromosome is a test suite or a test case.
@@ -97,12 +401,28 @@ public class FitnessUtils {
      */
     public static <T> double getFitness(IChromosome<T> chromosome) {
 
+        FitnessCache cache = getFitnessCache();
+        double[] fitness = cache.getVector(chromosome);
+        if (fitness == null) {
+            // the value might be retrieved in the background right now
+            awaitFitness(chromosome);
+            fitness = cache.getVector(chromosome);
+        }
+        if (fitness == null) {
+            fitness = new double[]{retrieveFitness(chromosome)};
+            cache.putVector(chromosome, fitness);
+        }
+        return fitness[0];
+    }
+
+    private static <T> double retrieveFitness(IChromosome<T> chromosome) {
+
         if (BranchDistanceFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())) {
             return Registry.getEnvironmentManager().getBranchDistance(chromosome.toString());
         } else if (BranchCoverageFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())) {
-            return Registry.getEnvironmentManager().getCoverage(Coverage.BRANCH_COVERAGE, chromosome.toString());
+            return Registry.getEnvironmentManager().getCoverage(Coverage.BRANCH_COVERAGE, chromosome);
         } else if (LineCoverageFitnessFunction.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())) {
-            return Registry.getEnvironmentManager().getCoverage(Coverage.LINE_COVERAGE, chromosome.toString());
+            return Registry.getEnvironmentManager().getCoverage(Coverage.LINE_COVERAGE, chromosome);
         }
 
         throw new UnsupportedOperationException("Fitness function "
@@ -118,7 +438,7 @@ public class FitnessUtils {
      * @param <T> Specifies whether the chromosome is a test suite or a test case.
      * @return Returns the fitness vector for the given chromosome.
      */
-    public static <T> List<Double> getFitness(IChromosome<T> chromosome, List<String> objectives) {
+    public static <T> double[] getFitness(IChromosome<T> chromosome, List<String> objectives) {
 
         if (BranchDistanceFitnessFunctionMultiObjective.FITNESS_FUNCTION_ID.equals(Properties.FITNESS_FUNCTION())) {
             return Registry.getEnvironmentManager().getBranchDistanceVector(chromosome);
@@ -0,0 +1,17 @@
+package org.mate.utils;
+
+/**
+ * The encodings for transferring numeric vectors, e.g. branch distance vectors,
+ * between the MATE server and MATE.
+ */
+public enum VectorEncoding {
+
+    // separator delimited decimal strings
+    TEXT,
+    // base64 encoded IEEE 754 doubles
+    FLOAT64,
+    // base64 encoded IEEE 754 floats
+    FLOAT32,
+    // base64 encoded bytes representing values in [0,1] in steps of 1/255, only an exact 1 maps to 1
+    QUANTISED8;
+}
@@ -0,0 +1,72 @@
+package org.mate;
+
+import org.junit.Test;
+import org.mate.exploration.genetic.chromosome.Chromosome;
+import org.mate.exploration.genetic.chromosome.IChromosome;
+import org.mate.exploration.genetic.core.CoverageArchive;
+import org.mate.exploration.genetic.core.FitnessMatrix;
+import org.mate.exploration.genetic.fitness.IFitnessFunction;
+import org.mate.model.TestCase;
+import org.mate.ui.ActionType;
+import org.mate.ui.PrimitiveAction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class CoverageArchiveUnitTest {
+
+    private static IChromosome<TestCase> testCase(String id, int length) {
+        TestCase testCase = new TestCase(id);
+        for (int i = 0; i < length; i++) {
+            testCase.getEventSequence().add(new PrimitiveAction(i, 0, ActionType.CLICK));
+        }
+        return new Chromosome<>(testCase);
+    }
+
+    private static FitnessMatrix<TestCase> evaluate(List<IChromosome<TestCase>> chromosomes,
+                                                    final Map<IChromosome<TestCase>, double[]> fitness) {
+        List<IFitnessFunction<TestCase>> fitnessFunctions = new ArrayList<>();
+        for (int objective = 0; objective < 3; objective++) {
+            final int index = objective;
+            fitnessFunctions.add(new IFitnessFunction<TestCase>() {
+                @Override
+                public double getFitness(IChromosome<TestCase> chromosome) {
+                    return fitness.get(chromosome)[index];
+                }
+            });
+        }
+        return FitnessMatrix.evaluate(chromosomes, fitnessFunctions);
+    }
+
+    @Test
+    public void shortestFulfillingChromosomeIsArchived() {
+        IChromosome<TestCase> longer = testCase("longer", 5);
+        IChromosome<TestCase> shorter = testCase("shorter", 2);
+        IChromosome<TestCase> partial = testCase("partial", 3);
+        Map<IChromosome<TestCase>, double[]> fitness = new IdentityHashMap<>();
+        fitness.put(longer, new double[]{1.0, 1.0, 0.5});
+        fitness.put(shorter, new double[]{1.0, 0.5, 0.5});
+        fitness.put(partial, new double[]{0.5, 1.0, 0.9});
+
+        CoverageArchive<TestCase> archive = new CoverageArchive<>(3);
+        FitnessMatrix<TestCase> fitnessMatrix = evaluate(Collections.singletonList(longer), fitness);
+        assertEquals(Arrays.asList(0, 1), archive.update(fitnessMatrix, fitnessMatrix.getRows()));
+        assertEquals(1, archive.size());
+
+        // only the new chromosomes are passed, the shorter ones replace the longer one
+        fitnessMatrix = evaluate(Arrays.asList(longer, shorter, partial), fitness);
+        assertEquals(Collections.<Integer>emptyList(), archive.update(fitnessMatrix, Arrays.asList(1, 2)));
+        assertSame(shorter, archive.get(0));
+        assertSame(partial, archive.get(1));
+        assertNull(archive.get(2));
+        assertEquals(2, archive.getCoveredObjectives());
+        assertEquals(2, archive.size());
+        assertFalse(archive.getChromosomes().contains(longer));
+    }
+}
@@ -0,0 +1,35 @@
+package org.mate;
+
+import org.junit.Test;
+import org.mate.utils.CoverageBitmap;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class CoverageBitmapUnitTest {
+
+    @Test
+    public void runsAreNormalised() {
+        CoverageBitmap bitmap = CoverageBitmap.parse("7:1+0:3+2:2+10:0");
+        assertEquals("0:4+7:1", bitmap.toString());
+        assertEquals(5, bitmap.cardinality());
+        assertEquals(2, bitmap.getRunCount());
+        assertTrue(bitmap.get(3));
+        assertFalse(bitmap.get(4));
+        assertTrue(bitmap.get(7));
+        assertFalse(bitmap.get(10));
+        assertSame(CoverageBitmap.EMPTY, CoverageBitmap.parse(""));
+    }
+
+    @Test
+    public void unionMergesAdjacentRuns() {
+        CoverageBitmap first = CoverageBitmap.parse("0:3+20:5");
+        CoverageBitmap second = CoverageBitmap.parse("3:2+22:10");
+        CoverageBitmap union = CoverageBitmap.union(Arrays.asList(first, CoverageBitmap.EMPTY, second));
+        assertEquals(CoverageBitmap.parse("0:5+20:12"), union);
+        assertEquals(17, union.cardinality());
+        assertEquals(union, second.or(first));
+        assertSame(first, first.or(CoverageBitmap.EMPTY));
+    }
+}
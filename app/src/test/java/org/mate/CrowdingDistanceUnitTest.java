@@ -0,0 +1,125 @@
+package org.mate;
+
+import org.junit.Test;
+import org.mate.exploration.genetic.core.CrowdingDistance;
+import org.mate.utils.MathUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.mate.utils.MathUtils.isEpsEq;
+
+public class CrowdingDistanceUnitTest {
+
+    /**
+     * Computes the crowding distance by comparing all pairs of vectors for duplicates and
+     * sorting the vectors with a comparator per objective.
+     */
+    private static double[] pairwiseCrowdingDistance(final double[][] vectors, int[] objectives) {
+        double[] crowdingDistances = new double[vectors.length];
+        List<Integer> front = new ArrayList<>();
+        for (int i = 0; i < vectors.length; i++) {
+            boolean isDuplicate = false;
+            for (int j : front) {
+                double distance = 0.0;
+                for (int objective : objectives) {
+                    distance += Math.pow(vectors[i][objective] - vectors[j][objective], 2.0);
+                }
+                if (isEpsEq(Math.sqrt(distance))) {
+                    isDuplicate = true;
+                    break;
+                }
+            }
+            if (!isDuplicate) {
+                front.add(i);
+            }
+        }
+
+        int n = front.size();
+        if (n < 3) {
+            for (int i : front) {
+                crowdingDistances[i] = Double.POSITIVE_INFINITY;
+            }
+            return crowdingDistances;
+        }
+
+        for (final int objective : objectives) {
+            Collections.sort(front, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    double compared = vectors[o2][objective] - vectors[o1][objective];
+                    if (isEpsEq(compared)) {
+                        return 0;
+                    }
+                    return compared < 0 ? -1 : 1;
+                }
+            });
+            double minObjective = vectors[front.get(0)][objective];
+            double maxObjective = vectors[front.get(n - 1)][objective];
+            if (!isEpsEq(minObjective, maxObjective)) {
+                crowdingDistances[front.get(0)] = Double.POSITIVE_INFINITY;
+                crowdingDistances[front.get(n - 1)] = Double.POSITIVE_INFINITY;
+                for (int i = 1; i < n - 1; i++) {
+                    crowdingDistances[front.get(i)] += (vectors[front.get(i + 1)][objective]
+                            - vectors[front.get(i - 1)][objective]) / (maxObjective - minObjective);
+                }
+            }
+        }
+        return crowdingDistances;
+    }
+
+    @Test
+    public void crowdingDistanceMatchesPairwiseComputation() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            double[][] vectors = new double[40 + round][4];
+            for (double[] vector : vectors) {
+                for (int objective = 0; objective < vector.length; objective++) {
+                    // few distinct values lead to duplicates and ties
+                    vector[objective] = random.nextInt(6) / 5.0;
+                }
+            }
+            int[] objectives = {0, 2, 3};
+            assertArrayEquals(pairwiseCrowdingDistance(vectors, objectives),
+                    CrowdingDistance.compute(vectors, objectives), 1e-12);
+        }
+    }
+
+    @Test
+    public void duplicatesGetNoCrowdingDistance() {
+        double[][] vectors = {{0.1, 0.9}, {0.5, 0.5}, {0.9, 0.1}, {0.5 + 2e-11, 0.5}, {0.3, 0.6}};
+        double[] crowdingDistances = CrowdingDistance.compute(vectors, new int[]{0, 1});
+        assertEquals(Double.POSITIVE_INFINITY, crowdingDistances[0], 0.0);
+        assertEquals(Double.POSITIVE_INFINITY, crowdingDistances[2], 0.0);
+        assertEquals(0.0, crowdingDistances[3], 0.0);
+        assertEquals((0.9 - 0.3) / 0.8 + (0.6 - 0.1) / 0.8, crowdingDistances[1], 1e-12);
+
+        // two unique vectors only
+        assertArrayEquals(new double[]{Double.POSITIVE_INFINITY, 0.0, Double.POSITIVE_INFINITY},
+                CrowdingDistance.compute(new double[][]{{0.2, 0.4}, {0.2, 0.4}, {0.4, 0.2}},
+                        new int[]{0, 1}), 0.0);
+    }
+
+    @Test
+    public void duplicatesAcrossCellBordersAreFound() {
+        // the first values sweep over more than a grid cell in steps smaller than the epsilon,
+        // thus some pairs straddle the border between two cells
+        int pairs = 30000;
+        double[][] vectors = new double[2 * pairs][];
+        for (int i = 0; i < pairs; i++) {
+            double value = i * 0.4 * MathUtils.EPS;
+            vectors[2 * i] = new double[]{value, i};
+            vectors[2 * i + 1] = new double[]{value + 0.5 * MathUtils.EPS, i};
+        }
+
+        double[] crowdingDistances = CrowdingDistance.compute(vectors, new int[]{0, 1});
+        for (int i = 0; i < pairs; i++) {
+            assertTrue(crowdingDistances[2 * i] > 0);
+            assertEquals(0.0, crowdingDistances[2 * i + 1], 0.0);
+        }
+    }
+}
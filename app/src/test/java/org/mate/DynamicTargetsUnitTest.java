@@ -0,0 +1,64 @@
+package org.mate;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mate.exploration.genetic.chromosome.IChromosome;
+import org.mate.exploration.genetic.core.DynamicTargets;
+import org.mate.exploration.genetic.fitness.BranchDistanceFitnessFunctionMultiObjective;
+import org.mate.exploration.genetic.fitness.IFitnessFunction;
+import org.mate.model.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DynamicTargetsUnitTest {
+
+    @Before
+    public void setUp() {
+        Registry.registerProperties(new Properties(new HashMap<String, String>()));
+    }
+
+    @After
+    public void tearDown() {
+        Registry.unregisterProperties();
+    }
+
+    @Test
+    public void dependentBranchesBecomeTargetsOnceTheirParentIsCovered() {
+        // A->0 and A->1 are the outcomes of the first condition, A->2 is nested in A->0 and
+        // A->3 is nested in both A->1 and A->2
+        List<String> branches = Arrays.asList("A->0", "A->1", "A->2", "A->3", "B->0");
+        List<List<Integer>> branchDependencies = Arrays.asList(
+                Collections.<Integer>emptyList(), Collections.<Integer>emptyList(),
+                Collections.singletonList(0), Arrays.asList(1, 2), Collections.singletonList(4));
+
+        List<IFitnessFunction<TestCase>> fitnessFunctions = new ArrayList<>();
+        for (String branch : Arrays.asList("A->3", "A->2", "A->1", "A->0")) {
+            fitnessFunctions.add(new BranchDistanceFitnessFunctionMultiObjective<TestCase>(branch));
+        }
+        // no branch, thus always a target
+        fitnessFunctions.add(new IFitnessFunction<TestCase>() {
+            @Override
+            public double getFitness(IChromosome<TestCase> chromosome) {
+                return 0;
+            }
+        });
+
+        DynamicTargets targets = DynamicTargets.forBranches(fitnessFunctions, branches, branchDependencies);
+        assertEquals(Arrays.asList(2, 3, 4), targets.getInitialTargets());
+        assertFalse(targets.isActivated(0));
+
+        // A->2 was covered by chance before being targeted
+        assertEquals(Collections.singletonList(0), targets.cover(1));
+        assertTrue(targets.isActivated(1));
+        assertEquals(Collections.<Integer>emptyList(), targets.cover(3));
+        assertEquals(Collections.<Integer>emptyList(), targets.cover(2));
+        assertEquals(Collections.<Integer>emptyList(), targets.cover(1));
+    }
+}
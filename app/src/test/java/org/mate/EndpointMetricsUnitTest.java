@@ -0,0 +1,60 @@
+package org.mate;
+
+import org.junit.Test;
+import org.mate.ui.EndpointMetrics;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class EndpointMetricsUnitTest {
+
+    @Test
+    public void legacyCommandsAreRecordedSeparately() {
+        assertEquals("/coverage/combined", EndpointMetrics.endpointOf("/coverage/combined", null));
+        assertEquals("/legacy:getActivity",
+                EndpointMetrics.endpointOf("/legacy", "getActivity:emulator-5554"));
+        assertEquals("/legacy:timeout", EndpointMetrics.endpointOf("/legacy", "timeout"));
+    }
+
+    @Test
+    public void recordsCallsLatenciesAndBytes() {
+        EndpointMetrics metrics = new EndpointMetrics();
+        metrics.recordRequest("/coverage/combined", 100);
+        metrics.recordResponse("/coverage/combined", 3000000, 20);
+        metrics.recordRequest("/coverage/combined", 100);
+        metrics.recordResponse("/coverage/combined", 5000000, 20);
+        metrics.recordRequest("/legacy:getActivity", 40);
+        metrics.recordResponse("/legacy:getActivity", 500, 60);
+
+        assertEquals(2, metrics.getCalls("/coverage/combined"));
+        assertEquals(8000000, metrics.getTotalLatencyNanos("/coverage/combined"));
+        assertEquals(200, metrics.getBytesSent("/coverage/combined"));
+        assertEquals(40, metrics.getBytesReceived("/coverage/combined"));
+        assertEquals(0, metrics.getCalls("/android/clearApp"));
+
+        // sorted by total latency
+        assertEquals(Arrays.asList("/coverage/combined", "/legacy:getActivity"), metrics.getEndpoints());
+        assertTrue(metrics.toString().contains("/legacy:getActivity"));
+    }
+
+    @Test
+    public void histogramUsesPowerOfTwoMicroseconds() {
+        EndpointMetrics metrics = new EndpointMetrics();
+        // 0 µs, 1 µs, 3 µs and 1000 µs
+        metrics.recordResponse("/graph/get_branches", 500, 0);
+        metrics.recordResponse("/graph/get_branches", 1000, 0);
+        metrics.recordResponse("/graph/get_branches", 3000, 0);
+        metrics.recordResponse("/graph/get_branches", 1000000, 0);
+
+        long[] histogram = metrics.getLatencyHistogram("/graph/get_branches");
+        assertEquals(EndpointMetrics.HISTOGRAM_BUCKETS, histogram.length);
+        assertEquals(1, histogram[0]);
+        assertEquals(1, histogram[1]);
+        assertEquals(1, histogram[2]);
+        assertEquals(1, histogram[10]);
+
+        assertEquals(4, metrics.getLatencyPercentileMicros("/graph/get_branches", 0.75));
+        assertEquals(1024, metrics.getLatencyPercentileMicros("/graph/get_branches", 1.0));
+    }
+}
@@ -0,0 +1,317 @@
+package org.mate;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mate.exploration.genetic.chromosome.Chromosome;
+import org.mate.exploration.genetic.chromosome.IChromosome;
+import org.mate.message.Message;
+import org.mate.message.MessageBatch;
+import org.mate.model.TestCase;
+import org.mate.model.TestSuite;
+import org.mate.ui.EnvironmentManager;
+import org.mate.utils.Coverage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class EnvironmentManagerUnitTest {
+
+    private FakeMateServer server;
+    private EnvironmentManager environmentManager;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeMateServer();
+        environmentManager = new EnvironmentManager(server.getHost(), server.getPort());
+        Registry.registerProperties(new Properties(new HashMap<String, String>()));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Registry.unregisterProperties();
+        environmentManager.close();
+        server.close();
+    }
+
+    @Test
+    public void staticQueriesAreAnsweredFromTheCache() {
+        server.setProperty("max_number_events", "50");
+        assertEquals("50", environmentManager.getProperties().get("max_number_events"));
+        assertEquals("50", environmentManager.getProperties().get("max_number_events"));
+        assertEquals(5, environmentManager.getTimeout());
+        assertEquals(5, environmentManager.getTimeout());
+
+        assertEquals(1, server.getRequestCount("/properties"));
+        assertEquals(1, server.getRequestCount("/legacy:timeout"));
+    }
+
+    @Test
+    public void pipelinedRequestsAreMatchedByRequestId() throws Exception {
+        List<Future<Message>> responses = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            responses.add(environmentManager.sendMessageAsync(new Message.MessageBuilder("/legacy")
+                    .withParameter("cmd", "getActivity:emulator-5554")
+                    .build()));
+        }
+        for (Future<Message> response : responses) {
+            assertEquals("com.example/.MainActivity", response.get().getParameter("response"));
+        }
+        assertEquals(10, environmentManager.getEndpointMetrics().getCalls("/legacy:getActivity"));
+    }
+
+    @Test
+    public void requestsFailOnceTheServerIsGone() {
+        server.handle("/kill", new FakeMateServer.Handler() {
+            @Override
+            public Message respond(Message request) {
+                // drops the connection without answering
+                throw new IllegalStateException("MATE-Server crashed");
+            }
+        });
+
+        try {
+            environmentManager.sendMessage(new Message("/kill"));
+            fail("The pending request should fail");
+        } catch (IllegalStateException expected) {
+            // the reader thread failed the pending request
+        }
+
+        // later requests fail right away instead of waiting forever
+        try {
+            environmentManager.sendMessageAsync(new Message("/properties"));
+            fail("The broken connection should be rejected");
+        } catch (IllegalStateException e) {
+            assertNotNull(e.getCause());
+        }
+        assertEquals(0, server.getRequestCount("/properties"));
+    }
+
+    @Test
+    public void notificationsArriveInOrderBeforeLaterRequests() {
+        server.setLatency("/legacy:reportFlaw", 10);
+        for (int i = 0; i < 5; i++) {
+            environmentManager.sendFlawToServer("flaw" + i);
+        }
+        // a dependent request must not overtake the notifications
+        environmentManager.sendMessage(new Message("/properties"));
+
+        List<Message> requests = server.getRequests();
+        assertEquals(6, requests.size());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(requests.get(i).getParameter("cmd").endsWith(":flaw" + i));
+        }
+        assertEquals("/properties", requests.get(5).getSubject());
+    }
+
+    @Test
+    public void flushAwaitsAllNotifications() {
+        final AtomicInteger answered = new AtomicInteger();
+        server.setLatency("/legacy:reportFlaw", 20);
+        server.handle("/legacy:reportFlaw", new FakeMateServer.Handler() {
+            @Override
+            public Message respond(Message request) {
+                answered.incrementAndGet();
+                return new Message.MessageBuilder("/legacy").withParameter("response", "true").build();
+            }
+        });
+
+        for (int i = 0; i < 3; i++) {
+            environmentManager.sendFlawToServer("flaw" + i);
+        }
+        environmentManager.flushNotifications();
+        assertEquals(3, answered.get());
+    }
+
+    @Test
+    public void failedNotificationsDontBlockFlush() {
+        server.handle("/legacy:reportFlaw", new FakeMateServer.Handler() {
+            @Override
+            public Message respond(Message request) {
+                throw new IllegalStateException("MATE-Server crashed");
+            }
+        });
+
+        environmentManager.sendFlawToServer("flaw");
+        // returns once the failed notification has been logged
+        environmentManager.flushNotifications();
+
+        try {
+            environmentManager.sendFlawToServer("flaw");
+            fail("The broken connection should be rejected");
+        } catch (IllegalStateException e) {
+            assertNotNull(e.getCause());
+        }
+        assertEquals(1, server.getRequestCount("/legacy:reportFlaw"));
+    }
+
+    @Test
+    public void scriptedResponsesAndLatency() {
+        server.setLatency("/coverage/combined", 20);
+        server.respondWith("/coverage/combined", new Message.MessageBuilder("/coverage/combined")
+                .withParameter("coverage", "42.0")
+                .build());
+
+        Message response = environmentManager.sendMessage(new Message("/coverage/combined"));
+        assertEquals("42.0", response.getParameter("coverage"));
+        assertTrue(environmentManager.getEndpointMetrics()
+                .getTotalLatencyNanos("/coverage/combined") >= 20000000);
+    }
+
+    @Test
+    public void binaryProtocolIsNegotiated() {
+        server.supportBinaryProtocol();
+        server.setSourceLines(Arrays.asList("com.example.A:1", "com.example.A:2"));
+        environmentManager.requestBinaryProtocol();
+
+        // the first request carries the negotiation
+        assertEquals("emulator-5554", environmentManager.detectEmulator("com.example"));
+        assertEquals("2.0", environmentManager.getProtocolVersion());
+        assertEquals(Arrays.asList("com.example.A:1", "com.example.A:2"),
+                environmentManager.getSourceLines());
+        assertEquals("com.example/.MainActivity", environmentManager.getCurrentActivityName());
+    }
+
+    @Test
+    public void branchDistanceMatrixIsRetrievedInOneRequest() {
+        server.setBranches(Arrays.asList("A->a->0", "A->a->1", "A->b->0"));
+        MATE.packageName = "com.example";
+        environmentManager.detectEmulator(MATE.packageName);
+
+        double[][] matrix = environmentManager.getBranchDistanceMatrix(Arrays.<IChromosome<String>>asList(
+                new Chromosome<>("first"), new Chromosome<>("second")));
+        assertEquals(2, matrix.length);
+        assertArrayEquals(new double[]{1.0, 1.0, 1.0}, matrix[1], 0.0);
+        assertEquals(1, server.getRequestCount("/graph/get_branch_distance_matrix"));
+        assertEquals(0, server.getRequestCount("/graph/get_branch_distance_vector"));
+    }
+
+    @Test
+    public void branchDistanceMatrixFallsBackToVectors() {
+        server.handle("/graph/get_branch_distance_matrix", new FakeMateServer.Handler() {
+            @Override
+            public Message respond(Message request) {
+                return new Message.MessageBuilder("/error")
+                        .withParameter("info", "unknown subject")
+                        .build();
+            }
+        });
+        MATE.packageName = "com.example";
+        environmentManager.detectEmulator(MATE.packageName);
+
+        List<IChromosome<String>> chromosomes = Arrays.<IChromosome<String>>asList(
+                new Chromosome<>("first"), new Chromosome<>("second"));
+        assertEquals(2, environmentManager.getBranchDistanceMatrix(chromosomes).length);
+        assertEquals(2, environmentManager.getBranchDistanceMatrix(chromosomes).length);
+        // the unsupported request is not repeated
+        assertEquals(1, server.getRequestCount("/graph/get_branch_distance_matrix"));
+        assertEquals(4, server.getRequestCount("/graph/get_branch_distance_vector"));
+    }
+
+    @Test
+    public void branchDependenciesAreRetrievedOnce() {
+        HashMap<String, String> properties = new HashMap<>();
+        properties.put("graph_type", "INTRA_CFG");
+        Registry.registerProperties(new Properties(properties));
+        server.setBranches(Arrays.asList("A->a->0", "A->a->1", "A->b->0"));
+        server.handle("/graph/get_branch_dependencies", new FakeMateServer.Handler() {
+            @Override
+            public Message respond(Message request) {
+                return new Message.MessageBuilder("/graph/get_branch_dependencies")
+                        .withParameter("dependencies", "0:2+1:2")
+                        .build();
+            }
+        });
+
+        List<List<Integer>> dependencies = environmentManager.getBranchDependencies();
+        assertEquals(Arrays.asList(Arrays.<Integer>asList(), Arrays.<Integer>asList(), Arrays.asList(0, 1)),
+                dependencies);
+        assertSame(dependencies, environmentManager.getBranchDependencies());
+        assertEquals(1, server.getRequestCount("/graph/get_branch_dependencies"));
+    }
+
+    @Test
+    public void lineCoveredPercentagesMatchTheRequestedLines() {
+        MATE.packageName = "com.example";
+        environmentManager.detectEmulator(MATE.packageName);
+        List<String> lines = Arrays.asList("com.example.A:1", "com.example.A:2", "com.example.B:7");
+        IChromosome<TestCase> chromosome = new Chromosome<>(new TestCase("test"));
+
+        assertEquals(3, environmentManager.getLineCoveredPercentage(chromosome, lines).length);
+        assertEquals(3, environmentManager.getLineCoveredPercentage(chromosome, lines).length);
+        // the lines are registered once and referred to by their handle afterwards
+        assertEquals(1, server.getRequestCount("/coverage/registerLines"));
+    }
+
+    @Test
+    public void combinedCoverageIsComputedFromCoverageBitmaps() {
+        server.setSourceLines(Arrays.asList("A:1", "A:2", "A:3", "A:4"));
+        server.handle("/coverage/covered", new FakeMateServer.Handler() {
+            @Override
+            public Message respond(Message request) {
+                return new Message.MessageBuilder("/coverage/covered")
+                        .withParameter("covered", request.getParameter("entity").equals("first") ? "0:2" : "1:2")
+                        .build();
+            }
+        });
+        MATE.packageName = "com.example";
+        environmentManager.detectEmulator(MATE.packageName);
+        environmentManager.storeCoverageData(Coverage.LINE_COVERAGE, "suite", "first");
+        environmentManager.storeCoverageData(Coverage.LINE_COVERAGE, "suite", "second");
+
+        TestSuite testSuite = new TestSuite("suite");
+        testSuite.getTestCases().add(new TestCase("first"));
+        testSuite.getTestCases().add(new TestCase("second"));
+        List<IChromosome<TestSuite>> population = Arrays.<IChromosome<TestSuite>>asList(new Chromosome<>(testSuite));
+
+        assertEquals(75.0, environmentManager.getCombinedCoverage(Coverage.LINE_COVERAGE, population), 0.0);
+        assertEquals(75.0, environmentManager.getCombinedCoverage(Coverage.LINE_COVERAGE, null), 0.0);
+        // each bitmap is retrieved once and the server doesn't compute the coverage
+        assertEquals(2, server.getRequestCount("/coverage/covered"));
+        assertEquals(0, server.getRequestCount("/coverage/combined"));
+    }
+
+    @Test
+    public void coverageBitmapIsAnsweredAlongWithStoringTheTraces() {
+        server.setSourceLines(Arrays.asList("A:1", "A:2", "A:3", "A:4"));
+        server.respondWith("/coverage/covered", new Message.MessageBuilder("/coverage/covered")
+                .withParameter("covered", "0:2")
+                .build());
+        MATE.packageName = "com.example";
+        environmentManager.detectEmulator(MATE.packageName);
+        environmentManager.getSourceLines();
+
+        MessageBatch batch = new MessageBatch();
+        environmentManager.storeCoverageData(Coverage.LINE_COVERAGE, "tc", null, batch);
+        assertEquals(50.0, environmentManager.getCoverage(Coverage.LINE_COVERAGE,
+                new Chromosome<>("tc"), batch), 0.0);
+
+        // storing the traces and retrieving the bitmap took a single round trip
+        assertEquals(1, environmentManager.getEndpointMetrics().getCalls("/batch"));
+        assertEquals(0, environmentManager.getEndpointMetrics().getCalls("/coverage/covered"));
+        assertEquals(1, server.getRequestCount("/coverage/covered"));
+        assertEquals(0, server.getRequestCount("/coverage/combined"));
+    }
+
+    @Test
+    public void combinedCoverageFallsBackToServer() {
+        MATE.packageName = "com.example";
+        environmentManager.detectEmulator(MATE.packageName);
+        environmentManager.storeCoverageData(Coverage.LINE_COVERAGE, "first", null);
+        environmentManager.storeCoverageData(Coverage.LINE_COVERAGE, "second", null);
+
+        List<IChromosome<String>> population = Arrays.<IChromosome<String>>asList(
+                new Chromosome<>("first"), new Chromosome<>("second"));
+        assertEquals(0.0, environmentManager.getCombinedCoverage(Coverage.LINE_COVERAGE, population), 0.0);
+        assertEquals(0.0, environmentManager.getCombinedCoverage(Coverage.LINE_COVERAGE, population), 0.0);
+        // the unsupported request is not repeated
+        assertEquals(1, server.getRequestCount("/coverage/covered"));
+        assertEquals(2, server.getRequestCount("/coverage/combined"));
+    }
+}
@@ -0,0 +1,375 @@
+package org.mate;
+
+import org.mate.message.Message;
+import org.mate.message.MessageBatch;
+import org.mate.message.serialization.MessageWriter;
+import org.mate.message.serialization.Parser;
+import org.mate.ui.EndpointMetrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An in-process stand-in for the MATE server listening on the loopback interface. It speaks
+ * the message protocol of the {@link org.mate.ui.EnvironmentManager}, including request ids,
+ * batches and the negotiation of the binary format, and answers the common endpoints with
+ * synthetic responses. Individual endpoints can be scripted via {@link #handle(String, Handler)}
+ * and slowed down via {@link #setLatency(long)} in order to benchmark the client on a plain JVM.
+ * <p>
+ * Endpoints are identified like in {@link EndpointMetrics}, i.e. by the subject of the message
+ * and by the command for requests tunneled over the legacy end point, e.g.
+ * {@code /legacy:getActivity}.
+ */
+public class FakeMateServer implements Closeable {
+
+    private static final String METADATA_PREFIX = "__meta__";
+    private static final String MESSAGE_PROTOCOL_VERSION = "1.9";
+    private static final String BINARY_MESSAGE_PROTOCOL_VERSION = "2.0";
+
+    /**
+     * Produces the response to a request.
+     */
+    public interface Handler {
+
+        /**
+         * Answers the given request.
+         *
+         * @param request The request without metadata.
+         * @return Returns the response, the metadata is added by the server.
+         */
+        Message respond(Message request);
+    }
+
+    private final ServerSocket serverSocket;
+    private final Thread acceptor;
+    private volatile boolean running = true;
+
+    private final Map<String, Handler> handlers = new HashMap<>();
+    private final Map<String, Long> latencies = new HashMap<>();
+    private volatile long defaultLatency = 0;
+    private volatile boolean binaryProtocolSupported = false;
+
+    private final List<Message> requests = new ArrayList<>();
+
+    // the synthetic state of the AUT
+    private final Map<String, String> properties = new LinkedHashMap<>();
+    private List<String> sourceLines = Collections.singletonList("com.example.MainActivity:1");
+    private List<String> branches = Collections.singletonList("com.example.MainActivity->onCreate->0");
+    private final Map<String, String> registeredLines = new HashMap<>();
+
+    /**
+     * Starts the server on a free port of the loopback interface.
+     *
+     * @throws IOException If the server socket can't be opened.
+     */
+    public FakeMateServer() throws IOException {
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                acceptConnections();
+            }
+        }, "Fake MATE-Server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public String getHost() {
+        return serverSocket.getInetAddress().getHostAddress();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Replaces the response of the given endpoint.
+     *
+     * @param endpoint The endpoint, e.g. {@code /coverage/combined} or {@code /legacy:timeout}.
+     * @param handler Produces the response.
+     */
+    public synchronized void handle(String endpoint, Handler handler) {
+        handlers.put(endpoint, handler);
+    }
+
+    /**
+     * Answers the given endpoint always with the given message.
+     *
+     * @param endpoint The endpoint.
+     * @param response The scripted response.
+     */
+    public void respondWith(String endpoint, final Message response) {
+        handle(endpoint, new Handler() {
+            @Override
+            public Message respond(Message request) {
+                return copy(response);
+            }
+        });
+    }
+
+    /**
+     * Answers the given legacy command always with the given response.
+     *
+     * @param cmd The command without arguments, e.g. {@code getActivity}.
+     * @param response The scripted response.
+     */
+    public void respondToLegacy(String cmd, String response) {
+        respondWith("/legacy:" + cmd, new Message.MessageBuilder("/legacy")
+                .withParameter("response", response)
+                .build());
+    }
+
+    /**
+     * Delays every response by the given time.
+     *
+     * @param millis The latency in milliseconds.
+     */
+    public void setLatency(long millis) {
+        defaultLatency = millis;
+    }
+
+    /**
+     * Delays the responses of the given endpoint by the given time.
+     *
+     * @param endpoint The endpoint.
+     * @param millis The latency in milliseconds.
+     */
+    public synchronized void setLatency(String endpoint, long millis) {
+        latencies.put(endpoint, millis);
+    }
+
+    /**
+     * Accepts the request for the binary message protocol (v2) from now on.
+     */
+    public void supportBinaryProtocol() {
+        binaryProtocolSupported = true;
+    }
+
+    public synchronized void setProperty(String key, String value) {
+        properties.put(key, value);
+    }
+
+    public synchronized void setSourceLines(List<String> sourceLines) {
+        this.sourceLines = sourceLines;
+    }
+
+    public synchronized void setBranches(List<String> branches) {
+        this.branches = branches;
+    }
+
+    /**
+     * Returns the requests received so far. The requests of a batch are listed individually.
+     *
+     * @return Returns a copy of the received requests without metadata.
+     */
+    public synchronized List<Message> getRequests() {
+        return new ArrayList<>(requests);
+    }
+
+    /**
+     * Returns the number of received requests of the given endpoint.
+     *
+     * @param endpoint The endpoint.
+     * @return Returns the number of requests.
+     */
+    public synchronized int getRequestCount(String endpoint) {
+        int count = 0;
+        for (Message request : requests) {
+            if (endpoint.equals(endpointOf(request))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+    }
+
+    private void acceptConnections() {
+        while (running) {
+            try (Socket client = serverSocket.accept()) {
+                serve(client);
+            } catch (IOException | IllegalStateException e) {
+                // the client disconnected or the server has been closed
+            }
+        }
+    }
+
+    private void serve(Socket client) throws IOException {
+        Parser parser = new Parser(client.getInputStream());
+        MessageWriter writer = new MessageWriter(client.getOutputStream());
+
+        while (running) {
+            Message request = parser.nextMessage();
+            Map<String, String> metadata = new LinkedHashMap<>();
+            boolean switchToBinary = binaryProtocolSupported && BINARY_MESSAGE_PROTOCOL_VERSION.equals(
+                    request.getParameter(METADATA_PREFIX + "requested_version"));
+            metadata.put(METADATA_PREFIX + "version", switchToBinary
+                    ? BINARY_MESSAGE_PROTOCOL_VERSION : request.getParameter(METADATA_PREFIX + "version"));
+            String requestId = request.getParameter(METADATA_PREFIX + "request_id");
+            if (requestId != null) {
+                metadata.put(METADATA_PREFIX + "request_id", requestId);
+            }
+            stripMetadata(request);
+
+            Message response = dispatch(request);
+            writer.writeMessage(response, metadata);
+
+            // the response to the negotiation is still sent in the text format
+            if (switchToBinary) {
+                parser.useBinaryFormat();
+                writer.useBinaryFormat();
+            }
+            if (request.getSubject().equals("/close")) {
+                return;
+            }
+        }
+    }
+
+    private Message dispatch(Message request) {
+        if (request.getSubject().equals(MessageBatch.SUBJECT)) {
+            List<Message> responses = new ArrayList<>();
+            for (Message embedded : MessageBatch.unpack(request)) {
+                stripMetadata(embedded);
+                responses.add(dispatch(embedded));
+            }
+            return MessageBatch.pack(responses);
+        }
+
+        String endpoint = endpointOf(request);
+        Handler handler;
+        long latency;
+        synchronized (this) {
+            requests.add(request);
+            handler = handlers.get(endpoint);
+            Long endpointLatency = latencies.get(endpoint);
+            latency = endpointLatency != null ? endpointLatency : defaultLatency;
+        }
+
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return handler != null ? handler.respond(request) : respondSynthetically(request);
+    }
+
+    private synchronized Message respondSynthetically(Message request) {
+        String subject = request.getSubject();
+        Message.MessageBuilder response = new Message.MessageBuilder(subject);
+
+        switch (subject) {
+            case "/properties":
+                for (Map.Entry<String, String> property : properties.entrySet()) {
+                    response.withParameter(property.getKey(), property.getValue());
+                }
+                return response.build();
+            case "/legacy":
+                return response.withParameter("response", respondToLegacy(request.getParameter("cmd"))).build();
+            case "/coverage/getSourceLines":
+                return response.withParameter("lines", join(sourceLines, '\n')).build();
+            case "/coverage/registerLines":
+                String handle = String.valueOf(registeredLines.size());
+                registeredLines.put(handle, request.getParameter("lines"));
+                return response.withParameter("handle", handle).build();
+            case "/coverage/lineCoveredPercentages":
+                String lines = request.getParameter("lines_handle") != null
+                        ? registeredLines.get(request.getParameter("lines_handle"))
+                        : request.getParameter("lines");
+                return response.withParameter("coveragePercentages",
+                        join(Collections.nCopies(lines.split("\\*").length, "0.0"), '\n')).build();
+            case "/graph/get_branches":
+                return response.withParameter("branches", join(branches, '+')).build();
+            case "/graph/get_branch_distance":
+                return response.withParameter("branch_distance", "1.0").build();
+            case "/graph/get_branch_distance_vector":
+                return response.withParameter("branch_distance_vector",
+                        join(Collections.nCopies(branches.size(), "1.0"), '+')).build();
+            case "/graph/get_branch_distance_matrix":
+                int rows = request.getParameter("chromosomes").split("\\+").length;
+                return response.withParameter("rows", String.valueOf(rows))
+                        .withParameter("cols", String.valueOf(branches.size()))
+                        .withParameter("branch_distance_matrix",
+                                join(Collections.nCopies(rows * branches.size(), "1.0"), '+')).build();
+            case "/crash/stacktrace":
+                return response.withParameter("stacktrace", "").build();
+            case "/emulator/interaction":
+                return response.withParameter("rotation", "portrait").build();
+            default:
+                if (subject.startsWith("/coverage/")) {
+                    return response.withParameter("coverage", "0.0").build();
+                }
+                return response.withParameter("response", "true").build();
+        }
+    }
+
+    private String respondToLegacy(String cmd) {
+        String command = cmd.contains(":") ? cmd.substring(0, cmd.indexOf(':')) : cmd;
+        switch (command) {
+            case "timeout":
+                return "5";
+            case "randomlength":
+                return "4";
+            case "getEmulator":
+                return "emulator-5554";
+            case "getActivity":
+            case "getActivities":
+                return "com.example/.MainActivity";
+            case "luminance":
+            case "contrastratio":
+                return "1.0";
+            default:
+                return "";
+        }
+    }
+
+    private static String endpointOf(Message request) {
+        return EndpointMetrics.endpointOf(request.getSubject(),
+                request.getSubject().equals("/legacy") ? request.getParameter("cmd") : null);
+    }
+
+    private static void stripMetadata(Message message) {
+        List<String> metadataKeys = new ArrayList<>();
+        for (String key : message.getParameters().keySet()) {
+            if (key.startsWith(METADATA_PREFIX)) {
+                metadataKeys.add(key);
+            }
+        }
+        for (String key : metadataKeys) {
+            message.getParameters().remove(key);
+        }
+    }
+
+    private static Message copy(Message message) {
+        Message copy = new Message(message.getSubject());
+        for (Map.Entry<String, String> parameter : message.getParameters().entrySet()) {
+            copy.addParameter(parameter.getKey(), parameter.getValue());
+        }
+        return copy;
+    }
+
+    private static String join(List<String> elements, char separator) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < elements.size(); i++) {
+            if (i > 0) {
+                sb.append(separator);
+            }
+            sb.append(elements.get(i));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package org.mate;
+
+import org.junit.Test;
+import org.mate.exploration.genetic.chromosome.Chromosome;
+import org.mate.exploration.genetic.chromosome.IChromosome;
+import org.mate.exploration.genetic.fitness.FitnessCache;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class FitnessCacheUnitTest {
+
+    @Test
+    public void objectivesAreAssignedDenseIds() {
+        FitnessCache cache = new FitnessCache(10);
+        assertEquals(0, cache.registerObjective("A->a->0"));
+        assertEquals(1, cache.registerObjective("A->a->1"));
+        assertEquals(0, cache.registerObjective("A->a->0"));
+        assertEquals(Arrays.asList("A->a->0", "A->a->1"), cache.getObjectives());
+        // the same view is handed out on every call
+        assertSame(cache.getObjectives(), cache.getObjectives());
+    }
+
+    @Test
+    public void leastRecentlyUsedVectorIsEvicted() {
+        FitnessCache cache = new FitnessCache(2);
+        cache.registerObjective("line");
+        IChromosome<String> first = new Chromosome<>("first");
+        IChromosome<String> second = new Chromosome<>("second");
+        IChromosome<String> third = new Chromosome<>("third");
+
+        cache.putVector(first, new double[]{0.1});
+        cache.putVector(second, new double[]{0.2});
+        // touch the first vector, such that the second one is evicted
+        assertEquals(0.1, cache.getVector(first)[0], 0.0);
+        cache.putVector(third, new double[]{0.3});
+
+        assertEquals(2, cache.getLiveEntries());
+        assertNotNull(cache.getVector(first));
+        assertNull(cache.getVector(second));
+        assertNotNull(cache.getVector(third));
+    }
+
+    @Test
+    public void vectorsOfCollectedChromosomesAreDropped() throws Exception {
+        FitnessCache cache = new FitnessCache(10);
+        cache.registerObjective("line");
+        IChromosome<String> alive = new Chromosome<>("alive");
+        cache.putVector(alive, new double[]{1.0});
+        cache.putVector(new Chromosome<>("discarded"), new double[]{0.0});
+
+        for (int i = 0; i < 50 && cache.getLiveEntries() > 1; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(1, cache.getLiveEntries());
+        assertNotNull(cache.getVector(alive));
+    }
+
+    @Test
+    public void chromosomesAreComparedByIdentity() {
+        FitnessCache cache = new FitnessCache(10);
+        cache.registerObjective("line");
+        IChromosome<String> chromosome = new Chromosome<>("same");
+        cache.putVector(chromosome, new double[]{1.0});
+        assertNull(cache.getVector(new Chromosome<>("same")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void vectorLengthMustMatchObjectives() {
+        FitnessCache cache = new FitnessCache(10);
+        cache.registerObjective("line");
+        cache.putVector(new Chromosome<>("chromosome"), new double[]{0.0, 1.0});
+    }
+}
@@ -0,0 +1,112 @@
+package org.mate;
+
+import org.junit.Test;
+import org.mate.exploration.genetic.chromosome.Chromosome;
+import org.mate.exploration.genetic.chromosome.IChromosome;
+import org.mate.exploration.genetic.core.FitnessMatrix;
+import org.mate.exploration.genetic.core.GAUtils;
+import org.mate.exploration.genetic.fitness.IFitnessFunction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FitnessMatrixUnitTest {
+
+    /**
+     * Interprets the chromosome's value as fitness vector and counts the evaluations.
+     */
+    private static class VectorFitnessFunction implements IFitnessFunction<double[]> {
+
+        private final int objective;
+        private int evaluations = 0;
+
+        VectorFitnessFunction(int objective) {
+            this.objective = objective;
+        }
+
+        @Override
+        public double getFitness(IChromosome<double[]> chromosome) {
+            evaluations++;
+            return chromosome.getValue()[objective];
+        }
+    }
+
+    private static List<IChromosome<double[]>> chromosomes(double[]... vectors) {
+        List<IChromosome<double[]>> chromosomes = new ArrayList<>();
+        for (double[] vector : vectors) {
+            chromosomes.add(new Chromosome<>(vector));
+        }
+        return chromosomes;
+    }
+
+    private static List<IFitnessFunction<double[]>> fitnessFunctions(VectorFitnessFunction... functions) {
+        return new ArrayList<IFitnessFunction<double[]>>(Arrays.asList(functions));
+    }
+
+    @Test
+    public void eachObjectiveIsEvaluatedOncePerChromosome() {
+        VectorFitnessFunction first = new VectorFitnessFunction(0);
+        VectorFitnessFunction second = new VectorFitnessFunction(1);
+        List<IFitnessFunction<double[]>> fitnessFunctions = fitnessFunctions(first, second);
+        List<IChromosome<double[]>> population = chromosomes(
+                new double[]{0.1, 0.9}, new double[]{0.5, 0.5}, new double[]{0.9, 0.1});
+
+        FitnessMatrix<double[]> matrix = FitnessMatrix.evaluate(population, fitnessFunctions);
+        assertEquals(3, matrix.size());
+        assertEquals(2, matrix.getObjectiveCount());
+        assertEquals(0.5, matrix.get(1, 0), 0.0);
+        assertEquals(0.1, matrix.get(2, 1), 0.0);
+        assertEquals(3, first.evaluations);
+        assertEquals(3, second.evaluations);
+
+        // the survivors keep their rows, only the offspring is evaluated
+        List<IChromosome<double[]>> survivors = population.subList(1, 3);
+        List<IChromosome<double[]>> nextGeneration = new ArrayList<>(matrix.select(survivors).getChromosomes());
+        nextGeneration.addAll(chromosomes(new double[]{1.0, 1.0}));
+        matrix = FitnessMatrix.evaluate(nextGeneration, fitnessFunctions, matrix.select(survivors));
+        assertEquals(4, first.evaluations);
+        assertEquals(1, matrix.indexOf(population.get(2)));
+        assertEquals(-1, matrix.indexOf(population.get(0)));
+        assertEquals(1.0, matrix.get(2, 1), 0.0);
+
+        // lookups via the fitness functions backed by the matrix
+        assertEquals(0.9, matrix.asFitnessFunctions().get(0).getFitness(population.get(2)), 0.0);
+        assertEquals(4, first.evaluations);
+    }
+
+    @Test
+    public void indexBasedRankingMatchesChromosomeBasedRanking() {
+        List<IFitnessFunction<double[]>> fitnessFunctions = fitnessFunctions(
+                new VectorFitnessFunction(0), new VectorFitnessFunction(1));
+        List<IChromosome<double[]>> population = chromosomes(
+                new double[]{0.1, 0.9}, new double[]{0.2, 0.2}, new double[]{0.5, 0.5},
+                new double[]{0.9, 0.1}, new double[]{0.5, 0.5}, new double[]{0.3, 0.6});
+
+        List<IChromosome<double[]>> paretoFront = GAUtils.getParetoFront(population, fitnessFunctions);
+        assertEquals(Arrays.asList(population.get(0), population.get(2), population.get(3),
+                population.get(4), population.get(5)), paretoFront);
+
+        FitnessMatrix<double[]> matrix = FitnessMatrix.evaluate(population, fitnessFunctions);
+        List<Integer> front = GAUtils.getParetoFront(matrix, matrix.getRows(), matrix.getObjectives());
+        assertEquals(Arrays.asList(0, 2, 3, 4, 5), front);
+
+        Map<IChromosome<double[]>, Double> crowdingDistanceMap = new HashMap<>();
+        GAUtils.updateCrowdingDistance(paretoFront, fitnessFunctions, crowdingDistanceMap);
+        double[] crowdingDistances = new double[matrix.size()];
+        GAUtils.updateCrowdingDistance(matrix, front, matrix.getObjectives(), crowdingDistances);
+
+        for (int row : front) {
+            assertEquals(crowdingDistanceMap.get(matrix.getChromosome(row)), crowdingDistances[row], 0.0);
+        }
+        // the boundaries and the duplicate
+        assertEquals(Double.POSITIVE_INFINITY, crowdingDistances[0], 0.0);
+        assertEquals(Double.POSITIVE_INFINITY, crowdingDistances[3], 0.0);
+        assertEquals(0.0, crowdingDistances[4], 0.0);
+        assertEquals(0.0, GAUtils.calculateDistance(matrix, 2, 4, matrix.getObjectives()), 0.0);
+    }
+}
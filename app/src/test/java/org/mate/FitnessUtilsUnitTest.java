@@ -0,0 +1,117 @@
+package org.mate;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mate.exploration.genetic.chromosome.Chromosome;
+import org.mate.exploration.genetic.chromosome.IChromosome;
+import org.mate.exploration.genetic.fitness.BranchDistanceFitnessFunction;
+import org.mate.message.Message;
+import org.mate.model.TestCase;
+import org.mate.ui.EnvironmentManager;
+import org.mate.utils.FitnessUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class FitnessUtilsUnitTest {
+
+    private FakeMateServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeMateServer();
+        EnvironmentManager environmentManager = new EnvironmentManager(server.getHost(), server.getPort());
+        environmentManager.detectEmulator("com.example");
+        Registry.registerEnvironmentManager(environmentManager);
+
+        Map<String, String> properties = new HashMap<>();
+        properties.put("fitness_function", BranchDistanceFitnessFunction.FITNESS_FUNCTION_ID);
+        Registry.registerProperties(new Properties(properties));
+        MATE.packageName = "com.example";
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Registry.unregisterEnvironmentManager();
+        Registry.unregisterProperties();
+        server.close();
+    }
+
+    @Test
+    public void scalarFitnessIsMemoisedUntilDataIsStored() {
+        IChromosome<TestCase> chromosome = new Chromosome<>(TestCase.newDummy());
+        server.respondWith("/graph/get_branch_distance", new Message.MessageBuilder("/graph/get_branch_distance")
+                .withParameter("branch_distance", "0.5")
+                .build());
+
+        FitnessUtils.prefetchFitness(chromosome);
+        assertEquals(0.5, FitnessUtils.getFitness(chromosome), 0.0);
+        assertEquals(0.5, new BranchDistanceFitnessFunction<TestCase>().getFitness(chromosome), 0.0);
+        assertEquals(1, server.getRequestCount("/graph/get_branch_distance"));
+
+        // storing further fitness data invalidates the memoised value
+        FitnessUtils.storeTestCaseChromosomeFitness(chromosome);
+        assertEquals(0.5, FitnessUtils.getFitness(chromosome), 0.0);
+        assertEquals(2, server.getRequestCount("/graph/get_branch_distance"));
+    }
+
+    @Test
+    public void pipelinedFitnessIsJoinedWhenNeeded() throws Exception {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("fitness_function", BranchDistanceFitnessFunction.FITNESS_FUNCTION_ID);
+        properties.put("pipelined_fitness_evaluation", "true");
+        Registry.unregisterProperties();
+        Registry.registerProperties(new Properties(properties));
+
+        final CountDownLatch serverBlocked = new CountDownLatch(1);
+        server.handle("/graph/get_branch_distance", new FakeMateServer.Handler() {
+            @Override
+            public Message respond(Message request) {
+                try {
+                    serverBlocked.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new Message.MessageBuilder("/graph/get_branch_distance")
+                        .withParameter("branch_distance", "0.25")
+                        .build();
+            }
+        });
+
+        IChromosome<TestCase> chromosome = new Chromosome<>(TestCase.newDummy());
+        // returns while the server is still evaluating the chromosome
+        long start = System.nanoTime();
+        FitnessUtils.prefetchFitness(chromosome);
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 2);
+        serverBlocked.countDown();
+
+        assertEquals(0.25, FitnessUtils.getFitness(chromosome), 0.0);
+        assertEquals(0.25, new BranchDistanceFitnessFunction<TestCase>().getFitness(chromosome), 0.0);
+        assertEquals(1, server.getRequestCount("/graph/get_branch_distance"));
+    }
+
+    @Test
+    public void completedEvaluationsAreNotRetained() throws Exception {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("fitness_function", BranchDistanceFitnessFunction.FITNESS_FUNCTION_ID);
+        properties.put("pipelined_fitness_evaluation", "true");
+        Registry.unregisterProperties();
+        Registry.registerProperties(new Properties(properties));
+
+        // the fitness values of these chromosomes are never asked for
+        for (int i = 0; i < 10; i++) {
+            FitnessUtils.prefetchFitness(new Chromosome<>(TestCase.newDummy()));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (FitnessUtils.getPendingEvaluationCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, FitnessUtils.getPendingEvaluationCount());
+        assertEquals(10, server.getRequestCount("/graph/get_branch_distance"));
+    }
+}
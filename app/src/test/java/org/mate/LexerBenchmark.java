@@ -0,0 +1,62 @@
+package org.mate;
+
+import org.mate.message.Message;
+import org.mate.message.serialization.Parser;
+import org.mate.message.serialization.Serializer;
+
+import java.io.ByteArrayInputStream;
+import java.util.Locale;
+
+/**
+ * Compares the token based {@link org.mate.message.serialization.Lexer} with the
+ * {@link org.mate.message.serialization.BufferedLexer} on multi-megabyte messages resembling
+ * the responses of {@code /coverage/getSourceLines} and {@code /graph/get_branch_distance_vector}.
+ * <p>
+ * Run the main method on a plain JVM, optionally passing the number of source lines.
+ */
+public class LexerBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 10;
+
+    public static void main(String[] args) {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+        StringBuilder sourceLines = new StringBuilder();
+        StringBuilder branchDistances = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sourceLines.append("com.example.app.ui.SomeActivity$Inner:").append(i).append('\n');
+            branchDistances.append(Math.random()).append('+');
+        }
+
+        Message sourceLinesMessage = new Message.MessageBuilder("/coverage/getSourceLines")
+                .withParameter("lines", sourceLines.toString())
+                .build();
+        Message branchDistanceMessage = new Message.MessageBuilder("/graph/get_branch_distance_vector")
+                .withParameter("branch_distance_vector", branchDistances.toString())
+                .build();
+
+        run("getSourceLines", Serializer.serialize(sourceLinesMessage));
+        run("branch_distance_vector", Serializer.serialize(branchDistanceMessage));
+    }
+
+    private static void run(String name, byte[] bytes) {
+        double tokenBased = measure(bytes, false);
+        double buffered = measure(bytes, true);
+        System.out.println(String.format(Locale.ENGLISH,
+                "%-24s %8.2f MB | token lexer %9.2f ms | buffered lexer %9.2f ms | speedup %.1fx",
+                name, bytes.length / (1024.0 * 1024.0), tokenBased, buffered, tokenBased / buffered));
+    }
+
+    private static double measure(byte[] bytes, boolean buffered) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            new Parser(new ByteArrayInputStream(bytes), buffered).nextMessage();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            new Parser(new ByteArrayInputStream(bytes), buffered).nextMessage();
+        }
+        return (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+    }
+}
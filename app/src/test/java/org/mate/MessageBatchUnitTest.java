@@ -0,0 +1,68 @@
+package org.mate;
+
+import org.junit.Test;
+import org.mate.message.Message;
+import org.mate.message.MessageBatch;
+import org.mate.message.serialization.Parser;
+import org.mate.message.serialization.Serializer;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MessageBatchUnitTest {
+
+    @Test
+    public void packAndUnpackPreservesOrder() {
+        Message store = new Message.MessageBuilder("/coverage/store")
+                .withParameter("chromosome", "suite;1~")
+                .withParameter("entity", "tc:\\1")
+                .build();
+        Message coverage = new Message.MessageBuilder("/coverage/combined")
+                .withParameter("chromosomes", "suite;1~")
+                .build();
+
+        MessageBatch batch = new MessageBatch();
+        assertEquals(0, batch.add(store));
+        assertEquals(1, batch.add(coverage));
+
+        // the batch message has to survive the text based transfer
+        byte[] serialized = Serializer.serialize(batch.toMessage());
+        Message transferred = new Parser(new ByteArrayInputStream(serialized)).nextMessage();
+
+        List<Message> unpacked = MessageBatch.unpack(transferred);
+        assertEquals(2, unpacked.size());
+        assertEquals(store, unpacked.get(0));
+        assertEquals(coverage, unpacked.get(1));
+    }
+
+    @Test
+    public void joinedParametersArePacked() {
+        Message matrix = new Message.MessageBuilder("/graph/get_branch_distance_matrix")
+                .withParameter("deviceId", "emulator-5554")
+                .withJoinedParameter("chromosomes", Arrays.asList("first", "se+cond"), '+')
+                .build();
+
+        MessageBatch batch = new MessageBatch();
+        batch.add(matrix);
+        for (boolean binaryFormat : new boolean[]{false, true}) {
+            Message packed = batch.toMessage();
+            byte[] serialized = binaryFormat ? Serializer.serializeBinary(packed) : Serializer.serialize(packed);
+            Parser parser = new Parser(new ByteArrayInputStream(serialized));
+            if (binaryFormat) {
+                parser.useBinaryFormat();
+            }
+
+            Message unpacked = MessageBatch.unpack(parser.nextMessage()).get(0);
+            assertEquals("first+se+cond", unpacked.getParameter("chromosomes"));
+            assertEquals("emulator-5554", unpacked.getParameter("deviceId"));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unpackRejectsNonBatchMessage() {
+        MessageBatch.unpack(new Message("/coverage/store"));
+    }
+}
@@ -0,0 +1,93 @@
+package org.mate;
+
+import org.junit.Test;
+import org.mate.message.Message;
+import org.mate.message.serialization.MessageWriter;
+import org.mate.message.serialization.Parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mate.message.serialization.Lexer.CHARSET;
+
+public class MessageWriterUnitTest {
+
+    private static Message sampleMessage() {
+        return new Message.MessageBuilder("/coverage/combined")
+                .withParameter("lines", "com.example.Foo:1\ncom.example.Foo:2\\;~\nüñïçødé € 😀")
+                .withParameter("empty", "")
+                .withJoinedParameter("chromosomes", Arrays.asList("a:1", "", "ü~2"), '+')
+                .build();
+    }
+
+    private static Map<String, String> metadata() {
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put("__meta__version", "1.9");
+        metadata.put("__meta__request_id", "42");
+        return metadata;
+    }
+
+    private static void assertWritten(Message message, Map<String, String> metadata, Message parsed) {
+        assertEquals(message.getSubject(), parsed.getSubject());
+        int parameters = message.getParameters().size() + message.getJoinedParameters().size();
+        assertEquals(parameters + metadata.size(), parsed.getParameters().size());
+        for (String key : message.getParameters().keySet()) {
+            assertEquals(message.getParameter(key), parsed.getParameter(key));
+        }
+        for (String key : message.getJoinedParameters().keySet()) {
+            assertEquals(message.getParameter(key), parsed.getParameter(key));
+        }
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            assertEquals(entry.getValue(), parsed.getParameter(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void textFormatRoundTrip() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // a tiny buffer forces flushes in the middle of multi-byte characters and escapes
+        MessageWriter writer = new MessageWriter(out, 4);
+        writer.writeMessage(sampleMessage(), metadata());
+        writer.writeMessage(new Message("/close"));
+
+        Parser parser = new Parser(new ByteArrayInputStream(out.toByteArray()));
+        assertWritten(sampleMessage(), metadata(), parser.nextMessage());
+        assertEquals(new Message("/close"), parser.nextMessage());
+    }
+
+    @Test
+    public void binaryFormatRoundTrip() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MessageWriter writer = new MessageWriter(out, 4);
+        writer.useBinaryFormat();
+        writer.writeMessage(sampleMessage(), metadata());
+        writer.writeMessage(new Message("/close"));
+
+        Parser parser = new Parser(new ByteArrayInputStream(out.toByteArray()));
+        parser.useBinaryFormat();
+        assertWritten(sampleMessage(), metadata(), parser.nextMessage());
+        assertEquals(new Message("/close"), parser.nextMessage());
+    }
+
+    @Test
+    public void messageIsNotModified() throws Exception {
+        Message message = sampleMessage();
+        new MessageWriter(new ByteArrayOutputStream()).writeMessage(message, metadata());
+        assertEquals(sampleMessage(), message);
+    }
+
+    @Test
+    public void unpairedSurrogateIsReplaced() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Message message = new Message.MessageBuilder("/test")
+                .withParameter("value", "a\uD83Db")
+                .build();
+        new MessageWriter(out).writeMessage(message);
+        assertEquals(new String("/test;value:a\uD83Db~".getBytes(CHARSET), CHARSET),
+                new String(out.toByteArray(), CHARSET));
+    }
+}
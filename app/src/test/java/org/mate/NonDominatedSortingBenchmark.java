@@ -0,0 +1,111 @@
+package org.mate;
+
+import org.mate.exploration.genetic.chromosome.IChromosome;
+import org.mate.exploration.genetic.core.FitnessMatrix;
+import org.mate.exploration.genetic.core.GAUtils;
+import org.mate.exploration.genetic.core.NonDominatedSorting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares the {@link NonDominatedSorting} with peeling off one Pareto front after the other,
+ * as NSGA-II and MOSA did before, for populations of 100 to 1000 chromosomes and 10 to 5000
+ * objectives, e.g. branches. Fronts are peeled off either from the list of chromosomes via
+ * {@link GAUtils#getParetoFront(List, List)} or from the rows of the fitness matrix via
+ * {@link GAUtils#getParetoFront(FitnessMatrix, List, int[])}.
+ * <p>
+ * Run the main method on a plain JVM.
+ */
+public class NonDominatedSortingBenchmark {
+
+    private static final int[] POPULATION_SIZES = {100, 250, 500, 1000};
+    private static final int[] OBJECTIVE_COUNTS = {10, 100, 1000, 5000};
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    private static final int CHROMOSOME_PEELING = 0;
+    private static final int ROW_PEELING = 1;
+    private static final int SORTING = 2;
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        for (int populationSize : POPULATION_SIZES) {
+            for (int objectiveCount : OBJECTIVE_COUNTS) {
+                FitnessMatrix<double[]> fitnessMatrix
+                        = NonDominatedSortingUnitTest.fitnessMatrix(vectors(random, populationSize, objectiveCount));
+                double chromosomePeeling = measure(fitnessMatrix, CHROMOSOME_PEELING);
+                double rowPeeling = measure(fitnessMatrix, ROW_PEELING);
+                double sorting = measure(fitnessMatrix, SORTING);
+                System.out.println(String.format(Locale.ENGLISH,
+                        "N=%4d M=%4d | chromosome peeling %10.2f ms | row peeling %9.2f ms"
+                                + " | non-dominated sorting %9.2f ms | speedup %6.1fx / %4.1fx",
+                        populationSize, objectiveCount, chromosomePeeling, rowPeeling, sorting,
+                        chromosomePeeling / sorting, rowPeeling / sorting));
+            }
+        }
+    }
+
+    /**
+     * Creates fitness vectors resembling branch distances: most objectives are covered by
+     * either all or none of the chromosomes, the others grow with the progress of the
+     * chromosome towards them, such that the population splits into several fronts.
+     */
+    private static double[][] vectors(Random random, int populationSize, int objectiveCount) {
+        double[] progress = new double[populationSize];
+        for (int row = 0; row < populationSize; row++) {
+            progress[row] = random.nextDouble();
+        }
+
+        double[][] vectors = new double[populationSize][objectiveCount];
+        for (int objective = 0; objective < objectiveCount; objective++) {
+            int kind = random.nextInt(4);
+            for (int row = 0; row < populationSize; row++) {
+                if (kind == 0) {
+                    vectors[row][objective] = 1.0;
+                } else if (kind == 1) {
+                    vectors[row][objective] = 0.0;
+                } else {
+                    double noise = random.nextDouble() < 0.05 ? random.nextDouble() / 4 : 0.0;
+                    vectors[row][objective] = Math.round(Math.min(1.0, progress[row] + noise) * 16) / 16.0;
+                }
+            }
+        }
+        return vectors;
+    }
+
+    private static double measure(FitnessMatrix<double[]> fitnessMatrix, int variant) {
+        int[] objectives = fitnessMatrix.getObjectives();
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            rank(fitnessMatrix, objectives, variant);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            rank(fitnessMatrix, objectives, variant);
+        }
+        return (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+    }
+
+    private static int rank(FitnessMatrix<double[]> fitnessMatrix, int[] objectives, int variant) {
+        switch (variant) {
+            case CHROMOSOME_PEELING:
+                List<IChromosome<double[]>> remaining = new ArrayList<>(fitnessMatrix.getChromosomes());
+                int fronts = 0;
+                while (!remaining.isEmpty()) {
+                    for (IChromosome<double[]> chromosome
+                            : GAUtils.getParetoFront(remaining, fitnessMatrix.getFitnessFunctions())) {
+                        remaining.remove(chromosome);
+                    }
+                    fronts++;
+                }
+                return fronts;
+            case ROW_PEELING:
+                return NonDominatedSortingUnitTest.peelFronts(fitnessMatrix, objectives).length;
+            default:
+                return NonDominatedSorting.sort(fitnessMatrix, fitnessMatrix.getRows(), objectives).length;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.mate;
+
+import org.junit.Test;
+import org.mate.exploration.genetic.chromosome.Chromosome;
+import org.mate.exploration.genetic.chromosome.IChromosome;
+import org.mate.exploration.genetic.core.FitnessMatrix;
+import org.mate.exploration.genetic.core.GAUtils;
+import org.mate.exploration.genetic.core.NonDominatedSorting;
+import org.mate.exploration.genetic.fitness.IFitnessFunction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NonDominatedSortingUnitTest {
+
+    /**
+     * Sorts the rows into fronts by peeling off one Pareto front after the other.
+     */
+    static int[] peelFronts(FitnessMatrix<double[]> fitnessMatrix, int[] objectives) {
+        int[] ranks = new int[fitnessMatrix.size()];
+        List<Integer> remaining = fitnessMatrix.getRows();
+        int rank = 0;
+        while (!remaining.isEmpty()) {
+            List<Integer> paretoFront = GAUtils.getParetoFront(fitnessMatrix, remaining, objectives);
+            for (int row : paretoFront) {
+                ranks[row] = rank;
+            }
+            remaining.removeAll(paretoFront);
+            rank++;
+        }
+        return ranks;
+    }
+
+    static FitnessMatrix<double[]> fitnessMatrix(double[][] vectors) {
+        List<IChromosome<double[]>> chromosomes = new ArrayList<>();
+        for (double[] vector : vectors) {
+            chromosomes.add(new Chromosome<>(vector));
+        }
+        List<IFitnessFunction<double[]>> fitnessFunctions = new ArrayList<>();
+        for (int objective = 0; objective < vectors[0].length; objective++) {
+            final int index = objective;
+            fitnessFunctions.add(new IFitnessFunction<double[]>() {
+                @Override
+                public double getFitness(IChromosome<double[]> chromosome) {
+                    return chromosome.getValue()[index];
+                }
+            });
+        }
+        return FitnessMatrix.evaluate(chromosomes, fitnessFunctions);
+    }
+
+    @Test
+    public void ranksMatchPeeledParetoFronts() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            double[][] vectors = new double[60][3];
+            for (double[] vector : vectors) {
+                for (int objective = 0; objective < vector.length; objective++) {
+                    // few distinct values lead to duplicates and many fronts
+                    vector[objective] = random.nextInt(5) / 4.0;
+                }
+            }
+            FitnessMatrix<double[]> fitnessMatrix = fitnessMatrix(vectors);
+            int[] objectives = fitnessMatrix.getObjectives();
+            assertArrayEquals(peelFronts(fitnessMatrix, objectives),
+                    NonDominatedSorting.sort(fitnessMatrix, fitnessMatrix.getRows(), objectives));
+        }
+    }
+
+    @Test
+    public void subsetsOfRowsAreSorted() {
+        FitnessMatrix<double[]> fitnessMatrix = fitnessMatrix(new double[][]{
+                {0.1, 0.9}, {0.2, 0.2}, {0.5, 0.5}, {0.9, 0.1}, {0.5, 0.5}, {0.3, 0.6}});
+
+        List<Integer> rows = NonDominatedSorting.removeRows(fitnessMatrix.getRows(), Arrays.asList(3, 0), 6);
+        assertEquals(Arrays.asList(1, 2, 4, 5), rows);
+
+        int[] ranks = NonDominatedSorting.sort(fitnessMatrix, rows, new int[]{0, 1});
+        assertArrayEquals(new int[]{-1, 1, 0, -1, 0, 0}, ranks);
+        assertEquals(Arrays.asList(Arrays.asList(2, 4, 5), Arrays.asList(1)),
+                NonDominatedSorting.getFronts(ranks, rows));
+
+        // only the second objective
+        assertArrayEquals(new int[]{0, 3, 2, 4, 2, 1},
+                NonDominatedSorting.sort(fitnessMatrix, fitnessMatrix.getRows(), new int[]{1}));
+    }
+
+    @Test
+    public void valuesEqualUpToEpsilonAreHandled() {
+        // the second vector dominates the first one, since their first values are considered equal
+        double[][] vectors = {{0.5, 0.3}, {0.5 - 2e-11, 0.6}, {0.4, 0.2}, {0.5 + 2e-11, 0.3}};
+        assertArrayEquals(new int[]{1, 0, 2, 1}, NonDominatedSorting.sort(vectors, new int[]{0, 1}));
+    }
+}
@@ -0,0 +1,104 @@
+package org.mate;
+
+import org.junit.Test;
+import org.mate.message.Message;
+import org.mate.message.serialization.Parser;
+import org.mate.message.serialization.Serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.*;
+
+public class ParserUnitTest {
+
+    private static Message sampleMessage() {
+        return new Message.MessageBuilder("/coverage/getSourceLines")
+                .withParameter("lines", "com.example.Foo:1\ncom.example.Foo:2\\;~\nüñïçødé €")
+                .withParameter("empty", "")
+                .withParameter("ke:y;~", "v\\a:l;u~e")
+                .build();
+    }
+
+    private static byte[] serialize(Message... messages) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Message message : messages) {
+            out.write(Serializer.serialize(message));
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void bufferedAndTokenLexerAgree() throws Exception {
+        Message noParameters = new Message("/close");
+        byte[] bytes = serialize(sampleMessage(), noParameters, sampleMessage());
+
+        Parser buffered = new Parser(new ByteArrayInputStream(bytes), true);
+        Parser tokenBased = new Parser(new ByteArrayInputStream(bytes), false);
+
+        assertEquals(sampleMessage(), buffered.nextMessage());
+        assertEquals(noParameters, buffered.nextMessage());
+        assertEquals(sampleMessage(), buffered.nextMessage());
+
+        assertEquals(sampleMessage(), tokenBased.nextMessage());
+        assertEquals(noParameters, tokenBased.nextMessage());
+        assertEquals(sampleMessage(), tokenBased.nextMessage());
+    }
+
+    @Test
+    public void bufferedLexerHandlesFragmentedInput() throws Exception {
+        final byte[] bytes = serialize(sampleMessage(), sampleMessage());
+
+        // deliver at most two bytes per read to split escapes and multi-byte characters
+        InputStream fragmented = new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 2));
+            }
+        };
+
+        Parser parser = new Parser(fragmented);
+        assertEquals(sampleMessage(), parser.nextMessage());
+        assertEquals(sampleMessage(), parser.nextMessage());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void bufferedLexerRejectsTruncatedMessage() throws Exception {
+        byte[] bytes = serialize(sampleMessage());
+        byte[] truncated = new byte[bytes.length - 1];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        new Parser(new ByteArrayInputStream(truncated)).nextMessage();
+    }
+
+    @Test
+    public void binaryFormatRoundTrip() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // the first message is still text based, afterwards the format is switched
+        out.write(Serializer.serialize(sampleMessage()));
+        out.write(Serializer.serializeBinary(sampleMessage()));
+        out.write(Serializer.serializeBinary(new Message("/close")));
+
+        Parser parser = new Parser(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(sampleMessage(), parser.nextMessage());
+        parser.useBinaryFormat();
+        assertEquals(sampleMessage(), parser.nextMessage());
+        assertEquals(new Message("/close"), parser.nextMessage());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void binaryFormatRejectsMisframedMessage() throws Exception {
+        byte[] frame = Serializer.serializeBinary(new Message("/close"));
+        // announce one byte more than the payload has
+        frame[3]++;
+        Parser parser = new Parser(new ByteArrayInputStream(frame));
+        parser.useBinaryFormat();
+        parser.nextMessage();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void binaryFormatRequiresBufferedLexer() {
+        new Parser(new ByteArrayInputStream(new byte[0]), false).useBinaryFormat();
+    }
+}
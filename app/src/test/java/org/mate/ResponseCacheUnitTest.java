@@ -0,0 +1,46 @@
+package org.mate;
+
+import org.junit.Test;
+import org.mate.ui.ResponseCache;
+
+import static org.junit.Assert.*;
+
+public class ResponseCacheUnitTest {
+
+    @Test
+    public void staticEndpointsAreServedAfterFirstRequest() {
+        ResponseCache cache = new ResponseCache();
+        cache.declare("/coverage/getSourceLines", ResponseCache.Policy.STATIC);
+
+        assertNull(cache.get("/coverage/getSourceLines", "emulator-5554"));
+        cache.put("/coverage/getSourceLines", "emulator-5554", "lines");
+        assertEquals("lines", cache.<String>get("/coverage/getSourceLines", "emulator-5554"));
+        // other request keys are cached separately
+        assertNull(cache.get("/coverage/getSourceLines", "emulator-5556"));
+
+        assertEquals(1, cache.getHits("/coverage/getSourceLines"));
+        assertEquals(2, cache.getMisses("/coverage/getSourceLines"));
+    }
+
+    @Test
+    public void undeclaredAndNeverCachedEndpointsAreNotStored() {
+        ResponseCache cache = new ResponseCache();
+        cache.declare("/android/clearApp", ResponseCache.Policy.NEVER);
+
+        cache.put("/android/clearApp", "", "response");
+        cache.put("/undeclared", "", "response");
+        assertNull(cache.get("/android/clearApp", ""));
+        assertNull(cache.get("/undeclared", ""));
+    }
+
+    @Test
+    public void ttlEntriesExpire() throws InterruptedException {
+        ResponseCache cache = new ResponseCache();
+        cache.declareTtl("/legacy:timeout", 20);
+
+        cache.put("/legacy:timeout", "", 5L);
+        assertEquals(Long.valueOf(5L), cache.<Long>get("/legacy:timeout", ""));
+        Thread.sleep(40);
+        assertNull(cache.get("/legacy:timeout", ""));
+    }
+}
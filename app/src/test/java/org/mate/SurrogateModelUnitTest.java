@@ -0,0 +1,102 @@
+package org.mate;
+
+import org.junit.Test;
+import org.mate.exploration.genetic.chromosome.Chromosome;
+import org.mate.exploration.genetic.chromosome.IChromosome;
+import org.mate.exploration.genetic.core.FitnessMatrix;
+import org.mate.exploration.genetic.core.SurrogateModel;
+import org.mate.exploration.genetic.fitness.IFitnessFunction;
+import org.mate.model.TestCase;
+import org.mate.ui.Action;
+import org.mate.ui.ActionType;
+import org.mate.ui.PrimitiveAction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SurrogateModelUnitTest {
+
+    /**
+     * Derives the transitions from the x coordinate of the actions, actions with a coordinate
+     * of at least 10 haven't been executed yet. Executing a test case copies its actions.
+     */
+    private static class FakeSurrogateModel extends SurrogateModel {
+
+        private final List<TestCase> executed = new ArrayList<>();
+
+        FakeSurrogateModel(float executionRate, float exploitationRatio) {
+            super(executionRate, exploitationRatio);
+        }
+
+        @Override
+        protected String getTransition(Action action) {
+            int x = ((PrimitiveAction) action).getX();
+            return x < 10 ? "start->" + x : null;
+        }
+
+        @Override
+        protected IChromosome<TestCase> execute(TestCase testCase) {
+            TestCase executedTestCase = new TestCase("executed" + executed.size());
+            executedTestCase.getEventSequence().addAll(testCase.getEventSequence());
+            executed.add(testCase);
+            return new Chromosome<>(executedTestCase);
+        }
+    }
+
+    private static IChromosome<TestCase> testCase(String id, int... xs) {
+        TestCase testCase = new TestCase(id);
+        for (int x : xs) {
+            testCase.getEventSequence().add(new PrimitiveAction(x, 0, ActionType.CLICK));
+        }
+        return new Chromosome<>(testCase);
+    }
+
+    private static FitnessMatrix<TestCase> evaluate(final Map<IChromosome<TestCase>, Double> fitness) {
+        IFitnessFunction<TestCase> fitnessFunction = new IFitnessFunction<TestCase>() {
+            @Override
+            public double getFitness(IChromosome<TestCase> chromosome) {
+                return fitness.get(chromosome);
+            }
+        };
+        return FitnessMatrix.evaluate(new ArrayList<>(fitness.keySet()),
+                Collections.singletonList(fitnessFunction));
+    }
+
+    @Test
+    public void onlyPromisingOffspringAreExecuted() {
+        FakeSurrogateModel surrogateModel = new FakeSurrogateModel(0.5f, 1.0f);
+
+        IChromosome<TestCase> good = testCase("good", 1, 2);
+        IChromosome<TestCase> bad = testCase("bad", 3, 4);
+        Map<IChromosome<TestCase>, Double> fitness = new IdentityHashMap<>();
+        fitness.put(good, 0.8);
+        fitness.put(bad, 0.2);
+        surrogateModel.observe(evaluate(fitness), Arrays.asList(good, bad));
+
+        // a duplicate of the good test case, of the bad one and one exploring a new action
+        IChromosome<TestCase> duplicate = testCase("dummy", 1, 2);
+        IChromosome<TestCase> similarToBad = testCase("dummy", 3, 4);
+        IChromosome<TestCase> exploring = testCase("dummy", 3, 20);
+
+        List<IChromosome<TestCase>> screened = surrogateModel.screen(
+                Arrays.asList(good, duplicate, bad, similarToBad, exploring));
+        assertEquals(4, screened.size());
+        assertSame(good, screened.get(0));
+        assertSame(bad, screened.get(2));
+        assertEquals(Arrays.asList(duplicate.getValue(), exploring.getValue()), surrogateModel.executed);
+
+        // the predictions were 0.8 and 0.2
+        fitness.clear();
+        fitness.put(screened.get(1), 0.6);
+        fitness.put(screened.get(3), 0.9);
+        surrogateModel.observe(evaluate(fitness), Arrays.asList(screened.get(1), screened.get(3)));
+        assertEquals(2, surrogateModel.getEvaluatedPredictions());
+        assertEquals(0.45, surrogateModel.getMeanAbsoluteError(), 1e-9);
+    }
+}
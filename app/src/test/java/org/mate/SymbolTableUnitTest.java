@@ -0,0 +1,61 @@
+package org.mate;
+
+import org.junit.Test;
+import org.mate.exploration.genetic.chromosome.Chromosome;
+import org.mate.exploration.genetic.fitness.SpecificActivityCoveredFitnessFunction;
+import org.mate.exploration.genetic.fitness.SuiteActivityFitnessFunction;
+import org.mate.model.SymbolTable;
+import org.mate.model.TestCase;
+import org.mate.model.TestSuite;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+
+import static org.junit.Assert.*;
+
+public class SymbolTableUnitTest {
+
+    @Test
+    public void symbolsAreInternedAsDenseIds() {
+        SymbolTable symbols = new SymbolTable();
+        assertEquals(0, symbols.intern("MainActivity"));
+        assertEquals(1, symbols.intern("SettingsActivity"));
+        assertEquals(0, symbols.intern("MainActivity"));
+        assertEquals(-1, symbols.idOf("AboutActivity"));
+        assertEquals(2, symbols.size());
+        assertEquals("SettingsActivity", symbols.symbolOf(1));
+
+        BitSet ids = new BitSet();
+        ids.set(1);
+        ids.set(0);
+        assertEquals(new LinkedHashSet<>(Arrays.asList("MainActivity", "SettingsActivity")),
+                symbols.toSymbols(ids));
+    }
+
+    @Test
+    public void visitedActivitiesAreUnitedWordWise() {
+        TestCase first = TestCase.newDummy();
+        first.updateVisitedActivities("com.example.MainActivity");
+        first.updateVisitedActivities("com.example.SettingsActivity");
+        TestCase second = TestCase.newDummy();
+        second.updateVisitedActivities("com.example.MainActivity");
+        second.updateVisitedActivities("com.example.AboutActivity");
+
+        assertEquals(new LinkedHashSet<>(Arrays.asList("com.example.MainActivity", "com.example.SettingsActivity")),
+                first.getVisitedActivities());
+        assertEquals(2, first.getVisitedActivityIds().cardinality());
+
+        TestSuite testSuite = new TestSuite();
+        testSuite.getTestCases().add(first);
+        testSuite.getTestCases().add(second);
+        assertEquals(3, new SuiteActivityFitnessFunction().getFitness(new Chromosome<>(testSuite)), 0.0);
+
+        assertEquals(1, new SpecificActivityCoveredFitnessFunction("com.example.AboutActivity")
+                .getFitness(new Chromosome<>(second)), 0.0);
+        assertEquals(0, new SpecificActivityCoveredFitnessFunction("com.example.AboutActivity")
+                .getFitness(new Chromosome<>(first)), 0.0);
+        assertEquals(0, new SpecificActivityCoveredFitnessFunction("com.example.UnknownActivity")
+                .getFitness(new Chromosome<>(first)), 0.0);
+    }
+}
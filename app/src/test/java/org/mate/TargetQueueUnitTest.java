@@ -0,0 +1,55 @@
+package org.mate;
+
+import org.junit.Test;
+import org.mate.exploration.genetic.core.TargetQueue;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TargetQueueUnitTest {
+
+    @Test
+    public void leastSampledTargetMatchesLinearScan() {
+        Random random = new Random(42);
+        int targets = 50;
+        TargetQueue queue = new TargetQueue(targets);
+        int[] counters = new int[targets];
+        boolean[] removed = new boolean[targets];
+        int size = targets;
+
+        for (int step = 0; step < 2000 && size > 0; step++) {
+            int target = random.nextInt(targets);
+            int operation = random.nextInt(10);
+            if (removed[target]) {
+                assertFalse(queue.contains(target));
+                queue.remove(target);
+            } else if (operation == 0) {
+                queue.remove(target);
+                removed[target] = true;
+                size--;
+            } else if (operation < 3) {
+                queue.reset(target);
+                counters[target] = 0;
+            } else {
+                // sample the least sampled target like Mio does
+                target = queue.peek();
+                queue.increment(target);
+                counters[target]++;
+            }
+
+            int expected = -1;
+            for (int candidate = 0; candidate < targets; candidate++) {
+                if (!removed[candidate] && (expected < 0 || counters[candidate] < counters[expected])) {
+                    expected = candidate;
+                }
+            }
+            assertEquals(size, queue.size());
+            if (expected >= 0) {
+                assertEquals(expected, queue.peek());
+                assertEquals(counters[expected], queue.getCounter(expected));
+            }
+        }
+        assertTrue(queue.size() < targets);
+    }
+}
@@ -0,0 +1,81 @@
+package org.mate;
+
+import org.junit.Test;
+import org.mate.exploration.genetic.chromosome.Chromosome;
+import org.mate.exploration.genetic.fitness.AmountCrashesFitnessFunction;
+import org.mate.exploration.genetic.fitness.SuiteActivityFitnessFunction;
+import org.mate.model.SymbolTable;
+import org.mate.model.TestCase;
+import org.mate.model.TestSuite;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TestSuiteUnitTest {
+
+    private static TestCase testCase(String id, boolean crash, String... activities) {
+        TestCase testCase = new TestCase(id);
+        for (String activity : activities) {
+            testCase.updateVisitedActivities(activity);
+        }
+        if (crash) {
+            testCase.setCrashDetected();
+        }
+        return testCase;
+    }
+
+    private static Set<String> visitedActivities(TestSuite testSuite) {
+        Set<String> activities = new HashSet<>();
+        for (TestCase testCase : testSuite.getTestCases()) {
+            activities.addAll(testCase.getVisitedActivities());
+        }
+        return activities;
+    }
+
+    @Test
+    public void aggregatesFollowAddedAndRemovedTestCases() {
+        TestCase first = testCase("first", false, "com.example.MainActivity", "com.example.SettingsActivity");
+        TestCase second = testCase("second", true, "com.example.MainActivity");
+        TestCase third = testCase("third", true, "com.example.AboutActivity");
+
+        TestSuite testSuite = new TestSuite();
+        List<TestCase> testCases = testSuite.getTestCases();
+        testCases.addAll(Arrays.asList(first, second, third));
+        assertEquals(3, testSuite.getVisitedActivityIds().cardinality());
+        assertEquals(2, testSuite.getCrashCount());
+        assertEquals(3, new SuiteActivityFitnessFunction().getFitness(new Chromosome<>(testSuite)), 0.0);
+        assertEquals(2, new AmountCrashesFitnessFunction().getFitness(new Chromosome<>(testSuite)), 0.0);
+        assertSame(second, testSuite.getTestCase("second"));
+
+        // the main activity is still visited by the second test case
+        testCases.remove(first);
+        assertEquals(visitedActivities(testSuite),
+                SymbolTable.ACTIVITIES.toSymbols(testSuite.getVisitedActivityIds()));
+        assertEquals(2, testSuite.getVisitedActivityIds().cardinality());
+        assertNull(testSuite.getTestCase("first"));
+
+        testCases.set(1, first);
+        assertEquals(visitedActivities(testSuite),
+                SymbolTable.ACTIVITIES.toSymbols(testSuite.getVisitedActivityIds()));
+        assertEquals(1, testSuite.getCrashCount());
+        assertNull(testSuite.getTestCase("third"));
+
+        // reversing swaps the test cases via set
+        Collections.reverse(testCases);
+        testCases.add(second);
+        assertEquals(Arrays.asList(first, second, second), testCases);
+        assertEquals(2, testSuite.getCrashCount());
+        testCases.remove(2);
+        assertSame(second, testSuite.getTestCase("second"));
+
+        testCases.clear();
+        assertTrue(testSuite.getVisitedActivityIds().isEmpty());
+        assertEquals(0, testSuite.getCrashCount());
+        assertNull(testSuite.getTestCase("second"));
+    }
+}
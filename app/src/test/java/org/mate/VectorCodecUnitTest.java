@@ -0,0 +1,51 @@
+package org.mate;
+
+import org.junit.Test;
+import org.mate.message.serialization.VectorCodec;
+import org.mate.utils.VectorEncoding;
+
+import static org.junit.Assert.*;
+
+public class VectorCodecUnitTest {
+
+    private static final double[] VECTOR = {0.0, 1.0, 0.5, 0.25, 1.0 / 3, 0.999};
+
+    @Test
+    public void float64IsLossless() {
+        String packed = VectorCodec.encode(VECTOR, VectorEncoding.FLOAT64);
+        assertArrayEquals(VECTOR, VectorCodec.decode(packed, VectorEncoding.FLOAT64), 0.0);
+    }
+
+    @Test
+    public void float32AndQuantised8Approximate() {
+        String float32 = VectorCodec.encode(VECTOR, VectorEncoding.FLOAT32);
+        assertArrayEquals(VECTOR, VectorCodec.decode(float32, VectorEncoding.FLOAT32), 1e-7);
+
+        String quantised = VectorCodec.encode(VECTOR, VectorEncoding.QUANTISED8);
+        double[] decoded = VectorCodec.decode(quantised, VectorEncoding.QUANTISED8);
+        assertArrayEquals(VECTOR, decoded, 1.0 / 255);
+        // covered and uncovered targets must be preserved exactly
+        assertEquals(0.0, decoded[0], 0.0);
+        assertEquals(1.0, decoded[1], 0.0);
+        // an almost covered target must not be decoded as covered
+        assertEquals(254 / 255.0, decoded[5], 0.0);
+    }
+
+    @Test
+    public void packedLayoutIsLittleEndianBase64() {
+        // 1.0 as little-endian IEEE 754 double: 00 00 00 00 00 00 F0 3F
+        assertEquals("AAAAAAAA8D8=", VectorCodec.encode(new double[]{1.0}, VectorEncoding.FLOAT64));
+        // 0 and 255 as single bytes
+        assertEquals("AP8=", VectorCodec.encode(new double[]{0.0, 1.0}, VectorEncoding.QUANTISED8));
+        assertEquals(0, VectorCodec.decode("", VectorEncoding.FLOAT64).length);
+    }
+
+    @Test
+    public void parseTextHandlesTrailingSeparator() {
+        assertArrayEquals(new double[]{0.5, 1.0},
+                VectorCodec.parseText("0.5+1.0+", '+'), 0.0);
+        assertArrayEquals(new double[]{0.5, 1.0},
+                VectorCodec.parseText("0.5\n1.0", '\n'), 0.0);
+        assertEquals(0, VectorCodec.parseText("", '+').length);
+    }
+}